@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux.benchmark;
+
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.Node;
+import com.google.ar.sceneform.ux.BaseGesture;
+import com.google.ar.sceneform.ux.BaseGestureRecognizer;
+import com.google.ar.sceneform.ux.BaseTransformableNode;
+import com.google.ar.sceneform.ux.BaseTransformationController;
+import com.google.ar.sceneform.ux.DragGesture;
+import com.google.ar.sceneform.ux.PinchGesture;
+import com.google.ar.sceneform.ux.TransformationSystem;
+import com.google.ar.sceneform.ux.TwistGesture;
+
+/**
+ * Transformable node whose controllers accept gestures like the ux controllers do, but only add up
+ * the values of the gestures instead of transforming the node, so that benchmarks measure the
+ * gesture path rather than Sceneform math.
+ */
+final class BenchmarkNode extends BaseTransformableNode {
+  /** Controller that accumulates a value of the gestures it is updated with. */
+  abstract static class AccumulatingController<T extends BaseGesture<T>>
+      extends BaseTransformationController<T> {
+    float total;
+    int updateCount;
+
+    AccumulatingController(BaseTransformableNode node, BaseGestureRecognizer<T> recognizer) {
+      super(node, recognizer);
+    }
+
+    @Override
+    protected boolean canStartTransformation(T gesture) {
+      if (gesture.getTargetNode() == getTransformableNode()) {
+        return getTransformableNode().select();
+      }
+
+      return isGestureForTransformableNode(gesture);
+    }
+
+    @Override
+    protected void onContinueTransformation(T gesture) {
+      total += valueOf(gesture);
+      updateCount++;
+    }
+
+    @Override
+    protected void onEndTransformation(T gesture) {}
+
+    @Override
+    public void onUpdated(Node node, FrameTime frameTime) {
+      goIdle();
+    }
+
+    abstract float valueOf(T gesture);
+  }
+
+  final AccumulatingController<DragGesture> dragController;
+  final AccumulatingController<PinchGesture> pinchController;
+  final AccumulatingController<TwistGesture> twistController;
+
+  BenchmarkNode(TransformationSystem transformationSystem) {
+    super(transformationSystem);
+
+    dragController =
+        new AccumulatingController<DragGesture>(
+            this, transformationSystem.getDragRecognizer()) {
+          @Override
+          float valueOf(DragGesture gesture) {
+            return gesture.getDeltaX() + gesture.getDeltaY();
+          }
+        };
+    addTransformationController(dragController);
+
+    pinchController =
+        new AccumulatingController<PinchGesture>(
+            this, transformationSystem.getPinchRecognizer()) {
+          @Override
+          float valueOf(PinchGesture gesture) {
+            return gesture.getGapDelta();
+          }
+        };
+    addTransformationController(pinchController);
+
+    twistController =
+        new AccumulatingController<TwistGesture>(
+            this, transformationSystem.getTwistRecognizer()) {
+          @Override
+          float valueOf(TwistGesture gesture) {
+            return gesture.getDeltaRotationDegrees();
+          }
+        };
+    addTransformationController(twistController);
+  }
+
+  /** Returns the number of updates applied by the controllers of this node. */
+  int getUpdateCount() {
+    return dragController.updateCount + pinchController.updateCount + twistController.updateCount;
+  }
+}
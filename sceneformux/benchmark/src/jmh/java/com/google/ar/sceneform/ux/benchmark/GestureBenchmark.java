@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux.benchmark;
+
+import android.util.DisplayMetrics;
+import android.view.MotionEvent;
+import com.google.ar.sceneform.HitTestResult;
+import com.google.ar.sceneform.Scene;
+import com.google.ar.sceneform.ux.BaseGesture;
+import com.google.ar.sceneform.ux.BaseGestureRecognizer;
+import com.google.ar.sceneform.ux.BaseTransformableNode;
+import com.google.ar.sceneform.ux.DragGesture;
+import com.google.ar.sceneform.ux.DragGestureRecognizer;
+import com.google.ar.sceneform.ux.GesturePointersUtility;
+import com.google.ar.sceneform.ux.PinchGesture;
+import com.google.ar.sceneform.ux.PinchGestureRecognizer;
+import com.google.ar.sceneform.ux.SelectionVisualizer;
+import com.google.ar.sceneform.ux.TransformationSystem;
+import com.google.ar.sceneform.ux.TwistGesture;
+import com.google.ar.sceneform.ux.TwistGestureRecognizer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the cost of one touch event on the drag, pinch and twist recognizers alone, and on a
+ * {@link TransformationSystem} that dispatches to all of them and to the controllers of a node.
+ *
+ * <p>Every invocation dispatches one event of a {@link SyntheticTouchStream}, so the reported
+ * time is per event. Run with the gc profiler (enabled in build.gradle) to also get the bytes
+ * allocated per event, reported as gc.alloc.rate.norm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GestureBenchmark {
+  /** Listener that consumes every gesture of a recognizer, like a controller without a node. */
+  static final class GestureConsumer<T extends BaseGesture<T>>
+      implements BaseGestureRecognizer.OnGestureStartedListener<T>,
+          BaseGesture.OnGestureEventListener<T> {
+    int updateCount;
+
+    @Override
+    public void onGestureStarted(T gesture) {
+      gesture.setGestureEventListener(this);
+    }
+
+    @Override
+    public void onUpdated(T gesture) {
+      updateCount++;
+    }
+
+    @Override
+    public void onFinished(T gesture) {}
+  }
+
+  static final SelectionVisualizer NO_SELECTION_VISUALIZER =
+      new SelectionVisualizer() {
+        @Override
+        public void applySelectionVisual(BaseTransformableNode node) {}
+
+        @Override
+        public void removeSelectionVisual(BaseTransformableNode node) {}
+      };
+
+  @Param({"1", "2", "5", "10"})
+  public int pointerCount;
+
+  private SyntheticTouchStream stream;
+  private HitTestResult hitTestResult;
+
+  private DragGestureRecognizer dragRecognizer;
+  private PinchGestureRecognizer pinchRecognizer;
+  private TwistGestureRecognizer twistRecognizer;
+  private final GestureConsumer<DragGesture> dragConsumer = new GestureConsumer<>();
+  private final GestureConsumer<PinchGesture> pinchConsumer = new GestureConsumer<>();
+  private final GestureConsumer<TwistGesture> twistConsumer = new GestureConsumer<>();
+
+  private TransformationSystem transformationSystem;
+  private BenchmarkNode node;
+
+  @Setup
+  public void setUp() {
+    stream = new SyntheticTouchStream(pointerCount);
+
+    DisplayMetrics displayMetrics = createDisplayMetrics();
+
+    dragRecognizer = new DragGestureRecognizer(new GesturePointersUtility(displayMetrics));
+    dragRecognizer.addOnGestureStartedListener(dragConsumer);
+    pinchRecognizer = new PinchGestureRecognizer(new GesturePointersUtility(displayMetrics));
+    pinchRecognizer.addOnGestureStartedListener(pinchConsumer);
+    twistRecognizer = new TwistGestureRecognizer(new GesturePointersUtility(displayMetrics));
+    twistRecognizer.addOnGestureStartedListener(twistConsumer);
+
+    transformationSystem = new TransformationSystem(displayMetrics, NO_SELECTION_VISUALIZER);
+    Scene scene = new Scene();
+    transformationSystem.setScene(scene);
+    node = new BenchmarkNode(transformationSystem);
+    node.setParent(scene);
+    // Pinches and twists only transform the selected node, as if the node had been tapped first.
+    node.select();
+
+    // Every touch lands on the node, so drags can start on it.
+    hitTestResult = new HitTestResult();
+    hitTestResult.setNode(node);
+  }
+
+  @Benchmark
+  public int drag() {
+    MotionEvent motionEvent = stream.next();
+    dragRecognizer.onTouch(hitTestResult, motionEvent);
+    return dragConsumer.updateCount;
+  }
+
+  @Benchmark
+  public int pinch() {
+    MotionEvent motionEvent = stream.next();
+    pinchRecognizer.onTouch(hitTestResult, motionEvent);
+    return pinchConsumer.updateCount;
+  }
+
+  @Benchmark
+  public int twist() {
+    MotionEvent motionEvent = stream.next();
+    twistRecognizer.onTouch(hitTestResult, motionEvent);
+    return twistConsumer.updateCount;
+  }
+
+  @Benchmark
+  public int transformationSystem() {
+    MotionEvent motionEvent = stream.next();
+    transformationSystem.onTouch(hitTestResult, motionEvent);
+    return node.getUpdateCount();
+  }
+
+  static DisplayMetrics createDisplayMetrics() {
+    DisplayMetrics displayMetrics = new DisplayMetrics();
+    displayMetrics.density = SyntheticTouchStream.DENSITY_DPI / 160.0f;
+    displayMetrics.xdpi = SyntheticTouchStream.DENSITY_DPI;
+    displayMetrics.ydpi = SyntheticTouchStream.DENSITY_DPI;
+    return displayMetrics;
+  }
+}
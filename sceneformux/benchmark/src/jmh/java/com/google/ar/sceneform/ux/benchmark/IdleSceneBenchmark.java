@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux.benchmark;
+
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.Scene;
+import com.google.ar.sceneform.ux.TransformationSystem;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the cost of one frame of a scene of transformable nodes that nothing is touching, which
+ * should be close to zero once their controllers are idle.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class IdleSceneBenchmark {
+  private static final long FRAME_NANOS = 16_666_667L;
+
+  @Param({"100", "1000"})
+  public int nodeCount;
+
+  private BenchmarkNode[] nodes;
+  private final FrameTime frameTime = new FrameTime();
+  private long frameTimeNanos;
+
+  @Setup
+  public void setUp() {
+    TransformationSystem transformationSystem =
+        new TransformationSystem(
+            GestureBenchmark.createDisplayMetrics(), GestureBenchmark.NO_SELECTION_VISUALIZER);
+    Scene scene = new Scene();
+    transformationSystem.setScene(scene);
+
+    nodes = new BenchmarkNode[nodeCount];
+    for (int i = 0; i < nodeCount; i++) {
+      nodes[i] = new BenchmarkNode(transformationSystem);
+      nodes[i].setParent(scene);
+    }
+
+    // The first frame lets the controllers go idle.
+    frame();
+  }
+
+  @Benchmark
+  public long frame() {
+    frameTimeNanos += FRAME_NANOS;
+    frameTime.update(frameTimeNanos);
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i].dispatchUpdate(frameTime);
+    }
+    return frameTimeNanos;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux.benchmark;
+
+import android.view.MotionEvent;
+import java.util.ArrayList;
+
+/**
+ * Builds a repeating stream of touch events for a number of pointers.
+ *
+ * <p>The pointers go down one at a time on a circle, then move together so that the circle first
+ * translates, then grows, then turns, so that each of the drag, pinch and twist recognizers has a
+ * phase in which its gestures start. Then the pointers go up one at a time. Every move batches one
+ * historical sample, like devices do when touch events arrive faster than they are consumed. The
+ * events are built once so that replaying them doesn't allocate.
+ */
+final class SyntheticTouchStream {
+  static final float DENSITY_DPI = 420.0f;
+
+  private static final int MOVES_PER_PHASE = 20;
+  private static final int MOVE_COUNT = MOVES_PER_PHASE * 3;
+  private static final long EVENT_INTERVAL_MILLIS = 8;
+  private static final float CENTER_X = 540.0f;
+  private static final float CENTER_Y = 960.0f;
+  private static final float START_RADIUS = 150.0f;
+  private static final float TRANSLATION_PER_MOVE = 6.0f;
+  private static final float GROWTH_PER_MOVE = 4.0f;
+  private static final float ROTATION_DEGREES_PER_MOVE = 3.0f;
+
+  private final int pointerCount;
+  private final MotionEvent.PointerProperties[] pointerProperties;
+  private final MotionEvent.PointerCoords[] pointerCoords;
+  private final MotionEvent[] events;
+  private int nextEvent;
+
+  SyntheticTouchStream(int pointerCount) {
+    this.pointerCount = pointerCount;
+    pointerProperties = new MotionEvent.PointerProperties[pointerCount];
+    pointerCoords = new MotionEvent.PointerCoords[pointerCount];
+    for (int i = 0; i < pointerCount; i++) {
+      pointerProperties[i] = new MotionEvent.PointerProperties();
+      pointerProperties[i].id = i;
+      pointerCoords[i] = new MotionEvent.PointerCoords();
+    }
+
+    ArrayList<MotionEvent> eventList = new ArrayList<>();
+    long time = 0;
+    for (int i = 0; i < pointerCount; i++) {
+      int action =
+          i == 0
+              ? MotionEvent.ACTION_DOWN
+              : MotionEvent.ACTION_POINTER_DOWN | (i << MotionEvent.ACTION_POINTER_INDEX_SHIFT);
+      eventList.add(createEvent(action, i + 1, time, 0.0f));
+      time += EVENT_INTERVAL_MILLIS;
+    }
+
+    for (int move = 1; move <= MOVE_COUNT; move++) {
+      MotionEvent event = createEvent(MotionEvent.ACTION_MOVE, pointerCount, time, move - 0.5f);
+      setCoords(pointerCount, move);
+      event.addBatch(time + EVENT_INTERVAL_MILLIS / 2, pointerCoords, 0);
+      eventList.add(event);
+      time += EVENT_INTERVAL_MILLIS;
+    }
+
+    for (int i = pointerCount - 1; i >= 0; i--) {
+      int action =
+          i == 0
+              ? MotionEvent.ACTION_UP
+              : MotionEvent.ACTION_POINTER_UP | (i << MotionEvent.ACTION_POINTER_INDEX_SHIFT);
+      eventList.add(createEvent(action, i + 1, time, MOVE_COUNT));
+      time += EVENT_INTERVAL_MILLIS;
+    }
+
+    events = eventList.toArray(new MotionEvent[0]);
+  }
+
+  /** Returns the number of events in one repetition of the stream. */
+  int getEventCount() {
+    return events.length;
+  }
+
+  /** Returns the next event, starting over once every event of the stream was returned. */
+  MotionEvent next() {
+    MotionEvent event = events[nextEvent];
+    nextEvent++;
+    if (nextEvent == events.length) {
+      nextEvent = 0;
+    }
+    return event;
+  }
+
+  private MotionEvent createEvent(int action, int count, long time, float move) {
+    setCoords(count, move);
+    return MotionEvent.obtain(
+        0, time, action, count, pointerProperties, pointerCoords, 0, 0, 1.0f, 1.0f, 0, 0, 0, 0);
+  }
+
+  private void setCoords(int count, float move) {
+    float translation = phaseProgress(move, 0) * TRANSLATION_PER_MOVE;
+    float centerX = CENTER_X + translation;
+    float centerY = CENTER_Y + translation;
+    float radius = START_RADIUS + phaseProgress(move, 1) * GROWTH_PER_MOVE;
+    float rotation = phaseProgress(move, 2) * ROTATION_DEGREES_PER_MOVE;
+    for (int i = 0; i < count; i++) {
+      double angle = Math.toRadians(360.0 * i / pointerCount + rotation);
+      pointerCoords[i].clear();
+      pointerCoords[i].x = centerX + radius * (float) Math.cos(angle);
+      pointerCoords[i].y = centerY + radius * (float) Math.sin(angle);
+    }
+  }
+
+  // Returns the number of moves made in the phase, between 0 and MOVES_PER_PHASE.
+  private static float phaseProgress(float move, int phase) {
+    return Math.max(0.0f, Math.min(MOVES_PER_PHASE, move - phase * MOVES_PER_PHASE));
+  }
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.util;
+
+/** Desktop stand-in for {@code android.util.DisplayMetrics}. */
+public class DisplayMetrics {
+  public float density = 1.0f;
+  public float xdpi = 160.0f;
+  public float ydpi = 160.0f;
+  public int widthPixels;
+  public int heightPixels;
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.view;
+
+import java.util.Arrays;
+
+/**
+ * Desktop stand-in for {@code android.view.MotionEvent}.
+ *
+ * <p>Supports building events with {@link #obtain} and {@link #addBatch}, and the accessors used by
+ * the gesture recognizers. Events are not pooled, so benchmarks should build their events up front
+ * and replay them.
+ */
+public final class MotionEvent {
+  public static final int ACTION_MASK = 0xff;
+  public static final int ACTION_DOWN = 0;
+  public static final int ACTION_UP = 1;
+  public static final int ACTION_MOVE = 2;
+  public static final int ACTION_CANCEL = 3;
+  public static final int ACTION_OUTSIDE = 4;
+  public static final int ACTION_POINTER_DOWN = 5;
+  public static final int ACTION_POINTER_UP = 6;
+  public static final int ACTION_POINTER_INDEX_MASK = 0xff00;
+  public static final int ACTION_POINTER_INDEX_SHIFT = 8;
+
+  /** Identifies a pointer of an event. */
+  public static final class PointerProperties {
+    public int id;
+    public int toolType;
+
+    public void clear() {
+      id = -1;
+      toolType = 0;
+    }
+  }
+
+  /** Position of a pointer in one sample of an event. */
+  public static final class PointerCoords {
+    public float x;
+    public float y;
+    public float pressure;
+    public float size;
+
+    public void clear() {
+      x = 0.0f;
+      y = 0.0f;
+      pressure = 0.0f;
+      size = 0.0f;
+    }
+  }
+
+  private final long downTime;
+  private final int action;
+  private final int[] pointerIds;
+  private long[] sampleTimes;
+  // Positions of each pointer for each sample, ordered by sample then pointer index, x then y.
+  private float[] coords;
+  private int sampleCount;
+
+  private MotionEvent(long downTime, int action, int[] pointerIds) {
+    this.downTime = downTime;
+    this.action = action;
+    this.pointerIds = pointerIds;
+    sampleTimes = new long[1];
+    coords = new float[pointerIds.length * 2];
+  }
+
+  public static MotionEvent obtain(
+      long downTime,
+      long eventTime,
+      int action,
+      int pointerCount,
+      PointerProperties[] pointerProperties,
+      PointerCoords[] pointerCoords,
+      int metaState,
+      int buttonState,
+      float xPrecision,
+      float yPrecision,
+      int deviceId,
+      int edgeFlags,
+      int source,
+      int flags) {
+    int[] pointerIds = new int[pointerCount];
+    for (int i = 0; i < pointerCount; i++) {
+      pointerIds[i] = pointerProperties[i].id;
+    }
+
+    MotionEvent motionEvent = new MotionEvent(downTime, action, pointerIds);
+    motionEvent.addBatch(eventTime, pointerCoords, metaState);
+    return motionEvent;
+  }
+
+  /** Adds a sample that becomes the current one, the previous samples become historical. */
+  public void addBatch(long eventTime, PointerCoords[] pointerCoords, int metaState) {
+    int pointerCount = pointerIds.length;
+    if (sampleCount == sampleTimes.length) {
+      sampleTimes = Arrays.copyOf(sampleTimes, sampleCount * 2);
+      coords = Arrays.copyOf(coords, sampleCount * 2 * pointerCount * 2);
+    }
+
+    sampleTimes[sampleCount] = eventTime;
+    int offset = sampleCount * pointerCount * 2;
+    for (int i = 0; i < pointerCount; i++) {
+      coords[offset + i * 2] = pointerCoords[i].x;
+      coords[offset + i * 2 + 1] = pointerCoords[i].y;
+    }
+    sampleCount++;
+  }
+
+  public void recycle() {}
+
+  public int getAction() {
+    return action;
+  }
+
+  public int getActionMasked() {
+    return action & ACTION_MASK;
+  }
+
+  public int getActionIndex() {
+    return (action & ACTION_POINTER_INDEX_MASK) >> ACTION_POINTER_INDEX_SHIFT;
+  }
+
+  public long getDownTime() {
+    return downTime;
+  }
+
+  public long getEventTime() {
+    return sampleTimes[sampleCount - 1];
+  }
+
+  public int getPointerCount() {
+    return pointerIds.length;
+  }
+
+  public int getPointerId(int pointerIndex) {
+    return pointerIds[pointerIndex];
+  }
+
+  public int findPointerIndex(int pointerId) {
+    for (int i = 0; i < pointerIds.length; i++) {
+      if (pointerIds[i] == pointerId) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  public float getX() {
+    return getX(0);
+  }
+
+  public float getY() {
+    return getY(0);
+  }
+
+  public float getX(int pointerIndex) {
+    return getHistoricalX(pointerIndex, sampleCount - 1);
+  }
+
+  public float getY(int pointerIndex) {
+    return getHistoricalY(pointerIndex, sampleCount - 1);
+  }
+
+  public int getHistorySize() {
+    return sampleCount - 1;
+  }
+
+  public long getHistoricalEventTime(int pos) {
+    return sampleTimes[pos];
+  }
+
+  public float getHistoricalX(int pointerIndex, int pos) {
+    return coords[(pos * pointerIds.length + pointerIndex) * 2];
+  }
+
+  public float getHistoricalY(int pointerIndex, int pos) {
+    return coords[(pos * pointerIds.length + pointerIndex) * 2 + 1];
+  }
+}
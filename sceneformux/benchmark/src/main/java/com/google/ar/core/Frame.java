@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Desktop stand-in for {@code com.google.ar.core.Frame} in which hit tests find nothing and no
+ * trackables are updated.
+ */
+public class Frame {
+  private final long timestamp;
+
+  public Frame(long timestamp) {
+    this.timestamp = timestamp;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  public List<HitResult> hitTest(float x, float y) {
+    return Collections.emptyList();
+  }
+
+  public <T extends Trackable> Collection<T> getUpdatedTrackables(Class<T> filterClass) {
+    return new ArrayList<>();
+  }
+}
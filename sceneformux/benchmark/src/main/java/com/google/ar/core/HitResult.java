@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.core;
+
+/** Desktop stand-in for {@code com.google.ar.core.HitResult}. */
+public class HitResult {
+  private final Trackable trackable;
+  private final Pose hitPose;
+
+  public HitResult(Trackable trackable, Pose hitPose) {
+    this.trackable = trackable;
+    this.hitPose = hitPose;
+  }
+
+  public Trackable getTrackable() {
+    return trackable;
+  }
+
+  public Pose getHitPose() {
+    return hitPose;
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.core;
+
+import android.support.annotation.Nullable;
+import java.nio.FloatBuffer;
+
+/**
+ * Desktop stand-in for {@code com.google.ar.core.Plane} with a fixed center pose and polygon. The
+ * polygon is made of (x, z) pairs in the space of the center pose.
+ */
+public class Plane implements Trackable {
+  /** The types of plane detected by ARCore. */
+  public enum Type {
+    HORIZONTAL_UPWARD_FACING,
+    HORIZONTAL_DOWNWARD_FACING,
+    VERTICAL
+  }
+
+  private final Type type;
+  private final Pose centerPose;
+  private final float[] polygon;
+
+  public Plane(Type type, Pose centerPose, float[] polygon) {
+    this.type = type;
+    this.centerPose = centerPose;
+    this.polygon = polygon.clone();
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public TrackingState getTrackingState() {
+    return TrackingState.TRACKING;
+  }
+
+  @Nullable
+  public Plane getSubsumedBy() {
+    return null;
+  }
+
+  public Pose getCenterPose() {
+    return centerPose;
+  }
+
+  public FloatBuffer getPolygon() {
+    return FloatBuffer.wrap(polygon);
+  }
+
+  public boolean isPoseInPolygon(Pose pose) {
+    return true;
+  }
+}
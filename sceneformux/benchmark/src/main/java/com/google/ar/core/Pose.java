@@ -0,0 +1,55 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.core;
+
+/** Desktop stand-in for {@code com.google.ar.core.Pose}. */
+public class Pose {
+  private final float[] translation;
+  private final float[] rotation;
+
+  public Pose(float[] translation, float[] rotation) {
+    this.translation = translation.clone();
+    this.rotation = rotation.clone();
+  }
+
+  public float tx() {
+    return translation[0];
+  }
+
+  public float ty() {
+    return translation[1];
+  }
+
+  public float tz() {
+    return translation[2];
+  }
+
+  public float qx() {
+    return rotation[0];
+  }
+
+  public float qy() {
+    return rotation[1];
+  }
+
+  public float qz() {
+    return rotation[2];
+  }
+
+  public float qw() {
+    return rotation[3];
+  }
+}
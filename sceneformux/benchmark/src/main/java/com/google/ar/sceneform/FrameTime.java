@@ -0,0 +1,33 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform;
+
+/** Desktop stand-in for {@code com.google.ar.sceneform.FrameTime}. */
+public class FrameTime {
+  private static final float NANOSECONDS_TO_SECONDS = 1.0f / 1000000000.0f;
+
+  private long lastNanoTime;
+  private long deltaNanoseconds;
+
+  public void update(long frameTimeNanos) {
+    deltaNanoseconds = lastNanoTime == 0 ? 0 : frameTimeNanos - lastNanoTime;
+    lastNanoTime = frameTimeNanos;
+  }
+
+  public float getDeltaSeconds() {
+    return deltaNanoseconds * NANOSECONDS_TO_SECONDS;
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform;
+
+import android.support.annotation.Nullable;
+
+/** Desktop stand-in for {@code com.google.ar.sceneform.HitTestResult}. */
+public class HitTestResult {
+  @Nullable private Node node;
+
+  public void setNode(@Nullable Node node) {
+    this.node = node;
+  }
+
+  @Nullable
+  public Node getNode() {
+    return node;
+  }
+
+  public void reset() {
+    node = null;
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform;
+
+import android.support.annotation.Nullable;
+import android.view.MotionEvent;
+import java.util.ArrayList;
+
+/**
+ * Desktop stand-in for {@code com.google.ar.sceneform.Node}.
+ *
+ * <p>Only models the hierarchy, the name and the lifecycle of a node. A node is active while it is
+ * enabled and attached to a {@link Scene}, like in Sceneform, and lifecycle listeners are notified
+ * when that changes.
+ */
+public class Node extends NodeParent {
+  /** Interface definition for callbacks when the node is activated, updated or deactivated. */
+  public interface LifecycleListener {
+    void onActivated(Node node);
+
+    void onUpdated(Node node, FrameTime frameTime);
+
+    void onDeactivated(Node node);
+  }
+
+  /** Interface definition for a callback when the node is tapped. */
+  public interface OnTapListener {
+    void onTap(HitTestResult hitTestResult, MotionEvent motionEvent);
+  }
+
+  private final ArrayList<LifecycleListener> lifecycleListeners = new ArrayList<>();
+  @Nullable private NodeParent parent;
+  @Nullable private OnTapListener onTapListener;
+  private String name = "Node";
+  private boolean enabled = true;
+  private boolean active;
+
+  public final void setName(String name) {
+    this.name = name;
+  }
+
+  public final String getName() {
+    return name;
+  }
+
+  /** Returns the parent node, or null if the node is attached to the scene or detached. */
+  @Nullable
+  public final Node getParent() {
+    return parent instanceof Node ? (Node) parent : null;
+  }
+
+  @Nullable
+  public final Scene getScene() {
+    NodeParent ancestor = parent;
+    while (ancestor instanceof Node) {
+      ancestor = ((Node) ancestor).parent;
+    }
+    return (Scene) ancestor;
+  }
+
+  public void setParent(@Nullable NodeParent parent) {
+    if (this.parent == parent) {
+      return;
+    }
+
+    if (this.parent != null) {
+      this.parent.onRemoveChild(this);
+    }
+    this.parent = parent;
+    if (parent != null) {
+      parent.onAddChild(this);
+    }
+    updateActiveStatusRecursively();
+  }
+
+  public final void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+    updateActiveStatusRecursively();
+  }
+
+  public final boolean isEnabled() {
+    return enabled;
+  }
+
+  public final boolean isActive() {
+    return active;
+  }
+
+  public void setOnTapListener(@Nullable OnTapListener onTapListener) {
+    this.onTapListener = onTapListener;
+  }
+
+  public void addLifecycleListener(LifecycleListener lifecycleListener) {
+    if (!lifecycleListeners.contains(lifecycleListener)) {
+      lifecycleListeners.add(lifecycleListener);
+    }
+  }
+
+  public void removeLifecycleListener(LifecycleListener lifecycleListener) {
+    lifecycleListeners.remove(lifecycleListener);
+  }
+
+  /** Notifies the node and its lifecycle listeners of a frame, like the scene does every frame. */
+  public void dispatchUpdate(FrameTime frameTime) {
+    if (!active) {
+      return;
+    }
+
+    onUpdate(frameTime);
+    for (int i = 0; i < lifecycleListeners.size(); i++) {
+      lifecycleListeners.get(i).onUpdated(this, frameTime);
+    }
+  }
+
+  public void onUpdate(FrameTime frameTime) {}
+
+  private void updateActiveStatusRecursively() {
+    Node parentNode = getParent();
+    boolean shouldBeActive =
+        enabled && (parentNode != null ? parentNode.isActive() : parent instanceof Scene);
+    if (shouldBeActive != active) {
+      active = shouldBeActive;
+      for (int i = 0; i < lifecycleListeners.size(); i++) {
+        if (active) {
+          lifecycleListeners.get(i).onActivated(this);
+        } else {
+          lifecycleListeners.get(i).onDeactivated(this);
+        }
+      }
+    }
+
+    for (Node child : getChildren()) {
+      child.updateActiveStatusRecursively();
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** Desktop stand-in for the base class of {@link Scene} and {@link Node}. */
+public abstract class NodeParent {
+  private final ArrayList<Node> children = new ArrayList<>();
+  private final List<Node> unmodifiableChildren = Collections.unmodifiableList(children);
+
+  public final List<Node> getChildren() {
+    return unmodifiableChildren;
+  }
+
+  public final void addChild(Node child) {
+    child.setParent(this);
+  }
+
+  public final void removeChild(Node child) {
+    if (children.contains(child)) {
+      child.setParent(null);
+    }
+  }
+
+  final void onAddChild(Node child) {
+    children.add(child);
+  }
+
+  final void onRemoveChild(Node child) {
+    children.remove(child);
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform;
+
+/**
+ * Desktop stand-in for {@code com.google.ar.sceneform.Scene}. Nodes attached to it are active.
+ * There is no collision, so hit tests never hit a node.
+ */
+public class Scene extends NodeParent {
+  /** Interface definition for a callback invoked once per frame. */
+  public interface OnUpdateListener {
+    void onUpdate(FrameTime frameTime);
+  }
+
+  private final Camera camera = new Camera();
+
+  public Camera getCamera() {
+    return camera;
+  }
+
+  public HitTestResult hitTest(com.google.ar.sceneform.collision.Ray ray) {
+    return new HitTestResult();
+  }
+}
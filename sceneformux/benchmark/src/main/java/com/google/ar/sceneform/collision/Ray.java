@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.collision;
+
+import com.google.ar.sceneform.math.Vector3;
+
+/** Desktop stand-in for {@code com.google.ar.sceneform.collision.Ray}. */
+public class Ray {
+  private final Vector3 origin;
+  private final Vector3 direction;
+
+  public Ray(Vector3 origin, Vector3 direction) {
+    this.origin = new Vector3(origin);
+    this.direction = direction.normalized();
+  }
+
+  public Vector3 getOrigin() {
+    return new Vector3(origin);
+  }
+
+  public Vector3 getDirection() {
+    return new Vector3(direction);
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.math;
+
+/** Desktop stand-in for {@code com.google.ar.sceneform.math.Vector3}. */
+public class Vector3 {
+  public float x;
+  public float y;
+  public float z;
+
+  public Vector3() {}
+
+  public Vector3(float x, float y, float z) {
+    set(x, y, z);
+  }
+
+  public Vector3(Vector3 v) {
+    set(v.x, v.y, v.z);
+  }
+
+  public void set(float vx, float vy, float vz) {
+    x = vx;
+    y = vy;
+    z = vz;
+  }
+
+  public void set(Vector3 v) {
+    set(v.x, v.y, v.z);
+  }
+
+  public float length() {
+    return (float) Math.sqrt(x * x + y * y + z * z);
+  }
+
+  public Vector3 normalized() {
+    float length = length();
+    return length > 0.0f ? new Vector3(x / length, y / length, z / length) : new Vector3();
+  }
+
+  public static Vector3 zero() {
+    return new Vector3();
+  }
+
+  public static Vector3 forward() {
+    return new Vector3(0.0f, 0.0f, -1.0f);
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.utilities;
+
+import android.support.annotation.Nullable;
+
+/** Desktop stand-in for {@code com.google.ar.sceneform.utilities.Preconditions}. */
+public class Preconditions {
+  public static <T> T checkNotNull(@Nullable T reference) {
+    if (reference == null) {
+      throw new NullPointerException();
+    }
+
+    return reference;
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux.benchmark;
+
+import static org.junit.Assert.assertEquals;
+
+import android.view.MotionEvent;
+import com.google.ar.sceneform.HitTestResult;
+import com.google.ar.sceneform.ux.BaseGesture;
+import com.google.ar.sceneform.ux.BaseGestureRecognizer;
+import com.google.ar.sceneform.ux.GesturePointersUtility;
+import com.google.ar.sceneform.ux.TwistGesture;
+import com.google.ar.sceneform.ux.TwistGestureRecognizer;
+import org.junit.Test;
+
+/**
+ * Checks that a twist with historical samples enabled rotates as much when its samples are batched
+ * into one move event, as they are by Android between frames, as when each sample is a separate
+ * move event. The batched samples make a full turn, which is lost if only the current sample of
+ * the batch is read.
+ */
+public class BatchedTwistTest {
+  /** Adds up the rotation of the twists of a recognizer. */
+  private static final class RotationSum
+      implements BaseGestureRecognizer.OnGestureStartedListener<TwistGesture>,
+          BaseGesture.OnGestureEventListener<TwistGesture> {
+    float rotationDegrees;
+    int startCount;
+
+    @Override
+    public void onGestureStarted(TwistGesture gesture) {
+      startCount++;
+      gesture.setGestureEventListener(this);
+    }
+
+    @Override
+    public void onUpdated(TwistGesture gesture) {
+      rotationDegrees += gesture.getDeltaRotationDegrees();
+    }
+
+    @Override
+    public void onFinished(TwistGesture gesture) {}
+  }
+
+  private static final float CENTER_X = 540.0f;
+  private static final float CENTER_Y = 960.0f;
+  private static final float RADIUS = 150.0f;
+  private static final long EVENT_INTERVAL_MILLIS = 8;
+  // Separate moves that start the twist, the same whether the rest is batched or not.
+  private static final int START_MOVE_COUNT = 4;
+  private static final float START_DEGREES_PER_MOVE = 5.0f;
+  // Moves that are compared, as separate events or as the samples of one event.
+  private static final int COMPARED_SAMPLE_COUNT = 12;
+  private static final float COMPARED_DEGREES_PER_SAMPLE = 30.0f;
+
+  private final MotionEvent.PointerProperties[] pointerProperties =
+      new MotionEvent.PointerProperties[2];
+  private final MotionEvent.PointerCoords[] pointerCoords = new MotionEvent.PointerCoords[2];
+  private final HitTestResult hitTestResult = new HitTestResult();
+  private long time;
+
+  public BatchedTwistTest() {
+    for (int i = 0; i < 2; i++) {
+      pointerProperties[i] = new MotionEvent.PointerProperties();
+      pointerProperties[i].id = i;
+      pointerCoords[i] = new MotionEvent.PointerCoords();
+    }
+  }
+
+  @Test
+  public void batchedMove_rotatesAsMuchAsSeparateMoves() {
+    float separateDegrees = twist(false);
+    float batchedDegrees = twist(true);
+
+    float expectedDegrees = COMPARED_SAMPLE_COUNT * COMPARED_DEGREES_PER_SAMPLE;
+    assertEquals(expectedDegrees, Math.abs(separateDegrees), 0.01f);
+    assertEquals(separateDegrees, batchedDegrees, 0.001f);
+  }
+
+  /** Twists two pointers and returns the rotation reported for the compared samples. */
+  private float twist(boolean batched) {
+    TwistGestureRecognizer recognizer =
+        new TwistGestureRecognizer(
+            new GesturePointersUtility(GestureBenchmark.createDisplayMetrics()));
+    recognizer.setHistoricalSamplesEnabled(true);
+    RotationSum rotationSum = new RotationSum();
+    recognizer.addOnGestureStartedListener(rotationSum);
+
+    time = 0;
+    float degrees = 0.0f;
+    recognizer.onTouch(hitTestResult, createEvent(MotionEvent.ACTION_DOWN, 1, degrees));
+    recognizer.onTouch(
+        hitTestResult,
+        createEvent(
+            MotionEvent.ACTION_POINTER_DOWN | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT),
+            2,
+            degrees));
+    for (int i = 0; i < START_MOVE_COUNT; i++) {
+      degrees += START_DEGREES_PER_MOVE;
+      recognizer.onTouch(hitTestResult, createEvent(MotionEvent.ACTION_MOVE, 2, degrees));
+    }
+    assertEquals(1, rotationSum.startCount);
+    float startRotationDegrees = rotationSum.rotationDegrees;
+
+    MotionEvent batchedEvent = null;
+    for (int i = 0; i < COMPARED_SAMPLE_COUNT; i++) {
+      degrees += COMPARED_DEGREES_PER_SAMPLE;
+      if (!batched) {
+        recognizer.onTouch(hitTestResult, createEvent(MotionEvent.ACTION_MOVE, 2, degrees));
+      } else if (batchedEvent == null) {
+        batchedEvent = createEvent(MotionEvent.ACTION_MOVE, 2, degrees);
+      } else {
+        setCoords(2, degrees);
+        batchedEvent.addBatch(time, pointerCoords, 0);
+        time += EVENT_INTERVAL_MILLIS;
+      }
+    }
+    if (batchedEvent != null) {
+      assertEquals(COMPARED_SAMPLE_COUNT - 1, batchedEvent.getHistorySize());
+      recognizer.onTouch(hitTestResult, batchedEvent);
+    }
+
+    float comparedRotationDegrees = rotationSum.rotationDegrees - startRotationDegrees;
+    recognizer.onTouch(
+        hitTestResult,
+        createEvent(
+            MotionEvent.ACTION_POINTER_UP | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT),
+            2,
+            degrees));
+    recognizer.onTouch(hitTestResult, createEvent(MotionEvent.ACTION_UP, 1, degrees));
+    return comparedRotationDegrees;
+  }
+
+  private MotionEvent createEvent(int action, int pointerCount, float degrees) {
+    setCoords(pointerCount, degrees);
+    MotionEvent motionEvent =
+        MotionEvent.obtain(
+            0,
+            time,
+            action,
+            pointerCount,
+            pointerProperties,
+            pointerCoords,
+            0,
+            0,
+            1.0f,
+            1.0f,
+            0,
+            0,
+            0,
+            0);
+    time += EVENT_INTERVAL_MILLIS;
+    return motionEvent;
+  }
+
+  // Places the pointers on opposite sides of a circle, turned by the angle.
+  private void setCoords(int pointerCount, float degrees) {
+    for (int i = 0; i < pointerCount; i++) {
+      double angle = Math.toRadians(degrees + 180.0 * i);
+      pointerCoords[i].clear();
+      pointerCoords[i].x = CENTER_X + RADIUS * (float) Math.cos(angle);
+      pointerCoords[i].y = CENTER_Y + RADIUS * (float) Math.sin(angle);
+    }
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux.benchmark;
+
+import android.view.MotionEvent;
+import com.google.ar.sceneform.HitTestResult;
+import com.google.ar.sceneform.Scene;
+import com.google.ar.sceneform.ux.TransformationSystem;
+
+/** A transformation system with one selected {@link BenchmarkNode} that every touch hits. */
+final class BenchmarkScene {
+  final TransformationSystem transformationSystem;
+  final BenchmarkNode node;
+  private final HitTestResult hitTestResult = new HitTestResult();
+
+  BenchmarkScene() {
+    transformationSystem =
+        new TransformationSystem(
+            GestureBenchmark.createDisplayMetrics(), GestureBenchmark.NO_SELECTION_VISUALIZER);
+    Scene scene = new Scene();
+    transformationSystem.setScene(scene);
+    node = new BenchmarkNode(transformationSystem);
+    node.setParent(scene);
+    node.select();
+    hitTestResult.setNode(node);
+  }
+
+  /** Dispatches the event to the transformation system as a touch on the node. */
+  void touch(MotionEvent motionEvent) {
+    transformationSystem.onTouch(hitTestResult, motionEvent);
+  }
+}
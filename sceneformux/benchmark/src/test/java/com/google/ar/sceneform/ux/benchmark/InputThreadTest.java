@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux.benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.ux.TransformationSystem;
+import org.junit.Test;
+
+/**
+ * Checks that recognizing gestures on the input thread and applying them in {@code onUpdate}
+ * transforms the node like recognizing them on the main thread, and that listeners still run on
+ * the main thread.
+ */
+public class InputThreadTest {
+  private static final long TIMEOUT_MILLIS = 10000;
+  private static final long FRAME_MILLIS = 1;
+
+  private int startCount;
+  private Thread startThread;
+
+  @Test
+  public void inputThread_appliesSameGesturesOnMainThread() throws InterruptedException {
+    for (int pointerCount : new int[] {1, 2, 5}) {
+      BenchmarkScene direct = new BenchmarkScene();
+      touchAll(direct, pointerCount);
+
+      BenchmarkScene threaded = new BenchmarkScene();
+      startCount = 0;
+      startThread = null;
+      TransformationSystem system = threaded.transformationSystem;
+      system.getDragRecognizer().addOnGestureStartedListener(gesture -> recordStart());
+      system.getPinchRecognizer().addOnGestureStartedListener(gesture -> recordStart());
+      system.getTwistRecognizer().addOnGestureStartedListener(gesture -> recordStart());
+      system.setInputThreadEnabled(true);
+      touchAll(threaded, pointerCount);
+
+      // Nothing is applied to the node outside of onUpdate.
+      long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+      while (threaded.node.getUpdateCount() < direct.node.getUpdateCount()
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(FRAME_MILLIS);
+        system.onUpdate(new FrameTime());
+      }
+
+      assertTrue(direct.node.getUpdateCount() > 0);
+      assertTrue(startCount > 0);
+      assertSame(Thread.currentThread(), startThread);
+      assertControllerEquals(direct.node.dragController, threaded.node.dragController);
+      assertControllerEquals(direct.node.pinchController, threaded.node.pinchController);
+      assertControllerEquals(direct.node.twistController, threaded.node.twistController);
+      system.setInputThreadEnabled(false);
+    }
+  }
+
+  // Records the thread that a gesture-started listener is called on.
+  private void recordStart() {
+    startCount++;
+    startThread = Thread.currentThread();
+  }
+
+  private static void touchAll(BenchmarkScene scene, int pointerCount) {
+    SyntheticTouchStream stream = new SyntheticTouchStream(pointerCount);
+    for (int i = 0; i < stream.getEventCount(); i++) {
+      scene.touch(stream.next());
+    }
+  }
+
+  private static void assertControllerEquals(
+      BenchmarkNode.AccumulatingController<?> expected,
+      BenchmarkNode.AccumulatingController<?> actual) {
+    assertEquals(expected.updateCount, actual.updateCount);
+    assertEquals(expected.total, actual.total, 0.0f);
+  }
+}
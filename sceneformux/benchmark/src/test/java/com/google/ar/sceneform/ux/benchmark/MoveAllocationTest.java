@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux.benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import android.util.DisplayMetrics;
+import android.view.MotionEvent;
+import com.google.ar.sceneform.HitTestResult;
+import com.google.ar.sceneform.ux.BaseGesture;
+import com.google.ar.sceneform.ux.BaseGestureRecognizer;
+import com.google.ar.sceneform.ux.DragGesture;
+import com.google.ar.sceneform.ux.DragGestureRecognizer;
+import com.google.ar.sceneform.ux.GesturePointersUtility;
+import com.google.ar.sceneform.ux.PinchGesture;
+import com.google.ar.sceneform.ux.PinchGestureRecognizer;
+import com.google.ar.sceneform.ux.TwistGesture;
+import com.google.ar.sceneform.ux.TwistGestureRecognizer;
+import java.lang.management.ManagementFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the move events of a gesture don't allocate, on each recognizer alone and through a
+ * {@link com.google.ar.sceneform.ux.TransformationSystem}. Allocations are counted with {@link
+ * com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)} over the moves of a {@link
+ * SyntheticTouchStream}, after the stream was replayed enough times to create the pooled gestures
+ * and to load every class.
+ */
+public class MoveAllocationTest {
+  /** Receives the events of a stream. */
+  private interface TouchTarget {
+    void touch(MotionEvent motionEvent);
+  }
+
+  private static final int[] POINTER_COUNTS = {1, 2, 5, 10};
+  // Enough for the compiled code to settle, since deoptimizing it while measuring allocates.
+  private static final int WARM_UP_REPETITIONS = 100;
+
+  private final DisplayMetrics displayMetrics = GestureBenchmark.createDisplayMetrics();
+  private com.sun.management.ThreadMXBean threadMXBean;
+  private long threadId;
+  // Bytes allocated by reading the allocated bytes itself.
+  private long measurementOverhead;
+
+  @Before
+  public void setUp() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+    threadMXBean = (com.sun.management.ThreadMXBean) bean;
+    assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+    threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    threadId = Thread.currentThread().getId();
+
+    measurementOverhead = Long.MAX_VALUE;
+    for (int i = 0; i < WARM_UP_REPETITIONS; i++) {
+      long before = getAllocatedBytes();
+      long after = getAllocatedBytes();
+      measurementOverhead = Math.min(measurementOverhead, after - before);
+    }
+  }
+
+  @Test
+  public void moves_dragRecognizer_doNotAllocate() {
+    for (int pointerCount : POINTER_COUNTS) {
+      DragGestureRecognizer recognizer =
+          new DragGestureRecognizer(new GesturePointersUtility(displayMetrics));
+      GestureBenchmark.GestureConsumer<DragGesture> consumer = listen(recognizer);
+      assertMovesDoNotAllocate("drag recognizer", pointerCount, touchTarget(recognizer));
+      if (pointerCount == 1) {
+        assertTrue(consumer.updateCount > 0);
+      }
+    }
+  }
+
+  @Test
+  public void moves_pinchRecognizer_doNotAllocate() {
+    for (int pointerCount : POINTER_COUNTS) {
+      PinchGestureRecognizer recognizer =
+          new PinchGestureRecognizer(new GesturePointersUtility(displayMetrics));
+      GestureBenchmark.GestureConsumer<PinchGesture> consumer = listen(recognizer);
+      assertMovesDoNotAllocate("pinch recognizer", pointerCount, touchTarget(recognizer));
+      if (pointerCount > 1) {
+        assertTrue(consumer.updateCount > 0);
+      }
+    }
+  }
+
+  @Test
+  public void moves_twistRecognizer_doNotAllocate() {
+    for (int pointerCount : POINTER_COUNTS) {
+      TwistGestureRecognizer recognizer =
+          new TwistGestureRecognizer(new GesturePointersUtility(displayMetrics));
+      GestureBenchmark.GestureConsumer<TwistGesture> consumer = listen(recognizer);
+      assertMovesDoNotAllocate("twist recognizer", pointerCount, touchTarget(recognizer));
+      if (pointerCount > 1) {
+        assertTrue(consumer.updateCount > 0);
+      }
+    }
+  }
+
+  @Test
+  public void moves_transformationSystem_doNotAllocate() {
+    for (int pointerCount : POINTER_COUNTS) {
+      BenchmarkScene scene = new BenchmarkScene();
+      assertMovesDoNotAllocate("transformation system", pointerCount, scene::touch);
+      assertTrue(scene.node.getUpdateCount() > 0);
+    }
+  }
+
+  private void assertMovesDoNotAllocate(String path, int pointerCount, TouchTarget target) {
+    SyntheticTouchStream stream = new SyntheticTouchStream(pointerCount);
+    warmUp(stream, target);
+
+    long allocatedBytes = measureMoves(stream, target);
+    String message = "Bytes allocated by moves of " + pointerCount + " pointers on the " + path;
+    assertEquals(message, 0, allocatedBytes);
+  }
+
+  private static void warmUp(SyntheticTouchStream stream, TouchTarget target) {
+    for (int i = 0; i < WARM_UP_REPETITIONS * stream.getEventCount(); i++) {
+      target.touch(stream.next());
+    }
+  }
+
+  /**
+   * Dispatches one repetition of the stream, and returns the bytes allocated from the first move
+   * event to the event that follows the last one.
+   */
+  private long measureMoves(SyntheticTouchStream stream, TouchTarget target) {
+    long movesStartBytes = -1;
+    long movesEndBytes = -1;
+    for (int i = 0; i < stream.getEventCount(); i++) {
+      MotionEvent motionEvent = stream.next();
+      boolean isMove = motionEvent.getActionMasked() == MotionEvent.ACTION_MOVE;
+      if (isMove && movesStartBytes == -1) {
+        movesStartBytes = getAllocatedBytes();
+      } else if (!isMove && movesStartBytes != -1 && movesEndBytes == -1) {
+        movesEndBytes = getAllocatedBytes();
+      }
+      target.touch(motionEvent);
+    }
+
+    assertTrue(movesStartBytes != -1 && movesEndBytes != -1);
+    return movesEndBytes - movesStartBytes - measurementOverhead;
+  }
+
+  private long getAllocatedBytes() {
+    return threadMXBean.getThreadAllocatedBytes(threadId);
+  }
+
+  private static TouchTarget touchTarget(BaseGestureRecognizer<?> recognizer) {
+    // Every touch lands on the same node, as in GestureBenchmark.
+    HitTestResult hitTestResult = new HitTestResult();
+    return motionEvent -> recognizer.onTouch(hitTestResult, motionEvent);
+  }
+
+  private static <T extends BaseGesture<T>> GestureBenchmark.GestureConsumer<T> listen(
+      BaseGestureRecognizer<T> recognizer) {
+    GestureBenchmark.GestureConsumer<T> consumer = new GestureBenchmark.GestureConsumer<>();
+    recognizer.addOnGestureStartedListener(consumer);
+    return consumer;
+  }
+}
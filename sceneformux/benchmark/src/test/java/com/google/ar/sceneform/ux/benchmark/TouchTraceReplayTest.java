@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux.benchmark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.ar.sceneform.ux.DragGesture;
+import com.google.ar.sceneform.ux.GestureLatencyMonitor;
+import com.google.ar.sceneform.ux.LatencyHistogram;
+import com.google.ar.sceneform.ux.TouchTracePlayer;
+import com.google.ar.sceneform.ux.TouchTraceRecorder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.Test;
+
+/** Checks that replaying a recorded touch trace reproduces the gestures of the recording. */
+public class TouchTraceReplayTest {
+  @Test
+  public void replay_reproducesRecordedGestures() throws IOException {
+    for (int pointerCount : new int[] {1, 2, 5}) {
+      BenchmarkScene recorded = new BenchmarkScene();
+      byte[] trace = record(recorded, pointerCount);
+
+      BenchmarkScene replayed = new BenchmarkScene();
+      TouchTracePlayer player = createPlayer(trace, replayed);
+      player.replayAll(replayed.transformationSystem);
+      player.close();
+
+      assertEquals(new SyntheticTouchStream(pointerCount).getEventCount(), player.getEventCount());
+      assertTrue(recorded.node.getUpdateCount() > 0);
+      assertControllerEquals(recorded.node.dragController, replayed.node.dragController);
+      assertControllerEquals(recorded.node.pinchController, replayed.node.pinchController);
+      assertControllerEquals(recorded.node.twistController, replayed.node.twistController);
+    }
+  }
+
+  @Test
+  public void replay_measuresLatenciesInTraceTime() throws IOException {
+    BenchmarkScene recorded = new BenchmarkScene();
+    GestureLatencyMonitor recordedMonitor = new GestureLatencyMonitor();
+    recorded.transformationSystem.setGestureLatencyMonitor(recordedMonitor);
+    byte[] trace = record(recorded, 1);
+
+    BenchmarkScene replayed = new BenchmarkScene();
+    TouchTracePlayer player = createPlayer(trace, replayed);
+    GestureLatencyMonitor replayedMonitor = new GestureLatencyMonitor(player);
+    replayed.transformationSystem.setGestureLatencyMonitor(replayedMonitor);
+    player.replayAll(replayed.transformationSystem);
+    player.close();
+
+    // Each event is applied at its own time in the trace, however long replaying takes.
+    LatencyHistogram applied =
+        replayedMonitor.getHistogram(
+            DragGesture.class, GestureLatencyMonitor.Stage.CONTROLLER_APPLIED);
+    assertEquals(replayed.node.dragController.updateCount, applied.getCount());
+    assertEquals(0, applied.getPercentileMillis(100.0f));
+
+    // Start delays only depend on the event times, so they match the recording.
+    LatencyHistogram recordedDelays = recordedMonitor.getStartDelayHistogram(DragGesture.class);
+    LatencyHistogram replayedDelays = replayedMonitor.getStartDelayHistogram(DragGesture.class);
+    assertTrue(recordedDelays.getCount() > 0);
+    for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+      assertEquals(recordedDelays.getBucketCount(i), replayedDelays.getBucketCount(i));
+    }
+  }
+
+  // Touches the node of the scene with one repetition of a synthetic stream and returns the trace.
+  private static byte[] record(BenchmarkScene scene, int pointerCount) throws IOException {
+    ByteArrayOutputStream trace = new ByteArrayOutputStream();
+    TouchTraceRecorder recorder = new TouchTraceRecorder(trace);
+    scene.transformationSystem.setTouchTraceRecorder(recorder);
+    SyntheticTouchStream stream = new SyntheticTouchStream(pointerCount);
+    for (int i = 0; i < stream.getEventCount(); i++) {
+      scene.touch(stream.next());
+    }
+    recorder.close();
+    return trace.toByteArray();
+  }
+
+  private static TouchTracePlayer createPlayer(byte[] trace, BenchmarkScene scene)
+      throws IOException {
+    return new TouchTracePlayer(new ByteArrayInputStream(trace), (nodeId, nodeName) -> scene.node);
+  }
+
+  private static void assertControllerEquals(
+      BenchmarkNode.AccumulatingController<?> expected,
+      BenchmarkNode.AccumulatingController<?> actual) {
+    assertEquals(expected.updateCount, actual.updateCount);
+    assertEquals(expected.total, actual.total, 0.0f);
+  }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+import android.support.annotation.Nullable;
+import com.google.ar.core.Anchor;
+import com.google.ar.core.HitResult;
+import com.google.ar.core.Pose;
+import com.google.ar.core.Trackable;
+import com.google.ar.core.TrackingState;
+import com.google.ar.sceneform.AnchorNode;
+import com.google.ar.sceneform.Node;
+import com.google.ar.sceneform.Scene;
+import com.google.ar.sceneform.math.Quaternion;
+import com.google.ar.sceneform.math.Vector3;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Lets the nodes placed close to each other on a plane share an anchor, so that the number of
+ * anchors tracked by ARCore stays within a budget.
+ *
+ * <p>Each node placed with {@link #placeNode} is attached to an {@link AnchorNode} through an
+ * intermediate node that holds the offset of the node from the anchor. A node placed within the
+ * share radius of an anchor on the same trackable uses that anchor instead of creating a new one.
+ * Once the maximum anchor count is reached, nodes use the closest tracking anchor on their
+ * trackable, or the closest tracking anchor on any trackable if there are none, or the closest
+ * anchor if none of them is tracking. Anchors are never created past the maximum anchor count.
+ *
+ * <p>The {@link TranslationController} of a placed {@link TransformableNode} places it again when a
+ * drag ends, instead of re-anchoring its parent. Anchors are detached when their last node leaves,
+ * either through {@link #removeNode} or by being removed from the scene. Nodes that were removed
+ * from the scene without {@link #removeNode} are released the next time a node is placed.
+ */
+public class AnchorBudgetManager {
+  private static final float DEFAULT_SHARE_RADIUS_METERS = 0.5f;
+  private static final int DEFAULT_MAX_ANCHOR_COUNT = 16;
+
+  private static class AnchorGroup {
+    private final Trackable trackable;
+    private final Anchor anchor;
+    private final AnchorNode anchorNode;
+    private int nodeCount;
+
+    private AnchorGroup(Trackable trackable, Anchor anchor, AnchorNode anchorNode) {
+      this.trackable = trackable;
+      this.anchor = anchor;
+      this.anchorNode = anchorNode;
+    }
+  }
+
+  private static class Placement {
+    private AnchorGroup group;
+    private final Node offsetNode;
+
+    private Placement(AnchorGroup group, Node offsetNode) {
+      this.group = group;
+      this.offsetNode = offsetNode;
+    }
+  }
+
+  private final Scene scene;
+  private final ArrayList<AnchorGroup> groups = new ArrayList<>();
+  private final HashMap<Node, Placement> placements = new HashMap<>();
+
+  private float shareRadiusMeters = DEFAULT_SHARE_RADIUS_METERS;
+  private int maxAnchorCount = DEFAULT_MAX_ANCHOR_COUNT;
+  private int anchorCreationCount;
+  private int anchorDetachCount;
+
+  public AnchorBudgetManager(Scene scene) {
+    this.scene = scene;
+  }
+
+  /** Sets how close to an anchor on the same trackable a node must be placed to share it. */
+  public void setShareRadiusMeters(float shareRadiusMeters) {
+    this.shareRadiusMeters = shareRadiusMeters;
+  }
+
+  public float getShareRadiusMeters() {
+    return shareRadiusMeters;
+  }
+
+  /**
+   * Sets the number of anchors above which nodes share the closest anchor instead of creating a
+   * new one, however far it is. Lowering it doesn't detach the anchors that exist.
+   */
+  public void setMaxAnchorCount(int maxAnchorCount) {
+    if (maxAnchorCount < 1) {
+      throw new IllegalArgumentException("maxAnchorCount must be at least 1.");
+    }
+
+    this.maxAnchorCount = maxAnchorCount;
+  }
+
+  public int getMaxAnchorCount() {
+    return maxAnchorCount;
+  }
+
+  /** Returns the number of anchors that nodes are attached to. */
+  public int getAnchorCount() {
+    return groups.size();
+  }
+
+  /** Returns the number of anchors this manager has created. */
+  public int getAnchorCreationCount() {
+    return anchorCreationCount;
+  }
+
+  /** Returns the number of anchors this manager has detached. */
+  public int getAnchorDetachCount() {
+    return anchorDetachCount;
+  }
+
+  /**
+   * Returns true if the node was placed by this manager and hasn't been removed since, either
+   * through {@link #removeNode} or from the scene.
+   */
+  public boolean isManaged(Node node) {
+    return placements.containsKey(node) && node.getScene() != null;
+  }
+
+  /** Places the node at the pose of the hit result. */
+  public void placeNode(Node node, HitResult hitResult) {
+    placeNode(node, hitResult.getTrackable(), hitResult.getHitPose());
+  }
+
+  /**
+   * Places the node at the pose on the trackable, attaching it to a shared or new anchor. The node
+   * becomes the child of an intermediate node at the pose, so its local transform is kept relative
+   * to the pose. If the node was already placed, it leaves its previous anchor.
+   */
+  public void placeNode(Node node, Trackable trackable, Pose pose) {
+    releaseDetachedNodes();
+
+    AnchorGroup group = findGroup(trackable, pose);
+    if (group == null) {
+      Anchor anchor = trackable.createAnchor(pose);
+      AnchorNode anchorNode = new AnchorNode(anchor);
+      anchorNode.setParent(scene);
+      group = new AnchorGroup(trackable, anchor, anchorNode);
+      groups.add(group);
+      anchorCreationCount++;
+    }
+
+    Placement placement = placements.get(node);
+    AnchorGroup previousGroup = null;
+    if (placement == null) {
+      placement = new Placement(group, new Node());
+      placements.put(node, placement);
+    } else {
+      previousGroup = placement.group;
+      placement.group = group;
+    }
+    group.nodeCount++;
+
+    Node offsetNode = placement.offsetNode;
+    offsetNode.setParent(group.anchorNode);
+    offsetNode.setWorldPosition(new Vector3(pose.tx(), pose.ty(), pose.tz()));
+    offsetNode.setWorldRotation(new Quaternion(pose.qx(), pose.qy(), pose.qz(), pose.qw()));
+    node.setParent(offsetNode);
+
+    if (node instanceof TransformableNode) {
+      ((TransformableNode) node).getTranslationController().setAnchorBudgetManager(this);
+    }
+
+    // Leave the previous group last, so that its anchor is kept if the node is placed on it again.
+    if (previousGroup != null) {
+      releaseNode(previousGroup);
+    }
+  }
+
+  /** Removes the node from the scene, detaching its anchor if no other node uses it. */
+  public void removeNode(Node node) {
+    Placement placement = placements.remove(node);
+    if (placement == null) {
+      return;
+    }
+
+    if (node instanceof TransformableNode) {
+      ((TransformableNode) node).getTranslationController().setAnchorBudgetManager(null);
+    }
+
+    node.setParent(null);
+    placement.offsetNode.setParent(null);
+    releaseNode(placement.group);
+  }
+
+  /**
+   * Returns the group whose anchor the node at the pose should share, or null if a new anchor
+   * should be created for it. Anchors that aren't tracking still count toward the budget, so a
+   * group is always returned once it is full.
+   */
+  @Nullable
+  private AnchorGroup findGroup(Trackable trackable, Pose pose) {
+    AnchorGroup closestOnTrackable = null;
+    float closestOnTrackableDistanceSquared = Float.MAX_VALUE;
+    AnchorGroup closest = null;
+    float closestDistanceSquared = Float.MAX_VALUE;
+    AnchorGroup closestNotTracking = null;
+    float closestNotTrackingDistanceSquared = Float.MAX_VALUE;
+    for (int i = 0; i < groups.size(); i++) {
+      AnchorGroup group = groups.get(i);
+      Pose anchorPose = group.anchor.getPose();
+      float dx = pose.tx() - anchorPose.tx();
+      float dy = pose.ty() - anchorPose.ty();
+      float dz = pose.tz() - anchorPose.tz();
+      float distanceSquared = dx * dx + dy * dy + dz * dz;
+      if (group.anchor.getTrackingState() != TrackingState.TRACKING) {
+        if (distanceSquared < closestNotTrackingDistanceSquared) {
+          closestNotTracking = group;
+          closestNotTrackingDistanceSquared = distanceSquared;
+        }
+        continue;
+      }
+
+      if (group.trackable.equals(trackable)
+          && distanceSquared < closestOnTrackableDistanceSquared) {
+        closestOnTrackable = group;
+        closestOnTrackableDistanceSquared = distanceSquared;
+      }
+      if (distanceSquared < closestDistanceSquared) {
+        closest = group;
+        closestDistanceSquared = distanceSquared;
+      }
+    }
+
+    if (closestOnTrackable != null
+        && closestOnTrackableDistanceSquared <= shareRadiusMeters * shareRadiusMeters) {
+      return closestOnTrackable;
+    }
+
+    if (groups.size() < maxAnchorCount) {
+      return null;
+    }
+
+    if (closestOnTrackable != null) {
+      return closestOnTrackable;
+    }
+
+    return closest != null ? closest : closestNotTracking;
+  }
+
+  /** Releases the placements of the nodes that were removed from the scene. */
+  private void releaseDetachedNodes() {
+    Iterator<Map.Entry<Node, Placement>> iterator = placements.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Node, Placement> entry = iterator.next();
+      Node node = entry.getKey();
+      if (node.getScene() != null) {
+        continue;
+      }
+
+      iterator.remove();
+      if (node instanceof TransformableNode) {
+        ((TransformableNode) node).getTranslationController().setAnchorBudgetManager(null);
+      }
+
+      Placement placement = entry.getValue();
+      if (node.getParent() == placement.offsetNode) {
+        node.setParent(null);
+      }
+      placement.offsetNode.setParent(null);
+      releaseNode(placement.group);
+    }
+  }
+
+  private void releaseNode(AnchorGroup group) {
+    group.nodeCount--;
+    if (group.nodeCount > 0) {
+      return;
+    }
+
+    groups.remove(group);
+    group.anchorNode.setParent(null);
+    group.anchor.detach();
+    anchorDetachCount++;
+  }
+}
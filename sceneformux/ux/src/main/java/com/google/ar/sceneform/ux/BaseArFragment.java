@@ -45,7 +45,6 @@ import com.google.ar.core.Frame;
 import com.google.ar.core.HitResult;
 import com.google.ar.core.Plane;
 import com.google.ar.core.Session;
-import com.google.ar.core.Trackable;
 import com.google.ar.core.TrackingState;
 import com.google.ar.core.exceptions.CameraNotAvailableException;
 import com.google.ar.core.exceptions.UnavailableException;
@@ -137,6 +136,7 @@ public abstract class BaseArFragment extends Fragment
     }
 
     transformationSystem = makeTransformationSystem();
+    transformationSystem.setScene(arSceneView.getScene());
 
     gestureDetector =
         new GestureDetector(
@@ -430,11 +430,17 @@ public abstract class BaseArFragment extends Fragment
 
   @Override
   public void onUpdate(FrameTime frameTime) {
+    // Deliver gesture updates that were coalesced since the last frame.
+    transformationSystem.onUpdate(frameTime);
+
     Frame frame = arSceneView.getArFrame();
     if (frame == null) {
       return;
     }
 
+    // Copy the polygons of the planes that changed, so that drags and taps check them in Java.
+    transformationSystem.getHitTestCache().getPlanePolygonCache().update(frame);
+
     for (Plane plane : frame.getUpdatedTrackables(Plane.class)) {
       if (plane.getTrackingState() == TrackingState.TRACKING) {
         planeDiscoveryController.hide();
@@ -485,13 +491,12 @@ public abstract class BaseArFragment extends Fragment
 
     if (frame != null && onTapArPlaneListener != null) {
       if (motionEvent != null && frame.getCamera().getTrackingState() == TrackingState.TRACKING) {
-        for (HitResult hit : frame.hitTest(motionEvent)) {
-          Trackable trackable = hit.getTrackable();
-          if (trackable instanceof Plane && ((Plane) trackable).isPoseInPolygon(hit.getHitPose())) {
-            Plane plane = (Plane) trackable;
-            onTapArPlaneListener.onTapPlane(hit, plane, motionEvent);
-            break;
-          }
+        HitResult hit =
+            transformationSystem
+                .getHitTestCache()
+                .hitTestPlane(frame, motionEvent.getX(), motionEvent.getY(), null);
+        if (hit != null) {
+          onTapArPlaneListener.onTapPlane(hit, (Plane) hit.getTrackable(), motionEvent);
         }
       }
     }
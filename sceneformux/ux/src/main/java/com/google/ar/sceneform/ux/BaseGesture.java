@@ -15,6 +15,7 @@
  */
 package com.google.ar.sceneform.ux;
 
+import android.support.annotation.CallSuper;
 import android.support.annotation.Nullable;
 import android.view.MotionEvent;
 import com.google.ar.sceneform.HitTestResult;
@@ -26,7 +27,15 @@ import com.google.ar.sceneform.Node;
  * <p>A gesture represents a sequence of touch events that are detected to represent a particular
  * type of motion (i.e. Dragging, Pinching).
  *
- * <p>Gestures are created and updated by BaseGestureRecognizer's.
+ * <p>Gestures are created and updated by BaseGestureRecognizer's. Once a gesture has finished, the
+ * recognizer that created it may reset and reuse it for a later gesture, so references to a gesture
+ * shouldn't be kept after {@link OnGestureEventListener#onFinished} is called.
+ *
+ * <p>When gestures are recognized on the input thread of a {@link TransformationSystem}, listeners
+ * receive a mirror of each gesture on the main thread instead, which takes the values that the
+ * gesture had when it started, updated or finished.
+ *
+ * @see TransformationSystem#setInputThreadEnabled(boolean)
  */
 public abstract class BaseGesture<T extends BaseGesture<T>> {
   /** Interface definition for callbacks to be invoked by a {@link BaseGesture}. */
@@ -42,10 +51,28 @@ public abstract class BaseGesture<T extends BaseGesture<T>> {
   private boolean justStarted;
   private boolean hasFinished;
   private boolean wasCancelled;
+  private boolean historicalSamplesEnabled;
+  private boolean updatesCoalesced;
+  private boolean hasPendingUpdate;
+  @Nullable private SignalFilter.Factory signalFilterFactory;
+  @Nullable private SignalFilter[] signalFilters;
+  @Nullable private GestureLatencyMonitor latencyMonitor;
 
   @Nullable protected Node targetNode;
   @Nullable private OnGestureEventListener<T> eventListener;
 
+  // Set while the gesture is recognized on an input thread, to publish its events as intents.
+  @Nullable private GestureIntentQueue gestureIntentQueue;
+  @Nullable private BaseGestureRecognizer<T> recognizer;
+  // Set by the main thread once it is done with the intents of the gesture, or wants it cancelled.
+  private volatile boolean released;
+  private volatile boolean cancelRequested;
+  // Only accessed on the main thread. A gesture published as intents has a mirror, and a mirror has
+  // the gesture that it mirrors as its source.
+  @Nullable private T mirror;
+  @Nullable private BaseGesture<T> source;
+  private long mirroredEventTime;
+
   public BaseGesture(GesturePointersUtility gesturePointersUtility) {
     this.gesturePointersUtility = gesturePointersUtility;
   }
@@ -78,6 +105,90 @@ public abstract class BaseGesture<T extends BaseGesture<T>> {
     return gesturePointersUtility.pixelsToInches(pixels);
   }
 
+  /**
+   * When enabled, the gesture walks all of the samples that Android batched into an ACTION_MOVE
+   * instead of only reading the latest one. This makes deltas that depend on the path of the
+   * pointers (i.e. the rotation of a twist) more accurate when several samples arrive per event.
+   * Disabled by default.
+   */
+  public void setHistoricalSamplesEnabled(boolean enabled) {
+    historicalSamplesEnabled = enabled;
+  }
+
+  public boolean isHistoricalSamplesEnabled() {
+    return historicalSamplesEnabled;
+  }
+
+  /**
+   * Sets the factory of the filters applied to the signals of the gesture before they are reported
+   * to the listener, or null to report the raw signals. The filters are created when this is called
+   * and reset when the gesture is reused.
+   */
+  public void setSignalFilterFactory(@Nullable SignalFilter.Factory factory) {
+    if (factory == signalFilterFactory) {
+      return;
+    }
+
+    signalFilterFactory = factory;
+    int channelCount = getSignalChannelCount();
+    if (factory == null || channelCount == 0) {
+      signalFilters = null;
+      return;
+    }
+
+    SignalFilter[] signalFilters = new SignalFilter[channelCount];
+    for (int i = 0; i < channelCount; i++) {
+      signalFilters[i] = factory.createFilter();
+    }
+    this.signalFilters = signalFilters;
+  }
+
+  @Nullable
+  public SignalFilter.Factory getSignalFilterFactory() {
+    return signalFilterFactory;
+  }
+
+  /** Sets the monitor that measures the latency of the gesture, or null to not measure it. */
+  public void setLatencyMonitor(@Nullable GestureLatencyMonitor latencyMonitor) {
+    this.latencyMonitor = latencyMonitor;
+  }
+
+  @Nullable
+  public GestureLatencyMonitor getLatencyMonitor() {
+    return latencyMonitor;
+  }
+
+  /**
+   * When enabled, updates are not dispatched to the listener for every touch event. Instead they
+   * are combined, and dispatched at most once per frame when {@link #flushPendingUpdate()} is
+   * called, which {@link TransformationSystem#onUpdate} does for its recognizers. The deltas of a
+   * combined update are the total change since the previous dispatched update. Disabled by default.
+   */
+  public void setUpdatesCoalesced(boolean coalesced) {
+    updatesCoalesced = coalesced;
+  }
+
+  public boolean isUpdatesCoalesced() {
+    return updatesCoalesced;
+  }
+
+  /** Returns true if an update is waiting to be dispatched by {@link #flushPendingUpdate()}. */
+  public boolean hasPendingUpdate() {
+    return hasPendingUpdate;
+  }
+
+  /** Dispatches the update that was combined from the touch events since the last flush, if any. */
+  public void flushPendingUpdate() {
+    if (!hasPendingUpdate) {
+      return;
+    }
+
+    hasPendingUpdate = false;
+    prepareCoalescedUpdate();
+    dispatchUpdateEvent();
+    recordLatency(GestureLatencyMonitor.Stage.GESTURE_UPDATED);
+  }
+
   public void setGestureEventListener(@Nullable OnGestureEventListener<T> listener) {
     eventListener = listener;
   }
@@ -89,8 +200,221 @@ public abstract class BaseGesture<T extends BaseGesture<T>> {
     }
     justStarted = false;
     if (hasStarted) {
+      recordLatency(GestureLatencyMonitor.Stage.EVENT_RECEIVED);
       if (updateGesture(hitTestResult, motionEvent)) {
-        dispatchUpdateEvent();
+        if (updatesCoalesced) {
+          hasPendingUpdate = true;
+        } else {
+          dispatchUpdateEvent();
+          recordLatency(GestureLatencyMonitor.Stage.GESTURE_UPDATED);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the first sample of the current event that the gesture should process. Samples up to
+   * and including {@link GesturePointersUtility#getHistorySize()} can be read from the {@link
+   * GesturePointersUtility}, the last one being the current position of the pointers.
+   */
+  protected int getFirstSample() {
+    return historicalSamplesEnabled ? 0 : gesturePointersUtility.getHistorySize();
+  }
+
+  /** Records the latency of the stage for the touch event that is being processed. */
+  void recordLatency(GestureLatencyMonitor.Stage stage) {
+    // Local variable for nullness static-analysis.
+    GestureLatencyMonitor latencyMonitor = this.latencyMonitor;
+    if (latencyMonitor != null) {
+      // A mirror replays an event that the input thread has already moved past.
+      long eventTime = source != null ? mirroredEventTime : gesturePointersUtility.getEventTime();
+      latencyMonitor.record(this, stage, eventTime);
+    }
+  }
+
+  /**
+   * Writes the values that listeners read from the gesture (i.e. its position and deltas) into an
+   * intent, on the input thread. Gestures of recognizers that support the input thread must write
+   * at most 8 values, and read them back in the same order in {@link #readIntentValues}.
+   *
+   * @see BaseGestureRecognizer#createMirrorGesture()
+   */
+  protected void writeIntentValues(float[] values) {}
+
+  /** Sets the values that listeners read from a mirror of the gesture, on the main thread. */
+  protected void readIntentValues(float[] values) {}
+
+  /**
+   * Makes the gesture publish its start, updates and end to the queue instead of dispatching them
+   * to listeners, or dispatch them again if the queue is null.
+   */
+  void setGestureIntentQueue(
+      @Nullable GestureIntentQueue gestureIntentQueue,
+      @Nullable BaseGestureRecognizer<T> recognizer) {
+    this.gestureIntentQueue = gestureIntentQueue;
+    this.recognizer = recognizer;
+  }
+
+  /**
+   * Puts an intent of the given type for the gesture into its queue. Returns false if the gesture
+   * dispatches to listeners directly, in which case nothing is put.
+   */
+  boolean publishIntent(int type) {
+    // Local variables for nullness static-analysis.
+    GestureIntentQueue gestureIntentQueue = this.gestureIntentQueue;
+    BaseGestureRecognizer<T> recognizer = this.recognizer;
+    if (gestureIntentQueue == null || recognizer == null) {
+      return false;
+    }
+
+    gestureIntentQueue.put(
+        type, recognizer, this, gesturePointersUtility.getEventTime(), wasCancelled);
+    return true;
+  }
+
+  /**
+   * Returns true if the gesture published intents that the main thread may still replay, in which
+   * case it can't be reused until {@link #isReleased()}.
+   */
+  boolean isAwaitingRelease() {
+    return hasStarted && gestureIntentQueue != null && !released;
+  }
+
+  boolean isReleased() {
+    return released;
+  }
+
+  /** Returns true if the main thread cancelled the mirror of the gesture. */
+  boolean isCancelRequested() {
+    return cancelRequested;
+  }
+
+  @Nullable
+  T getMirror() {
+    return mirror;
+  }
+
+  /** Starts mirroring the source gesture on the main thread, with the values of its start. */
+  void startMirroring(BaseGesture<T> source, float[] values, long eventTime) {
+    this.source = source;
+    source.mirror = getSelf();
+    hasStarted = true;
+    justStarted = true;
+    // Both are only written by the input thread before the gesture started.
+    targetNode = source.targetNode;
+    latencyMonitor = source.latencyMonitor;
+    mirroredEventTime = eventTime;
+    readIntentValues(values);
+  }
+
+  /** Dispatches an update of the source gesture to the listener of this mirror. */
+  void mirrorUpdate(float[] values, long eventTime) {
+    justStarted = false;
+    if (hasFinished) {
+      // The main thread cancelled the gesture before the input thread saw it.
+      return;
+    }
+
+    mirroredEventTime = eventTime;
+    readIntentValues(values);
+    dispatchUpdateEvent();
+  }
+
+  /**
+   * Dispatches the end of the source gesture to the listener of this mirror, unless the mirror was
+   * cancelled already, then releases the source so that the input thread can reuse it.
+   */
+  void finishMirroring(boolean cancelled, long eventTime) {
+    // Local variable for nullness static-analysis.
+    BaseGesture<T> source = this.source;
+    if (!hasFinished) {
+      wasCancelled = cancelled;
+      hasFinished = true;
+      mirroredEventTime = eventTime;
+      dispatchFinishedEvent();
+    }
+
+    if (source != null) {
+      source.mirror = null;
+      source.released = true;
+    }
+    this.source = null;
+    reset();
+  }
+
+  /**
+   * Called before a coalesced update is dispatched. Subclasses must set their deltas to the change
+   * since the previous dispatched update (or since the gesture started), computed from their
+   * current values rather than by summing the deltas of each event so that no change is lost.
+   */
+  protected void prepareCoalescedUpdate() {}
+
+  /** Returns the number of signals of the gesture that can be filtered. */
+  protected int getSignalChannelCount() {
+    return 0;
+  }
+
+  /**
+   * Returns the value of the signal after it is filtered by the signal filter of the channel, or
+   * the value unchanged if there is no signal filter. Subclasses filter the signals that they
+   * integrate (i.e. positions) and derive their deltas from the filtered values.
+   */
+  protected final float filterSignal(int channel, float value) {
+    // Local variable for nullness static-analysis.
+    SignalFilter[] signalFilters = this.signalFilters;
+    if (signalFilters == null) {
+      return value;
+    }
+
+    return signalFilters[channel].filter(value, gesturePointersUtility.getEventTime());
+  }
+
+  /**
+   * Resets the signal filter of the channel to the raw value and returns it, so that the gesture
+   * ends where the pointers are rather than where the lagging filter has got to.
+   */
+  protected final float settleSignal(int channel, float value) {
+    // Local variable for nullness static-analysis.
+    SignalFilter[] signalFilters = this.signalFilters;
+    if (signalFilters == null) {
+      return value;
+    }
+
+    signalFilters[channel].reset();
+    return signalFilters[channel].filter(value, gesturePointersUtility.getEventTime());
+  }
+
+  /**
+   * Called when a gesture whose signals are filtered finishes without being cancelled. Subclasses
+   * set their signals to the raw values with {@link #settleSignal} and their deltas to the change
+   * that this causes. Returns true if any signal changed, in which case a last update is dispatched
+   * before the gesture finishes.
+   */
+  protected boolean settleSignals() {
+    return false;
+  }
+
+  /**
+   * Resets the state of the gesture so that it can be reused by the recognizer that created it.
+   * Subclasses reinitialize their own state when the recognizer reuses them.
+   */
+  @CallSuper
+  protected void reset() {
+    released = false;
+    cancelRequested = false;
+    hasStarted = false;
+    justStarted = false;
+    hasFinished = false;
+    wasCancelled = false;
+    hasPendingUpdate = false;
+    targetNode = null;
+    eventListener = null;
+
+    // Local variable for nullness static-analysis.
+    SignalFilter[] signalFilters = this.signalFilters;
+    if (signalFilters != null) {
+      for (SignalFilter signalFilter : signalFilters) {
+        signalFilter.reset();
       }
     }
   }
@@ -106,6 +430,13 @@ public abstract class BaseGesture<T extends BaseGesture<T>> {
   protected abstract void onFinish();
 
   protected void cancel() {
+    // Local variable for nullness static-analysis.
+    BaseGesture<T> source = this.source;
+    if (source != null) {
+      cancelMirror(source);
+      return;
+    }
+
     wasCancelled = true;
     onCancel();
     complete();
@@ -113,6 +444,22 @@ public abstract class BaseGesture<T extends BaseGesture<T>> {
 
   protected void complete() {
     hasFinished = true;
+
+    // Deliver the last combined update before finishing, so that none of the gesture is lost.
+    if (wasCancelled) {
+      hasPendingUpdate = false;
+    } else {
+      if (hasStarted && signalFilters != null && settleSignals()) {
+        if (updatesCoalesced) {
+          hasPendingUpdate = true;
+        } else {
+          dispatchUpdateEvent();
+          recordLatency(GestureLatencyMonitor.Stage.GESTURE_UPDATED);
+        }
+      }
+      flushPendingUpdate();
+    }
+
     if (hasStarted) {
       onFinish();
       dispatchFinishedEvent();
@@ -123,15 +470,63 @@ public abstract class BaseGesture<T extends BaseGesture<T>> {
     hasStarted = true;
     justStarted = true;
     onStart(hitTestResult, motionEvent);
+    recordStartDelay();
+  }
+
+  private void recordStartDelay() {
+    // Local variable for nullness static-analysis.
+    GestureLatencyMonitor latencyMonitor = this.latencyMonitor;
+    if (latencyMonitor == null) {
+      return;
+    }
+
+    // The gesture became possible when the last of the pointers that it retained went down.
+    long downTime = Long.MIN_VALUE;
+    int pointerIds = gesturePointersUtility.getActivePointerIds();
+    while (pointerIds != 0) {
+      int pointerId = Integer.numberOfTrailingZeros(pointerIds);
+      pointerIds &= pointerIds - 1;
+      if (gesturePointersUtility.getRetainingGesture(pointerId) == this) {
+        downTime = Math.max(downTime, gesturePointersUtility.getPointerDownTime(pointerId));
+      }
+    }
+
+    if (downTime != Long.MIN_VALUE) {
+      latencyMonitor.recordStartDelay(this, gesturePointersUtility.getEventTime() - downTime);
+    }
+  }
+
+  /**
+   * Finishes a mirror that a listener cancelled on the main thread right away, like a gesture that
+   * isn't mirrored, and asks the input thread to cancel the source gesture so that its pointers are
+   * released.
+   */
+  private void cancelMirror(BaseGesture<T> source) {
+    if (hasFinished) {
+      return;
+    }
+
+    wasCancelled = true;
+    hasFinished = true;
+    dispatchFinishedEvent();
+    source.cancelRequested = true;
   }
 
   private void dispatchUpdateEvent() {
+    if (publishIntent(GestureIntentQueue.UPDATED)) {
+      return;
+    }
+
     if (eventListener != null) {
       eventListener.onUpdated(getSelf());
     }
   }
 
   private void dispatchFinishedEvent() {
+    if (publishIntent(GestureIntentQueue.FINISHED)) {
+      return;
+    }
+
     if (eventListener != null) {
       eventListener.onFinished(getSelf());
     }
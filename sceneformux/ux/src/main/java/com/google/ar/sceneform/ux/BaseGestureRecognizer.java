@@ -15,9 +15,13 @@
  */
 package com.google.ar.sceneform.ux;
 
+import android.support.annotation.Nullable;
 import android.view.MotionEvent;
 import com.google.ar.sceneform.HitTestResult;
+import com.google.ar.sceneform.Node;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 
 /**
  * Base class for all Gesture Recognizers (i.e. DragGestureRecognizer).
@@ -37,6 +41,24 @@ public abstract class BaseGestureRecognizer<T extends BaseGesture<T>> {
   protected final ArrayList<T> gestures = new ArrayList<>();
 
   private final ArrayList<OnGestureStartedListener<T>> gestureStartedListeners;
+  private final HashSet<OnGestureStartedListener<T>> gestureStartedListenerSet = new HashSet<>();
+  // Listeners that are only interested in gestures for a particular node.
+  private final HashMap<BaseTransformableNode, ArrayList<OnGestureStartedListener<T>>>
+      nodeGestureStartedListeners = new HashMap<>();
+  private final ArrayList<T> recycledGestures = new ArrayList<>();
+  // Finished gestures whose intents the main thread may still be replaying.
+  private final ArrayList<T> releasingGestures = new ArrayList<>();
+  // Only accessed on the main thread.
+  private final ArrayList<T> mirrorGestures = new ArrayList<>();
+
+  @Nullable private TransformationSystem transformationSystem;
+  @Nullable private GestureIntentQueue gestureIntentQueue;
+  // Volatile since they may be changed on the main thread while gestures are created on an input
+  // thread.
+  private volatile boolean historicalSamplesEnabled;
+  private volatile boolean updatesCoalesced;
+  @Nullable private volatile SignalFilter.Factory signalFilterFactory;
+  @Nullable private volatile GestureLatencyMonitor latencyMonitor;
 
   @SuppressWarnings("initialization") // Suppress @UnderInitialization warning.
   public BaseGestureRecognizer(GesturePointersUtility gesturePointersUtility) {
@@ -45,16 +67,145 @@ public abstract class BaseGestureRecognizer<T extends BaseGesture<T>> {
   }
 
   public void addOnGestureStartedListener(OnGestureStartedListener<T> listener) {
-    if (!gestureStartedListeners.contains(listener)) {
+    if (gestureStartedListenerSet.add(listener)) {
       gestureStartedListeners.add(listener);
     }
   }
 
   public void removeOnGestureStartedListener(OnGestureStartedListener<T> listener) {
-    gestureStartedListeners.remove(listener);
+    if (gestureStartedListenerSet.remove(listener)) {
+      gestureStartedListeners.remove(listener);
+    }
+  }
+
+  /**
+   * Adds a listener that is only notified of gestures that can transform the node. That is,
+   * gestures whose target node is the node or one of its descendants, or gestures without a target
+   * node while the node is the selected node of the {@link TransformationSystem}.
+   *
+   * <p>Gestures are only dispatched to the listeners of those nodes, so the cost of starting a
+   * gesture doesn't grow with the number of nodes in the scene.
+   */
+  public void addOnGestureStartedListener(
+      BaseTransformableNode node, OnGestureStartedListener<T> listener) {
+    ArrayList<OnGestureStartedListener<T>> listeners = nodeGestureStartedListeners.get(node);
+    if (listeners == null) {
+      listeners = new ArrayList<>(3);
+      nodeGestureStartedListeners.put(node, listeners);
+    }
+
+    if (!listeners.contains(listener)) {
+      listeners.add(listener);
+    }
+  }
+
+  public void removeOnGestureStartedListener(
+      BaseTransformableNode node, OnGestureStartedListener<T> listener) {
+    ArrayList<OnGestureStartedListener<T>> listeners = nodeGestureStartedListeners.get(node);
+    if (listeners == null) {
+      return;
+    }
+
+    listeners.remove(listener);
+    if (listeners.isEmpty()) {
+      nodeGestureStartedListeners.remove(node);
+    }
+  }
+
+  /**
+   * Sets the transformation system that dispatches touch events to this recognizer. Used to find
+   * the selected node when a gesture without a target node starts.
+   */
+  void setTransformationSystem(@Nullable TransformationSystem transformationSystem) {
+    this.transformationSystem = transformationSystem;
+  }
+
+  /**
+   * Sets the queue that gestures created by this recognizer publish their intents to while they are
+   * recognized on an input thread, or null to dispatch them to listeners directly.
+   */
+  void setGestureIntentQueue(@Nullable GestureIntentQueue gestureIntentQueue) {
+    this.gestureIntentQueue = gestureIntentQueue;
+  }
+
+  /**
+   * Sets whether gestures created by this recognizer process every sample batched into a touch
+   * event. Applies to gestures created after this is called.
+   *
+   * @see BaseGesture#setHistoricalSamplesEnabled(boolean)
+   */
+  public void setHistoricalSamplesEnabled(boolean enabled) {
+    historicalSamplesEnabled = enabled;
+  }
+
+  public boolean isHistoricalSamplesEnabled() {
+    return historicalSamplesEnabled;
+  }
+
+  /**
+   * Sets whether gestures created by this recognizer combine their updates and dispatch them at
+   * most once per frame. Applies to gestures created after this is called.
+   *
+   * @see BaseGesture#setUpdatesCoalesced(boolean)
+   */
+  public void setUpdatesCoalesced(boolean coalesced) {
+    updatesCoalesced = coalesced;
+  }
+
+  public boolean isUpdatesCoalesced() {
+    return updatesCoalesced;
+  }
+
+  /** Dispatches the combined updates of the gestures of this recognizer that are pending. */
+  public void flushPendingUpdates() {
+    for (int i = 0; i < gestures.size(); i++) {
+      gestures.get(i).flushPendingUpdate();
+    }
+  }
+
+  /**
+   * Sets the factory of the filters that gestures created by this recognizer apply to their
+   * signals, or null to not filter them. Applies to gestures created after this is called.
+   *
+   * @see BaseGesture#setSignalFilterFactory(SignalFilter.Factory)
+   */
+  public void setSignalFilterFactory(@Nullable SignalFilter.Factory factory) {
+    signalFilterFactory = factory;
+  }
+
+  @Nullable
+  public SignalFilter.Factory getSignalFilterFactory() {
+    return signalFilterFactory;
+  }
+
+  /**
+   * Sets the monitor that measures the latency of gestures created by this recognizer, or null to
+   * not measure them. Applies to gestures created after this is called.
+   */
+  public void setLatencyMonitor(@Nullable GestureLatencyMonitor latencyMonitor) {
+    this.latencyMonitor = latencyMonitor;
+  }
+
+  @Nullable
+  public GestureLatencyMonitor getLatencyMonitor() {
+    return latencyMonitor;
   }
 
   public void onTouch(HitTestResult hitTestResult, MotionEvent motionEvent) {
+    // Decode the pointers once for this event, gestures read them from the pointer table.
+    gesturePointersUtility.updatePointers(motionEvent);
+    try {
+      dispatchTouch(hitTestResult, motionEvent);
+    } finally {
+      gesturePointersUtility.clearDecodedEvent();
+    }
+  }
+
+  /**
+   * Propagates a touch event that was already decoded by the {@link GesturePointersUtility} of
+   * this recognizer to its gestures.
+   */
+  void dispatchTouch(HitTestResult hitTestResult, MotionEvent motionEvent) {
     // Instantiate gestures based on touch input.
     // Just because a gesture was created, doesn't mean that it is started.
     // For example, a DragGesture is created when the user touch's down,
@@ -64,6 +215,12 @@ public abstract class BaseGestureRecognizer<T extends BaseGesture<T>> {
     // Propagate event to gestures and determine if they should start.
     for (int i = 0; i < gestures.size(); i++) {
       T gesture = gestures.get(i);
+      if (gesture.isCancelRequested() && !gesture.hasFinished()) {
+        // A listener cancelled the mirror of the gesture on the main thread.
+        gesture.cancel();
+        continue;
+      }
+
       gesture.onTouch(hitTestResult, motionEvent);
 
       if (gesture.justStarted()) {
@@ -76,11 +233,235 @@ public abstract class BaseGestureRecognizer<T extends BaseGesture<T>> {
 
   protected abstract void tryCreateGestures(HitTestResult hitTestResult, MotionEvent motionEvent);
 
+  /**
+   * Returns a new gesture of the type that this recognizer creates, which is only used to mirror
+   * the gestures recognized on an input thread to the main thread. Returns null by default, in
+   * which case this recognizer can't be used while the input thread of the {@link
+   * TransformationSystem} is enabled. Recognizers that override it must create gestures that
+   * override {@link BaseGesture#writeIntentValues} and {@link BaseGesture#readIntentValues}.
+   *
+   * @see TransformationSystem#setInputThreadEnabled(boolean)
+   */
+  @Nullable
+  protected T createMirrorGesture() {
+    return null;
+  }
+
+  /** Returns true if the gestures of this recognizer can be mirrored to the main thread. */
+  boolean canMirrorGestures() {
+    if (!mirrorGestures.isEmpty()) {
+      return true;
+    }
+
+    T mirror = createMirrorGesture();
+    if (mirror == null) {
+      return false;
+    }
+
+    mirrorGestures.add(mirror);
+    return true;
+  }
+
+  /**
+   * Replays an intent published by a gesture of this recognizer on the mirror of the gesture, on
+   * the main thread.
+   */
+  @SuppressWarnings("unchecked") // Intents are only put by the gestures of this recognizer.
+  void applyGestureIntent(GestureIntentQueue.Intent intent) {
+    T gesture = (T) intent.gesture;
+    if (gesture == null) {
+      return;
+    }
+
+    switch (intent.type) {
+      case GestureIntentQueue.STARTED:
+        T mirror = obtainMirrorGesture();
+        mirror.startMirroring(gesture, intent.values, intent.eventTime);
+        dispatchGestureStarted(mirror);
+        break;
+      case GestureIntentQueue.UPDATED:
+        T updatedMirror = gesture.getMirror();
+        if (updatedMirror != null) {
+          updatedMirror.mirrorUpdate(intent.values, intent.eventTime);
+        }
+        break;
+      case GestureIntentQueue.FINISHED:
+        T finishedMirror = gesture.getMirror();
+        if (finishedMirror != null) {
+          finishedMirror.finishMirroring(intent.cancelled, intent.eventTime);
+          mirrorGestures.add(finishedMirror);
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown gesture intent type: " + intent.type);
+    }
+  }
+
+  /**
+   * Returns the number of pointers that must be touching and not retained by another gesture for
+   * this recognizer to create a gesture. Used by {@link TransformationSystem} to skip this
+   * recognizer for touch events that it can't act on.
+   */
+  protected int getMinimumPointerCount() {
+    return 1;
+  }
+
+  /**
+   * Returns true if this recognizer only creates gestures when a pointer goes down. If true, then
+   * {@link TransformationSystem} skips this recognizer for other touch events while it has no
+   * gestures. Defaults to false, so custom recognizers receive every event unless they declare
+   * otherwise.
+   */
+  protected boolean createsGesturesOnlyOnPointerDown() {
+    return false;
+  }
+
+  /**
+   * Returns true if this recognizer can act on the touch event that was last decoded by the {@link
+   * GesturePointersUtility}, either by updating one of its gestures or by creating a new one.
+   */
+  boolean canActOnTouch() {
+    if (!gestures.isEmpty() || hasCandidates()) {
+      return true;
+    }
+
+    if (Integer.bitCount(gesturePointersUtility.getUnretainedPointerIds())
+        < getMinimumPointerCount()) {
+      return false;
+    }
+
+    if (!createsGesturesOnlyOnPointerDown()) {
+      return true;
+    }
+
+    int action = gesturePointersUtility.getActionMasked();
+    return action == MotionEvent.ACTION_DOWN || action == MotionEvent.ACTION_POINTER_DOWN;
+  }
+
+  /**
+   * Returns a finished gesture that can be reinitialized instead of allocating a new one, or null
+   * if there are none. Gestures are returned to this pool when they are removed after finishing.
+   */
+  @Nullable
+  protected T obtainRecycledGesture() {
+    // Gestures published to the main thread can be reused once it has replayed their last intent.
+    for (int i = releasingGestures.size() - 1; i >= 0; i--) {
+      T gesture = releasingGestures.get(i);
+      if (gesture.isReleased()) {
+        releasingGestures.remove(i);
+        gesture.reset();
+        recycledGestures.add(gesture);
+      }
+    }
+
+    int count = recycledGestures.size();
+    if (count == 0) {
+      return null;
+    }
+
+    return recycledGestures.remove(count - 1);
+  }
+
+  /**
+   * Returns true if this recognizer is tracking touches that could still become gestures without
+   * having created gestures for them (i.e. candidate pointer pairs).
+   */
+  protected boolean hasCandidates() {
+    return false;
+  }
+
+  /**
+   * Returns true if a gesture that targets the node would be dispatched to a listener of the node's
+   * transformable ancestors, or to a listener that isn't tied to a node. Recognizers of gestures
+   * that must target a node (i.e. drags) can check this before creating a gesture, so that touches
+   * that nothing would respond to don't create gestures.
+   *
+   * <p>Always returns true while gestures are recognized on an input thread, which must not read
+   * the listeners or walk the scene graph.
+   */
+  protected boolean hasGestureStartedListeners(@Nullable Node targetNode) {
+    if (!gestureStartedListeners.isEmpty() || gestureIntentQueue != null) {
+      return true;
+    }
+
+    for (Node node = targetNode; node != null; node = node.getParent()) {
+      if (node instanceof BaseTransformableNode && nodeGestureStartedListeners.containsKey(node)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /** Adds a gesture created by {@link #tryCreateGestures}, applying this recognizer's settings. */
+  protected void addGesture(T gesture) {
+    gesture.setHistoricalSamplesEnabled(historicalSamplesEnabled);
+    gesture.setUpdatesCoalesced(updatesCoalesced);
+    gesture.setSignalFilterFactory(signalFilterFactory);
+    gesture.setLatencyMonitor(latencyMonitor);
+    gesture.setGestureIntentQueue(gestureIntentQueue, gestureIntentQueue != null ? this : null);
+    gestures.add(gesture);
+  }
+
+  private T obtainMirrorGesture() {
+    int count = mirrorGestures.size();
+    if (count > 0) {
+      return mirrorGestures.remove(count - 1);
+    }
+
+    // Local variable for nullness static-analysis.
+    T mirror = createMirrorGesture();
+    if (mirror == null) {
+      throw new IllegalStateException("The recognizer doesn't create mirror gestures.");
+    }
+    return mirror;
+  }
+
   private void dispatchGestureStarted(T gesture) {
+    if (gesture.publishIntent(GestureIntentQueue.STARTED)) {
+      return;
+    }
+
     for (int i = 0; i < gestureStartedListeners.size(); i++) {
       OnGestureStartedListener<T> listener = gestureStartedListeners.get(i);
       listener.onGestureStarted(gesture);
     }
+
+    if (nodeGestureStartedListeners.isEmpty()) {
+      return;
+    }
+
+    Node targetNode = gesture.getTargetNode();
+    if (targetNode == null) {
+      // Local variable for nullness static-analysis.
+      TransformationSystem transformationSystem = this.transformationSystem;
+      if (transformationSystem != null) {
+        dispatchGestureStartedToNode(transformationSystem.getSelectedNode(), gesture);
+      }
+      return;
+    }
+
+    // Notify the transformable nodes that the target belongs to, from the closest one up.
+    for (Node node = targetNode; node != null; node = node.getParent()) {
+      if (node instanceof BaseTransformableNode) {
+        dispatchGestureStartedToNode((BaseTransformableNode) node, gesture);
+      }
+    }
+  }
+
+  private void dispatchGestureStartedToNode(@Nullable BaseTransformableNode node, T gesture) {
+    if (node == null) {
+      return;
+    }
+
+    ArrayList<OnGestureStartedListener<T>> listeners = nodeGestureStartedListeners.get(node);
+    if (listeners == null) {
+      return;
+    }
+
+    for (int i = 0; i < listeners.size(); i++) {
+      listeners.get(i).onGestureStarted(gesture);
+    }
   }
 
   private void removeFinishedGestures() {
@@ -88,6 +469,12 @@ public abstract class BaseGestureRecognizer<T extends BaseGesture<T>> {
       T gesture = gestures.get(i);
       if (gesture.hasFinished()) {
         gestures.remove(i);
+        if (gesture.isAwaitingRelease()) {
+          releasingGestures.add(gesture);
+        } else {
+          gesture.reset();
+          recycledGestures.add(gesture);
+        }
       }
     }
   }
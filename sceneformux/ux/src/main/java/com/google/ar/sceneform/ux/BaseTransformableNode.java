@@ -16,6 +16,7 @@
 package com.google.ar.sceneform.ux;
 
 import android.view.MotionEvent;
+import com.google.ar.sceneform.FrameTime;
 import com.google.ar.sceneform.HitTestResult;
 import com.google.ar.sceneform.Node;
 import java.util.ArrayList;
@@ -26,12 +27,15 @@ import java.util.ArrayList;
 public abstract class BaseTransformableNode extends Node implements Node.OnTapListener {
   private final TransformationSystem transformationSystem;
   private final ArrayList<BaseTransformationController<?>> controllers = new ArrayList<>();
+  // False once every controller is idle, so that idle nodes cost almost nothing per frame.
+  private boolean hasAwakeControllers = true;
 
   @SuppressWarnings("initialization")
   public BaseTransformableNode(TransformationSystem transformationSystem) {
     this.transformationSystem = transformationSystem;
 
     setOnTapListener(this);
+    addLifecycleListener(new ControllerLifecycleDispatcher());
   }
 
   public TransformationSystem getTransformationSystem() {
@@ -51,7 +55,7 @@ public abstract class BaseTransformableNode extends Node implements Node.OnTapLi
 
   /** Returns true if this node is currently selected by the TransformationSystem. */
   public boolean isSelected() {
-    return transformationSystem.getSelectedNode() == this;
+    return transformationSystem.isNodeSelected(this);
   }
 
   /**
@@ -70,13 +74,66 @@ public abstract class BaseTransformableNode extends Node implements Node.OnTapLi
     select();
   }
 
+  /**
+   * Adds a controller that transforms this node. The node notifies the controller of its lifecycle
+   * instead of the controller listening to it, and stops updating it every frame while it is idle.
+   *
+   * @see BaseTransformationController#isIdle()
+   */
   protected void addTransformationController(
       BaseTransformationController<?> transformationController) {
     controllers.add(transformationController);
+    removeLifecycleListener(transformationController);
+    hasAwakeControllers = true;
   }
 
   protected void removeTransformationController(
       BaseTransformationController<?> transformationController) {
-    controllers.remove(transformationController);
+    if (controllers.remove(transformationController)) {
+      addLifecycleListener(transformationController);
+    }
+  }
+
+  /** Called when one of the controllers of this node stops being idle. */
+  void onTransformationControllerWokeUp() {
+    hasAwakeControllers = true;
+  }
+
+  /** Dispatches the lifecycle of this node to its controllers, updating the ones that are awake. */
+  private class ControllerLifecycleDispatcher implements LifecycleListener {
+    @Override
+    public void onActivated(Node node) {
+      for (int i = 0; i < controllers.size(); i++) {
+        controllers.get(i).onActivated(node);
+      }
+    }
+
+    @Override
+    public void onUpdated(Node node, FrameTime frameTime) {
+      if (!hasAwakeControllers) {
+        return;
+      }
+
+      // Controllers that wake up during the loop set this again.
+      hasAwakeControllers = false;
+      for (int i = 0; i < controllers.size(); i++) {
+        BaseTransformationController<?> controller = controllers.get(i);
+        if (controller.isIdle()) {
+          continue;
+        }
+
+        controller.onUpdated(node, frameTime);
+        if (!controller.isIdle()) {
+          hasAwakeControllers = true;
+        }
+      }
+    }
+
+    @Override
+    public void onDeactivated(Node node) {
+      for (int i = 0; i < controllers.size(); i++) {
+        controllers.get(i).onDeactivated(node);
+      }
+    }
   }
 }
@@ -36,6 +36,8 @@ public abstract class BaseTransformationController<T extends BaseGesture<T>>
   @Nullable private T activeGesture;
   private boolean enabled;
   private boolean activeAndEnabled;
+  // Whether onUpdated is called every frame. Controllers go idle once they reach their targets.
+  private boolean idle;
 
   @SuppressWarnings("initialization") // Suppress @UnderInitialization warning.
   public BaseTransformationController(
@@ -68,6 +70,32 @@ public abstract class BaseTransformationController<T extends BaseGesture<T>>
     return transformableNode;
   }
 
+  /**
+   * Returns true if the controller has nothing to update each frame. The {@link
+   * BaseTransformableNode} that the controller was added to doesn't call {@link #onUpdated(Node,
+   * FrameTime)} until the controller wakes up again, which happens when a gesture starts or ends,
+   * when the node is activated, or when the controller calls {@link #wakeUp}.
+   */
+  public boolean isIdle() {
+    return idle;
+  }
+
+  /** Makes the node call {@link #onUpdated(Node, FrameTime)} every frame until this goes idle. */
+  protected final void wakeUp() {
+    if (idle) {
+      idle = false;
+      transformableNode.onTransformationControllerWokeUp();
+    }
+  }
+
+  /**
+   * Stops the node from calling {@link #onUpdated(Node, FrameTime)} until this wakes up. Called by
+   * controllers once they have reached their targets.
+   */
+  protected final void goIdle() {
+    idle = true;
+  }
+
   // ---------------------------------------------------------------------------------------
   // Implementation of interface Node.LifecycleListener
   // ---------------------------------------------------------------------------------------
@@ -76,8 +104,13 @@ public abstract class BaseTransformationController<T extends BaseGesture<T>>
   @CallSuper
   public void onActivated(Node node) {
     updateActiveAndEnabled();
+    wakeUp();
   }
 
+  /**
+   * Updates the node every frame while this is awake. Controllers stay awake until they call {@link
+   * #goIdle}.
+   */
   @Override
   public void onUpdated(Node node, FrameTime frameTime) {}
 
@@ -109,12 +142,37 @@ public abstract class BaseTransformationController<T extends BaseGesture<T>>
   @Override
   public void onUpdated(T gesture) {
     onContinueTransformation(gesture);
+    gesture.recordLatency(GestureLatencyMonitor.Stage.CONTROLLER_APPLIED);
   }
 
   @Override
   public void onFinished(T gesture) {
     onEndTransformation(gesture);
     setActiveGesture(null);
+    BaseTransformableNode transformableNode = getTransformableNode();
+    transformableNode.getTransformationSystem().onTransformationEnded(transformableNode);
+  }
+
+  /**
+   * Returns true if a gesture that isn't tied to the node it started on (i.e. a pinch) should
+   * transform this controller's node. The node must be selected. If the pointers of the gesture are
+   * bound to a node, then it must be this node, otherwise this node must be the node that was
+   * selected last.
+   *
+   * @see TransformationSystem#setMultiSelectEnabled(boolean)
+   */
+  protected boolean isGestureForTransformableNode(T gesture) {
+    BaseTransformableNode transformableNode = getTransformableNode();
+    if (!transformableNode.isSelected()) {
+      return false;
+    }
+
+    Node targetNode = gesture.getTargetNode();
+    if (targetNode != null) {
+      return targetNode == transformableNode;
+    }
+
+    return transformableNode.getTransformationSystem().getSelectedNode() == transformableNode;
   }
 
   protected abstract boolean canStartTransformation(T gesture);
@@ -133,6 +191,7 @@ public abstract class BaseTransformationController<T extends BaseGesture<T>>
     if (activeGesture != null) {
       activeGesture.setGestureEventListener(this);
     }
+    wakeUp();
   }
 
   private void updateActiveAndEnabled() {
@@ -154,10 +213,11 @@ public abstract class BaseTransformationController<T extends BaseGesture<T>>
   }
 
   private void connectToRecognizer() {
-    gestureRecognizer.addOnGestureStartedListener(this);
+    // Only listen to gestures that can transform this node, rather than to every gesture.
+    gestureRecognizer.addOnGestureStartedListener(transformableNode, this);
   }
 
   private void disconnectFromRecognizer() {
-    gestureRecognizer.removeOnGestureStartedListener(this);
+    gestureRecognizer.removeOnGestureStartedListener(transformableNode, this);
   }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+/**
+ * Critically damped springs that move a set of values towards their targets. Used by the
+ * transformation controllers to smooth the position, rotation and scale of a node.
+ *
+ * <p>Each update applies the closed-form solution of the spring over the elapsed time, so the
+ * motion is the same at any frame rate and doesn't oscillate. The state is held in primitive
+ * arrays, so updates don't allocate.
+ */
+public final class CriticallyDampedSpring {
+  private final float[] values;
+  private final float[] targets;
+  private final float[] velocities;
+  private final float angularFrequency;
+  private final float tolerance;
+
+  /**
+   * Creates springs for the number of values.
+   *
+   * @param angularFrequency how stiff the springs are, in radians per second. A value settles to
+   *     within 1% of its target in about 6.6 / angularFrequency seconds.
+   * @param tolerance how close to their targets the values must be, and how slowly relative to the
+   *     angular frequency they must move, to be converged
+   */
+  public CriticallyDampedSpring(int channelCount, float angularFrequency, float tolerance) {
+    if (angularFrequency <= 0.0f) {
+      throw new IllegalArgumentException("angularFrequency must be positive.");
+    }
+
+    values = new float[channelCount];
+    targets = new float[channelCount];
+    velocities = new float[channelCount];
+    this.angularFrequency = angularFrequency;
+    this.tolerance = tolerance;
+  }
+
+  public int getChannelCount() {
+    return values.length;
+  }
+
+  /** Sets the value of the channel and its target, and stops it. */
+  public void reset(int channel, float value) {
+    values[channel] = value;
+    targets[channel] = value;
+    velocities[channel] = 0.0f;
+  }
+
+  public void setTarget(int channel, float target) {
+    targets[channel] = target;
+  }
+
+  public float getTarget(int channel) {
+    return targets[channel];
+  }
+
+  public float getValue(int channel) {
+    return values[channel];
+  }
+
+  public float getVelocity(int channel) {
+    return velocities[channel];
+  }
+
+  /**
+   * Moves the values towards their targets over the elapsed time. Returns true if they have
+   * converged, in which case they are set to their targets and stopped.
+   */
+  public boolean update(float deltaSeconds) {
+    if (deltaSeconds > 0.0f) {
+      float decay = (float) Math.exp(-angularFrequency * deltaSeconds);
+      for (int i = 0; i < values.length; i++) {
+        float offset = values[i] - targets[i];
+        float impulse = (velocities[i] + angularFrequency * offset) * deltaSeconds;
+        velocities[i] = (velocities[i] - angularFrequency * impulse) * decay;
+        values[i] = targets[i] + (offset + impulse) * decay;
+      }
+    }
+
+    if (!isConverged()) {
+      return false;
+    }
+
+    for (int i = 0; i < values.length; i++) {
+      values[i] = targets[i];
+      velocities[i] = 0.0f;
+    }
+    return true;
+  }
+
+  /** Returns true if every value is within the tolerance of its target and almost stopped. */
+  public boolean isConverged() {
+    float velocityTolerance = tolerance * angularFrequency;
+    for (int i = 0; i < values.length; i++) {
+      if (Math.abs(values[i] - targets[i]) > tolerance
+          || Math.abs(velocities[i]) > velocityTolerance) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+}
@@ -15,9 +15,11 @@
  */
 package com.google.ar.sceneform.ux;
 
+import android.support.annotation.Nullable;
 import android.util.Log;
 import android.view.MotionEvent;
 import com.google.ar.sceneform.HitTestResult;
+import com.google.ar.sceneform.Node;
 import com.google.ar.sceneform.math.Vector3;
 
 /** Gesture for when the user performs a drag motion on the touch screen. */
@@ -27,26 +29,61 @@ public class DragGesture extends BaseGesture<DragGesture> {
   /** Interface definition for callbacks to be invoked by a {@link DragGesture}. */
   public interface OnGestureEventListener extends BaseGesture.OnGestureEventListener<DragGesture> {}
 
-  private final Vector3 startPosition;
   private final Vector3 position;
   private final Vector3 delta;
-  private final int pointerId;
+  private final float slopPixels;
+  private int pointerId;
+  private float startX;
+  private float startY;
+  @Nullable private MotionPredictor motionPredictor;
+  private long predictionTimeMillis;
+  private float predictedX;
+  private float predictedY;
+  // The position when the last update was dispatched, used when updates are coalesced.
+  private float dispatchedX;
+  private float dispatchedY;
 
   private static final float SLOP_INCHES = 0.1f;
+  private static final int SIGNAL_X = 0;
+  private static final int SIGNAL_Y = 1;
+  private static final int SIGNAL_CHANNEL_COUNT = 2;
+  private static final float PREDICTION_MAX_RESIDUAL_INCHES = 0.02f;
   private static final boolean DRAG_GESTURE_DEBUG = false;
 
+  /**
+   * Creates a gesture for the pointer that caused the action of the motion event, which must
+   * already have been decoded by the gesture pointers utility.
+   */
   public DragGesture(
       GesturePointersUtility gesturePointersUtility,
       HitTestResult hitTestResult,
       MotionEvent motionEvent) {
+    this(gesturePointersUtility);
+    init(hitTestResult.getNode());
+  }
+
+  // Creates a gesture that must be initialized with init before it is used.
+  DragGesture(GesturePointersUtility gesturePointersUtility) {
     super(gesturePointersUtility);
 
-    pointerId = motionEvent.getPointerId(motionEvent.getActionIndex());
-    startPosition = GesturePointersUtility.motionEventToPosition(motionEvent, pointerId);
-    position = new Vector3(startPosition);
+    position = Vector3.zero();
     delta = Vector3.zero();
-    targetNode = hitTestResult.getNode();
-    debugLog("Created: " + pointerId);
+    slopPixels = gesturePointersUtility.inchesToPixels(SLOP_INCHES);
+  }
+
+  /** Initializes the gesture for the pointer that caused the action of the decoded event. */
+  void init(@Nullable Node targetNode) {
+    pointerId = gesturePointersUtility.getActionPointerId();
+    startX = gesturePointersUtility.getPointerX(pointerId);
+    startY = gesturePointersUtility.getPointerY(pointerId);
+    position.set(startX, startY, 0.0f);
+    delta.set(0.0f, 0.0f, 0.0f);
+    predictedX = startX;
+    predictedY = startY;
+    this.targetNode = targetNode;
+    if (DRAG_GESTURE_DEBUG) {
+      debugLog("Created: " + pointerId);
+    }
   }
 
   public Vector3 getPosition() {
@@ -57,10 +94,70 @@ public class DragGesture extends BaseGesture<DragGesture> {
     return new Vector3(delta);
   }
 
+  /** Returns the x coordinate of {@link #getPosition()} without copying the position. */
+  public float getPositionX() {
+    return position.x;
+  }
+
+  /** Returns the y coordinate of {@link #getPosition()} without copying the position. */
+  public float getPositionY() {
+    return position.y;
+  }
+
+  /** Returns the x coordinate of {@link #getDelta()} without copying the delta. */
+  public float getDeltaX() {
+    return delta.x;
+  }
+
+  /** Returns the y coordinate of {@link #getDelta()} without copying the delta. */
+  public float getDeltaY() {
+    return delta.y;
+  }
+
+  /**
+   * Returns the x coordinate that the pointer is predicted to be at when the next frame is
+   * displayed. This is the same as {@link #getPositionX()} unless motion prediction is enabled on
+   * the {@link DragGestureRecognizer} and the prediction is confident.
+   */
+  public float getPredictedPositionX() {
+    return predictedX;
+  }
+
+  /**
+   * Returns the y coordinate that the pointer is predicted to be at when the next frame is
+   * displayed.
+   *
+   * @see #getPredictedPositionX()
+   */
+  public float getPredictedPositionY() {
+    return predictedY;
+  }
+
+  /**
+   * Sets the model used to predict the position of the pointer, or null to disable prediction.
+   * Positions are predicted predictionTimeMillis after the time of the latest touch event.
+   */
+  void setMotionPrediction(@Nullable MotionPredictor.FitModel fitModel, long predictionTimeMillis) {
+    this.predictionTimeMillis = predictionTimeMillis;
+    if (fitModel == null) {
+      motionPredictor = null;
+      return;
+    }
+
+    // Keep the predictor of a reused gesture if it uses the same model.
+    MotionPredictor motionPredictor = this.motionPredictor;
+    if (motionPredictor == null || motionPredictor.getFitModel() != fitModel) {
+      motionPredictor = new MotionPredictor(fitModel);
+      motionPredictor.setMaxResidualPixels(
+          gesturePointersUtility.inchesToPixels(PREDICTION_MAX_RESIDUAL_INCHES));
+      this.motionPredictor = motionPredictor;
+    }
+  }
+
   @Override
   protected boolean canStart(HitTestResult hitTestResult, MotionEvent motionEvent) {
-    int actionId = motionEvent.getPointerId(motionEvent.getActionIndex());
-    int action = motionEvent.getActionMasked();
+    int actionId = gesturePointersUtility.getActionPointerId();
+    int action = gesturePointersUtility.getActionMasked();
 
     if (gesturePointersUtility.isPointerIdRetained(pointerId)) {
       cancel();
@@ -80,19 +177,20 @@ public class DragGesture extends BaseGesture<DragGesture> {
       return false;
     }
 
-    if (motionEvent.getPointerCount() > 1) {
-      for (int i = 0; i < motionEvent.getPointerCount(); i++) {
-        int id = motionEvent.getPointerId(i);
-        if (id != pointerId && !gesturePointersUtility.isPointerIdRetained(id)) {
-          return false;
-        }
-      }
+    // Don't start while another pointer of the same node that isn't used by a gesture is touching.
+    int otherPointerIds =
+        gesturePointersUtility.getUnretainedPointerIds()
+            & gesturePointersUtility.getPointerIdsWithSameOwner(pointerId)
+            & ~(1 << pointerId);
+    if (otherPointerIds != 0) {
+      return false;
     }
 
-    Vector3 newPosition = GesturePointersUtility.motionEventToPosition(motionEvent, pointerId);
-    float diff = Vector3.subtract(newPosition, startPosition).length();
-    float slopPixels = gesturePointersUtility.inchesToPixels(SLOP_INCHES);
-    if (diff >= slopPixels) {
+    // Compare squared distances so that no square root is needed on every move.
+    float diffX = gesturePointersUtility.getPointerX(pointerId) - startX;
+    float diffY = gesturePointersUtility.getPointerY(pointerId) - startY;
+    float slop = slopPixels * gesturePointersUtility.getStartSlopScale(pointerId);
+    if (diffX * diffX + diffY * diffY >= slop * slop) {
       return true;
     }
 
@@ -101,23 +199,50 @@ public class DragGesture extends BaseGesture<DragGesture> {
 
   @Override
   protected void onStart(HitTestResult hitTestResult, MotionEvent motionEvent) {
-    debugLog("Started: " + pointerId);
+    if (DRAG_GESTURE_DEBUG) {
+      debugLog("Started: " + pointerId);
+    }
+
+    position.set(
+        filterSignal(SIGNAL_X, gesturePointersUtility.getPointerX(pointerId)),
+        filterSignal(SIGNAL_Y, gesturePointersUtility.getPointerY(pointerId)),
+        0.0f);
+    predictedX = position.x;
+    predictedY = position.y;
+    dispatchedX = position.x;
+    dispatchedY = position.y;
 
-    position.set(GesturePointersUtility.motionEventToPosition(motionEvent, pointerId));
-    gesturePointersUtility.retainPointerId(pointerId);
+    // Local variable for nullness static-analysis.
+    MotionPredictor motionPredictor = this.motionPredictor;
+    if (motionPredictor != null) {
+      motionPredictor.reset();
+      motionPredictor.addSample(
+          gesturePointersUtility.getPointerDownTime(pointerId), startX, startY);
+      updatePrediction(motionPredictor);
+    }
+    gesturePointersUtility.retainPointerId(pointerId, this);
   }
 
   @Override
   protected boolean updateGesture(HitTestResult hitTestResult, MotionEvent motionEvent) {
-    int actionId = motionEvent.getPointerId(motionEvent.getActionIndex());
-    int action = motionEvent.getActionMasked();
+    int actionId = gesturePointersUtility.getActionPointerId();
+    int action = gesturePointersUtility.getActionMasked();
 
     if (action == MotionEvent.ACTION_MOVE) {
-      Vector3 newPosition = GesturePointersUtility.motionEventToPosition(motionEvent, pointerId);
-      if (!Vector3.equals(newPosition, position)) {
-        delta.set(Vector3.subtract(newPosition, position));
-        position.set(newPosition);
-        debugLog("Updated: " + pointerId + " : " + position);
+      // Local variable for nullness static-analysis.
+      MotionPredictor motionPredictor = this.motionPredictor;
+      if (motionPredictor != null) {
+        updatePrediction(motionPredictor);
+      }
+
+      float newX = filterSignal(SIGNAL_X, gesturePointersUtility.getPointerX(pointerId));
+      float newY = filterSignal(SIGNAL_Y, gesturePointersUtility.getPointerY(pointerId));
+      if (newX != position.x || newY != position.y) {
+        delta.set(newX - position.x, newY - position.y, 0.0f);
+        position.set(newX, newY, 0.0f);
+        if (DRAG_GESTURE_DEBUG) {
+          debugLog("Updated: " + pointerId + " : " + position);
+        }
         return true;
       }
     } else if (actionId == pointerId
@@ -132,20 +257,87 @@ public class DragGesture extends BaseGesture<DragGesture> {
 
   @Override
   protected void onCancel() {
-    debugLog("Cancelled: " + pointerId);
+    if (DRAG_GESTURE_DEBUG) {
+      debugLog("Cancelled: " + pointerId);
+    }
   }
 
   @Override
   protected void onFinish() {
-    debugLog("Finished: " + pointerId);
+    if (DRAG_GESTURE_DEBUG) {
+      debugLog("Finished: " + pointerId);
+    }
     gesturePointersUtility.releasePointerId(pointerId);
   }
 
+  @Override
+  protected boolean settleSignals() {
+    float newX = settleSignal(SIGNAL_X, gesturePointersUtility.getPointerX(pointerId));
+    float newY = settleSignal(SIGNAL_Y, gesturePointersUtility.getPointerY(pointerId));
+    if (newX == position.x && newY == position.y) {
+      return false;
+    }
+
+    delta.set(newX - position.x, newY - position.y, 0.0f);
+    position.set(newX, newY, 0.0f);
+    predictedX = newX;
+    predictedY = newY;
+    return true;
+  }
+
+  @Override
+  protected void prepareCoalescedUpdate() {
+    delta.set(position.x - dispatchedX, position.y - dispatchedY, 0.0f);
+    dispatchedX = position.x;
+    dispatchedY = position.y;
+  }
+
+  @Override
+  protected int getSignalChannelCount() {
+    return SIGNAL_CHANNEL_COUNT;
+  }
+
+  @Override
+  protected void writeIntentValues(float[] values) {
+    values[0] = position.x;
+    values[1] = position.y;
+    values[2] = delta.x;
+    values[3] = delta.y;
+    values[4] = predictedX;
+    values[5] = predictedY;
+  }
+
+  @Override
+  protected void readIntentValues(float[] values) {
+    position.set(values[0], values[1], 0.0f);
+    delta.set(values[2], values[3], 0.0f);
+    predictedX = values[4];
+    predictedY = values[5];
+  }
+
   @Override
   protected DragGesture getSelf() {
     return this;
   }
 
+  /**
+   * Adds every sample of the current event to the predictor, regardless of whether historical
+   * samples are enabled, since the fit is more accurate with more samples.
+   */
+  private void updatePrediction(MotionPredictor motionPredictor) {
+    int historySize = gesturePointersUtility.getHistorySize();
+    for (int sample = 0; sample <= historySize; sample++) {
+      motionPredictor.addSample(
+          gesturePointersUtility.getSampleEventTime(sample),
+          gesturePointersUtility.getSampleX(pointerId, sample),
+          gesturePointersUtility.getSampleY(pointerId, sample));
+    }
+
+    motionPredictor.predict(gesturePointersUtility.getEventTime() + predictionTimeMillis);
+    predictedX = motionPredictor.getPredictedX();
+    predictedY = motionPredictor.getPredictedY();
+  }
+
   private static void debugLog(String log) {
     if (DRAG_GESTURE_DEBUG) {
       Log.d(TAG, "DragGesture:[" + log + "]");
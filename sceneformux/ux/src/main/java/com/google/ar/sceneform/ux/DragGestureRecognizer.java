@@ -15,8 +15,10 @@
  */
 package com.google.ar.sceneform.ux;
 
+import android.support.annotation.Nullable;
 import android.view.MotionEvent;
 import com.google.ar.sceneform.HitTestResult;
+import com.google.ar.sceneform.Node;
 
 /** Gesture Recognizer for when the user performs a drag motion on the touch screen. */
 public class DragGestureRecognizer extends BaseGestureRecognizer<DragGesture> {
@@ -24,19 +26,88 @@ public class DragGestureRecognizer extends BaseGestureRecognizer<DragGesture> {
   public interface OnGestureStartedListener
       extends BaseGestureRecognizer.OnGestureStartedListener<DragGesture> {}
 
+  /** The default time that positions are predicted ahead, one frame at 60 frames per second. */
+  public static final long DEFAULT_PREDICTION_TIME_MILLIS = 16;
+
+  // Volatile since they may be changed on the main thread while gestures are created on an input
+  // thread.
+  @Nullable private volatile MotionPredictor.FitModel predictionFitModel;
+  private volatile long predictionTimeMillis = DEFAULT_PREDICTION_TIME_MILLIS;
+
   public DragGestureRecognizer(GesturePointersUtility gesturePointersUtility) {
     super(gesturePointersUtility);
   }
 
+  /**
+   * Sets the model used by drag gestures to predict where the pointer will be when the next frame
+   * is displayed, or null to disable prediction. Disabled by default. Applies to gestures created
+   * after this is called.
+   *
+   * @see DragGesture#getPredictedPositionX()
+   */
+  public void setMotionPrediction(@Nullable MotionPredictor.FitModel fitModel) {
+    predictionFitModel = fitModel;
+  }
+
+  @Nullable
+  public MotionPredictor.FitModel getMotionPrediction() {
+    return predictionFitModel;
+  }
+
+  /**
+   * Sets how far ahead of a touch event the position of the pointer is predicted. Touch events are
+   * batched once per frame, so this should be about the time between the input being sampled and
+   * the frame that it affects being displayed. Values above {@link
+   * MotionPredictor#MAX_PREDICTION_MILLIS} disable the prediction.
+   */
+  public void setMotionPredictionTimeMillis(long predictionTimeMillis) {
+    this.predictionTimeMillis = predictionTimeMillis;
+  }
+
+  public long getMotionPredictionTimeMillis() {
+    return predictionTimeMillis;
+  }
+
+  @Override
+  protected boolean createsGesturesOnlyOnPointerDown() {
+    return true;
+  }
+
+  @Override
+  protected DragGesture createMirrorGesture() {
+    return new DragGesture(gesturePointersUtility);
+  }
+
   @Override
   protected void tryCreateGestures(HitTestResult hitTestResult, MotionEvent motionEvent) {
-    int action = motionEvent.getActionMasked();
-    int actionId = motionEvent.getPointerId(motionEvent.getActionIndex());
+    int action = gesturePointersUtility.getActionMasked();
+    int actionId = gesturePointersUtility.getActionPointerId();
     boolean touchBegan =
         action == MotionEvent.ACTION_DOWN || action == MotionEvent.ACTION_POINTER_DOWN;
 
-    if (touchBegan && !gesturePointersUtility.isPointerIdRetained(actionId)) {
-      gestures.add(new DragGesture(gesturePointersUtility, hitTestResult, motionEvent));
+    if (!touchBegan || gesturePointersUtility.isPointerIdRetained(actionId)) {
+      return;
+    }
+
+    // The hit test result is for the first pointer, prefer the node that the pointer was bound
+    // to when several nodes can be transformed at once.
+    Node targetNode = gesturePointersUtility.getPointerHitNode(actionId);
+    if (targetNode == null) {
+      targetNode = hitTestResult.getNode();
+    }
+
+    // Don't track touches that no listener would accept a drag for, i.e. touches on empty space or
+    // on nodes that don't belong to a transformable node.
+    if (!hasGestureStartedListeners(targetNode)) {
+      return;
+    }
+
+    DragGesture gesture = obtainRecycledGesture();
+    if (gesture == null) {
+      gesture = new DragGesture(gesturePointersUtility);
     }
+    gesture.init(targetNode);
+    gesture.setMotionPrediction(predictionFitModel, predictionTimeMillis);
+    addGesture(gesture);
   }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+/**
+ * A {@link SignalFilter} that smooths a signal with an exponential moving average. The smoothing
+ * is defined by a time constant instead of a per-sample weight, so that the output doesn't depend
+ * on the rate of touch events.
+ */
+public class ExponentialFilter implements SignalFilter {
+  private final float timeConstantSeconds;
+
+  private boolean hasValue;
+  private float value;
+  private long timestampMillis;
+
+  /**
+   * @param timeConstantSeconds the time that it takes the output to cover about 63% of a step in
+   *     the input. Larger values are smoother but lag more.
+   */
+  public ExponentialFilter(float timeConstantSeconds) {
+    this.timeConstantSeconds = timeConstantSeconds;
+  }
+
+  /** Returns a factory that creates exponential filters with the given time constant. */
+  public static SignalFilter.Factory factory(float timeConstantSeconds) {
+    return () -> new ExponentialFilter(timeConstantSeconds);
+  }
+
+  @Override
+  public float filter(float value, long timestampMillis) {
+    if (!hasValue || timeConstantSeconds <= 0.0f) {
+      hasValue = true;
+      this.value = value;
+      this.timestampMillis = timestampMillis;
+      return value;
+    }
+
+    float deltaSeconds = (timestampMillis - this.timestampMillis) / 1000.0f;
+    this.timestampMillis = timestampMillis;
+    if (deltaSeconds <= 0.0f) {
+      return this.value;
+    }
+
+    float alpha = 1.0f - (float) Math.exp(-deltaSeconds / timeConstantSeconds);
+    this.value += (value - this.value) * alpha;
+    return this.value;
+  }
+
+  @Override
+  public void reset() {
+    hasValue = false;
+  }
+}
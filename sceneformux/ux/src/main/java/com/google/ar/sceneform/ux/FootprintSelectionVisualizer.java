@@ -18,22 +18,31 @@ package com.google.ar.sceneform.ux;
 import android.support.annotation.Nullable;
 import com.google.ar.sceneform.Node;
 import com.google.ar.sceneform.rendering.ModelRenderable;
+import java.util.ArrayList;
+import java.util.HashMap;
 
 /**
- * Visualizes that a {@link BaseTransformableNode} is selected by rendering a footprint for the
+ * Visualizes that a {@link BaseTransformableNode} is selected by rendering a footprint for each
  * selected node.
  */
 public class FootprintSelectionVisualizer implements SelectionVisualizer {
-  private final Node footprintNode;
+  private final ArrayList<Node> footprintNodes = new ArrayList<>();
+  private final ArrayList<Node> freeFootprintNodes = new ArrayList<>();
+  private final HashMap<BaseTransformableNode, Node> footprintNodesBySelectedNode =
+      new HashMap<>();
   @Nullable private ModelRenderable footprintRenderable;
 
   public FootprintSelectionVisualizer() {
-    footprintNode = new Node();
+    Node footprintNode = new Node();
+    footprintNodes.add(footprintNode);
+    freeFootprintNodes.add(footprintNode);
   }
 
   public void setFootprintRenderable(ModelRenderable renderable) {
     ModelRenderable copyRenderable = renderable.makeCopy();
-    footprintNode.setRenderable(copyRenderable);
+    for (int i = 0; i < footprintNodes.size(); i++) {
+      footprintNodes.get(i).setRenderable(copyRenderable);
+    }
     copyRenderable.setCollisionShape(null);
     footprintRenderable = copyRenderable;
   }
@@ -45,11 +54,35 @@ public class FootprintSelectionVisualizer implements SelectionVisualizer {
 
   @Override
   public void applySelectionVisual(BaseTransformableNode node) {
+    // Each selected node gets its own footprint, since several nodes can be selected at once.
+    Node footprintNode = footprintNodesBySelectedNode.get(node);
+    if (footprintNode == null) {
+      footprintNode = obtainFootprintNode();
+      footprintNodesBySelectedNode.put(node, footprintNode);
+    }
     footprintNode.setParent(node);
   }
 
   @Override
   public void removeSelectionVisual(BaseTransformableNode node) {
+    Node footprintNode = footprintNodesBySelectedNode.remove(node);
+    if (footprintNode == null) {
+      return;
+    }
+
     footprintNode.setParent(null);
+    freeFootprintNodes.add(footprintNode);
+  }
+
+  private Node obtainFootprintNode() {
+    int freeCount = freeFootprintNodes.size();
+    if (freeCount > 0) {
+      return freeFootprintNodes.remove(freeCount - 1);
+    }
+
+    Node footprintNode = new Node();
+    footprintNode.setRenderable(footprintRenderable);
+    footprintNodes.add(footprintNode);
+    return footprintNode;
   }
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+import android.support.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free single-producer/single-consumer ring of gesture intents, which hands the gestures
+ * recognized on the input thread of a {@link TransformationSystem} to the main thread.
+ *
+ * <p>An intent records that a gesture started, updated or finished, along with the values that the
+ * gesture had at that point (i.e. its position and deltas). The main thread replays the intents on
+ * mirrors of the gestures, so that listeners never read a gesture that the input thread is
+ * updating.
+ */
+final class GestureIntentQueue {
+  static final int STARTED = 0;
+  static final int UPDATED = 1;
+  static final int FINISHED = 2;
+
+  /** The maximum number of values that a gesture can write into an intent. */
+  static final int MAX_VALUE_COUNT = 8;
+
+  private static final long FULL_WAIT_NANOS = 1000000;
+
+  /** A gesture intent, as put into the queue and as copied out of it by {@link #poll}. */
+  static final class Intent {
+    int type;
+    @Nullable BaseGestureRecognizer<?> recognizer;
+    @Nullable BaseGesture<?> gesture;
+    long eventTime;
+    boolean cancelled;
+    final float[] values = new float[MAX_VALUE_COUNT];
+
+    /** Replays the intent on the mirror of its gesture. Must be called on the main thread. */
+    void apply() {
+      // Local variable for nullness static-analysis.
+      BaseGestureRecognizer<?> recognizer = this.recognizer;
+      if (recognizer != null) {
+        recognizer.applyGestureIntent(this);
+      }
+    }
+
+    /** Drops the references to the gesture, so that it isn't kept alive by the queue. */
+    void clear() {
+      recognizer = null;
+      gesture = null;
+    }
+  }
+
+  private final Intent[] slots;
+  private final int mask;
+
+  // Number of intents put and polled so far. The producer only writes head and the consumer only
+  // writes tail, and each publishes its slots to the other with an ordered store.
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong tail = new AtomicLong();
+
+  /**
+   * Creates a queue that holds up to the given number of intents.
+   *
+   * @throws IllegalArgumentException if the capacity is not a positive power of two
+   */
+  GestureIntentQueue(int capacity) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a positive power of two: " + capacity);
+    }
+
+    slots = new Intent[capacity];
+    for (int i = 0; i < capacity; i++) {
+      slots[i] = new Intent();
+    }
+    mask = capacity - 1;
+  }
+
+  /** Returns true if there are no intents waiting to be polled. */
+  boolean isEmpty() {
+    return tail.get() == head.get();
+  }
+
+  /**
+   * Copies an intent of the gesture into the queue, along with the values that the gesture writes
+   * with {@link BaseGesture#writeIntentValues}. Must only be called by the producer. If the queue
+   * is full, waits for the consumer to poll an intent rather than drop it, since dropping the start
+   * or the end of a gesture would leave its controller in the wrong state.
+   */
+  void put(
+      int type,
+      BaseGestureRecognizer<?> recognizer,
+      BaseGesture<?> gesture,
+      long eventTime,
+      boolean cancelled) {
+    long currentHead = head.get();
+    while (currentHead - tail.get() == slots.length) {
+      // The consumer doesn't signal when it polls, it only polls once per frame anyway.
+      LockSupport.parkNanos(this, FULL_WAIT_NANOS);
+    }
+
+    Intent slot = slots[(int) currentHead & mask];
+    slot.type = type;
+    slot.recognizer = recognizer;
+    slot.gesture = gesture;
+    slot.eventTime = eventTime;
+    slot.cancelled = cancelled;
+    gesture.writeIntentValues(slot.values);
+
+    head.lazySet(currentHead + 1);
+  }
+
+  /**
+   * Copies the oldest intent in the queue into the given intent and removes it. Must only be called
+   * by the consumer.
+   *
+   * @return false if the queue is empty
+   */
+  boolean poll(Intent outIntent) {
+    long currentTail = tail.get();
+    if (currentTail == head.get()) {
+      return false;
+    }
+
+    Intent slot = slots[(int) currentTail & mask];
+    outIntent.type = slot.type;
+    outIntent.recognizer = slot.recognizer;
+    outIntent.gesture = slot.gesture;
+    outIntent.eventTime = slot.eventTime;
+    outIntent.cancelled = slot.cancelled;
+    System.arraycopy(slot.values, 0, outIntent.values, 0, MAX_VALUE_COUNT);
+    slot.clear();
+
+    tail.lazySet(currentTail + 1);
+    return true;
+  }
+}
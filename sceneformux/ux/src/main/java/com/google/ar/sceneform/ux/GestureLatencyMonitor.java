@@ -0,0 +1,179 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+import android.os.SystemClock;
+import android.support.annotation.Nullable;
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.Scene;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures the latency from the time of a touch event ({@link
+ * android.view.MotionEvent#getEventTime()}) to each stage of the gesture pipeline, per type of
+ * gesture.
+ *
+ * <p>Set the monitor with {@link TransformationSystem#setGestureLatencyMonitor}. To measure the
+ * {@link Stage#FRAME_RENDERED} stage, also add the monitor as an update listener of the {@link
+ * Scene}. Histograms can be read from any thread with {@link #getHistogram}.
+ *
+ * <p>Latencies are measured against {@link SystemClock#uptimeMillis()}, the time base of touch
+ * events, unless another {@link Clock} is given. A {@link TouchTracePlayer} is a clock that follows
+ * the times of the trace it replays.
+ */
+public class GestureLatencyMonitor implements Scene.OnUpdateListener {
+  /** The stages of the gesture pipeline that are measured. */
+  public enum Stage {
+    /** A started gesture received the touch event. */
+    EVENT_RECEIVED,
+    /** The gesture updated its values and notified its listener. */
+    GESTURE_UPDATED,
+    /** A {@link BaseTransformationController} applied the gesture to its node. */
+    CONTROLLER_APPLIED,
+    /** The scene began the first frame after the gesture was applied to a node. */
+    FRAME_RENDERED
+  }
+
+  /** Source of the current time, in the time base of the event times of the measured events. */
+  public interface Clock {
+    long uptimeMillis();
+  }
+
+  private static final Clock SYSTEM_CLOCK =
+      new Clock() {
+        @Override
+        public long uptimeMillis() {
+          return SystemClock.uptimeMillis();
+        }
+      };
+
+  private static final int STAGE_COUNT = Stage.values().length;
+  private static final long NO_PENDING_FRAME = -1;
+
+  // Histograms of each stage and the frame that is waiting to be measured, for a gesture type.
+  private static final class GestureTypeStats {
+    final LatencyHistogram[] histograms = new LatencyHistogram[STAGE_COUNT];
+    final LatencyHistogram startDelays = new LatencyHistogram();
+    long pendingFrameEventTime = NO_PENDING_FRAME;
+
+    GestureTypeStats() {
+      for (int i = 0; i < STAGE_COUNT; i++) {
+        histograms[i] = new LatencyHistogram();
+      }
+    }
+  }
+
+  private final Clock clock;
+  private final ConcurrentHashMap<Class<?>, GestureTypeStats> statsByGestureType =
+      new ConcurrentHashMap<>();
+  // Only accessed on the main thread.
+  private final ArrayList<GestureTypeStats> pendingFrameStats = new ArrayList<>();
+
+  public GestureLatencyMonitor() {
+    this(SYSTEM_CLOCK);
+  }
+
+  /** Creates a monitor that measures latencies against the clock. */
+  public GestureLatencyMonitor(Clock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Returns the histogram of the latencies of the stage for the type of gesture, or null if no
+   * gesture of that type has been measured yet.
+   */
+  @Nullable
+  public LatencyHistogram getHistogram(Class<? extends BaseGesture<?>> gestureType, Stage stage) {
+    GestureTypeStats stats = statsByGestureType.get(gestureType);
+    if (stats == null) {
+      return null;
+    }
+
+    return stats.histograms[stage.ordinal()];
+  }
+
+  /**
+   * Returns the histogram of the start delays of the type of gesture, or null if no gesture of
+   * that type has started yet. The start delay is the time from the last pointer of a gesture
+   * going down to the touch event that started the gesture, i.e. how long it took to get past the
+   * slop. It only depends on the times of the touch events, so it is the same when a recorded trace
+   * is replayed with {@link TouchTracePlayer}.
+   */
+  @Nullable
+  public LatencyHistogram getStartDelayHistogram(Class<? extends BaseGesture<?>> gestureType) {
+    GestureTypeStats stats = statsByGestureType.get(gestureType);
+    if (stats == null) {
+      return null;
+    }
+
+    return stats.startDelays;
+  }
+
+  /** Clears the latencies recorded for every gesture type. */
+  public void reset() {
+    for (GestureTypeStats stats : statsByGestureType.values()) {
+      for (LatencyHistogram histogram : stats.histograms) {
+        histogram.reset();
+      }
+      stats.startDelays.reset();
+    }
+  }
+
+  /** Records the latency of the stage for the touch event with the given time. */
+  void record(BaseGesture<?> gesture, Stage stage, long eventTimeMillis) {
+    GestureTypeStats stats = getOrCreateStats(gesture.getClass());
+    stats.histograms[stage.ordinal()].record(clock.uptimeMillis() - eventTimeMillis);
+
+    // Measure the next frame from the oldest event that was applied since the last frame.
+    if (stage == Stage.CONTROLLER_APPLIED && stats.pendingFrameEventTime == NO_PENDING_FRAME) {
+      stats.pendingFrameEventTime = eventTimeMillis;
+      pendingFrameStats.add(stats);
+    }
+  }
+
+  /** Records the time it took the gesture to start after its last pointer went down. */
+  void recordStartDelay(BaseGesture<?> gesture, long startDelayMillis) {
+    getOrCreateStats(gesture.getClass()).startDelays.record(startDelayMillis);
+  }
+
+  @Override
+  public void onUpdate(FrameTime frameTime) {
+    if (pendingFrameStats.isEmpty()) {
+      return;
+    }
+
+    long now = clock.uptimeMillis();
+    for (int i = 0; i < pendingFrameStats.size(); i++) {
+      GestureTypeStats stats = pendingFrameStats.get(i);
+      stats.histograms[Stage.FRAME_RENDERED.ordinal()].record(now - stats.pendingFrameEventTime);
+      stats.pendingFrameEventTime = NO_PENDING_FRAME;
+    }
+    pendingFrameStats.clear();
+  }
+
+  private GestureTypeStats getOrCreateStats(Class<?> gestureType) {
+    GestureTypeStats stats = statsByGestureType.get(gestureType);
+    if (stats == null) {
+      stats = new GestureTypeStats();
+      GestureTypeStats existingStats = statsByGestureType.putIfAbsent(gestureType, stats);
+      if (existingStats != null) {
+        stats = existingStats;
+      }
+    }
+    return stats;
+  }
+}
@@ -15,46 +15,442 @@
  */
 package com.google.ar.sceneform.ux;
 
+import android.support.annotation.Nullable;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
 import android.view.MotionEvent;
+import com.google.ar.sceneform.Node;
 import com.google.ar.sceneform.math.Vector3;
-import java.util.HashSet;
+import java.util.Arrays;
 
 /**
  * Retains/Releases pointer Ids so that each pointer can only be used in one gesture at a time.
  * Provides helper functions for converting touch coordinates between pixels and inches.
+ *
+ * <p>Also decodes each {@link MotionEvent} once into a table of pointer state indexed by pointer
+ * id, so that gestures can read pointer positions without each of them looking up the pointer
+ * index again. The table is refreshed by {@link #updatePointers(MotionEvent)}, which is called
+ * once per event by {@link BaseGestureRecognizer} or {@link TransformationSystem} before the event
+ * is propagated to gestures.
  */
 public class GesturePointersUtility {
-  private final DisplayMetrics displayMetrics;
-  private final HashSet<Integer> retainedPointerIds;
+  /** Pointer ids reported by a {@link MotionEvent} are always less than this value. */
+  public static final int MAX_POINTER_COUNT = 32;
+
+  // Tuning of the adaptive start slop. Pointers that move slower than the slow speed, or whose path
+  // since they went down isn't straight enough, keep the full slop. Above that, the slop shrinks
+  // linearly down to the minimum scale at the fast speed.
+  private static final float VELOCITY_TIME_CONSTANT_MILLIS = 30.0f;
+  private static final float SLOW_SPEED_INCHES_PER_SECOND = 2.0f;
+  private static final float FAST_SPEED_INCHES_PER_SECOND = 8.0f;
+  private static final float MIN_STRAIGHTNESS = 0.9f;
+  private static final float MIN_START_SLOP_SCALE = 0.4f;
+
+  private final float inchOfPixels;
+
+  // Pointer state for the most recently decoded MotionEvent, indexed by pointer id.
+  private final float[] pointerX = new float[MAX_POINTER_COUNT];
+  private final float[] pointerY = new float[MAX_POINTER_COUNT];
+  private final float[] previousPointerX = new float[MAX_POINTER_COUNT];
+  private final float[] previousPointerY = new float[MAX_POINTER_COUNT];
+  private final int[] pointerIndex = new int[MAX_POINTER_COUNT];
+  private final long[] pointerDownTime = new long[MAX_POINTER_COUNT];
+  private final BaseGesture<?>[] retainingGestures = new BaseGesture<?>[MAX_POINTER_COUNT];
+  private final Node[] pointerHitNodes = new Node[MAX_POINTER_COUNT];
+  private final BaseTransformableNode[] pointerOwners =
+      new BaseTransformableNode[MAX_POINTER_COUNT];
+  private final PointerPairTable pointerPairs = new PointerPairTable();
+
+  // Motion of each pointer since it went down, only tracked while the adaptive start slop is on.
+  private final float[] downX = new float[MAX_POINTER_COUNT];
+  private final float[] downY = new float[MAX_POINTER_COUNT];
+  private final float[] pathLength = new float[MAX_POINTER_COUNT];
+  private final float[] velocityX = new float[MAX_POINTER_COUNT];
+  private final float[] velocityY = new float[MAX_POINTER_COUNT];
+  private final long[] lastMoveTime = new long[MAX_POINTER_COUNT];
+  private boolean adaptiveStartSlopEnabled;
+  private final float slowSpeedPixelsPerMilli;
+  private final float fastSpeedPixelsPerMilli;
+
+  // Bitsets of pointer ids.
+  private int activePointerIds;
+  private int retainedPointerIds;
+  private int trackedMotionPointerIds;
+
+  private int actionMasked = MotionEvent.ACTION_CANCEL;
+  private int actionPointerId = -1;
+  private int pointerCount;
+  private long eventTime;
+
+  // The event being dispatched, only set until the dispatch returns.
+  @Nullable private MotionEvent decodedEvent;
+  private int decodedHistorySize;
 
   public GesturePointersUtility(DisplayMetrics displayMetrics) {
-    this.displayMetrics = displayMetrics;
-    retainedPointerIds = new HashSet<>();
+    // The density of the display doesn't change, so only resolve the unit conversion once instead
+    // of going through TypedValue every time a gesture checks its slop.
+    inchOfPixels = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_IN, 1.0f, displayMetrics);
+    slowSpeedPixelsPerMilli = inchesToPixels(SLOW_SPEED_INCHES_PER_SECOND) / 1000.0f;
+    fastSpeedPixelsPerMilli = inchesToPixels(FAST_SPEED_INCHES_PER_SECOND) / 1000.0f;
+  }
+
+  /**
+   * Decodes the pointers of the motion event into the pointer table. Must be called exactly once
+   * per event, since the previous position of each pointer is taken from the previous call, and
+   * followed by {@link #clearDecodedEvent()} once the event has been dispatched.
+   */
+  public void updatePointers(MotionEvent motionEvent) {
+    decodedEvent = motionEvent;
+    decodedHistorySize = motionEvent.getHistorySize();
+    eventTime = motionEvent.getEventTime();
+    actionMasked = motionEvent.getActionMasked();
+    pointerCount = motionEvent.getPointerCount();
+
+    // Pointers that weren't part of the previous event start with no motion.
+    int previousActivePointerIds = actionMasked == MotionEvent.ACTION_DOWN ? 0 : activePointerIds;
+    int newActivePointerIds = 0;
+    for (int i = 0; i < pointerCount; i++) {
+      int pointerId = motionEvent.getPointerId(i);
+      float x = motionEvent.getX(i);
+      float y = motionEvent.getY(i);
+      if ((previousActivePointerIds & (1 << pointerId)) != 0) {
+        previousPointerX[pointerId] = pointerX[pointerId];
+        previousPointerY[pointerId] = pointerY[pointerId];
+        if ((trackedMotionPointerIds & (1 << pointerId)) != 0) {
+          trackMotion(pointerId, x, y);
+        }
+      } else {
+        previousPointerX[pointerId] = x;
+        previousPointerY[pointerId] = y;
+      }
+      pointerX[pointerId] = x;
+      pointerY[pointerId] = y;
+      pointerIndex[pointerId] = i;
+      newActivePointerIds |= 1 << pointerId;
+    }
+    activePointerIds = newActivePointerIds;
+    trackedMotionPointerIds &= newActivePointerIds;
+
+    actionPointerId = motionEvent.getPointerId(motionEvent.getActionIndex());
+    if (actionMasked == MotionEvent.ACTION_DOWN
+        || actionMasked == MotionEvent.ACTION_POINTER_DOWN) {
+      pointerDownTime[actionPointerId] = eventTime;
+      if (adaptiveStartSlopEnabled) {
+        startTrackingMotion(actionPointerId);
+      }
+    }
+  }
+
+  /**
+   * Drops the reference to the event passed to {@link #updatePointers(MotionEvent)}, which may be
+   * recycled once it has been dispatched. The pointer table keeps the current positions, but the
+   * historical samples of the event can't be read anymore.
+   */
+  void clearDecodedEvent() {
+    decodedEvent = null;
+    decodedHistorySize = 0;
+  }
+
+  /**
+   * Sets whether gestures may start before their pointers have moved by the full slop when the
+   * pointers move fast and in a straight line, that is when the intent of the user is clear. Slow
+   * or wavering pointers keep the full slop. Applies to pointers that go down after this is called.
+   * Disabled by default.
+   *
+   * @see #getStartSlopScale(int)
+   */
+  public void setAdaptiveStartSlopEnabled(boolean enabled) {
+    adaptiveStartSlopEnabled = enabled;
+    if (!enabled) {
+      trackedMotionPointerIds = 0;
+    }
+  }
+
+  public boolean isAdaptiveStartSlopEnabled() {
+    return adaptiveStartSlopEnabled;
+  }
+
+  /**
+   * Returns the factor, between 0.4 and 1, that gestures apply to their start slop for the pointer.
+   * It is 1 unless the adaptive start slop is enabled and the pointer has been moving fast along a
+   * nearly straight path since it went down.
+   */
+  public float getStartSlopScale(int pointerId) {
+    if ((trackedMotionPointerIds & (1 << pointerId)) == 0 || pathLength[pointerId] <= 0.0f) {
+      return 1.0f;
+    }
+
+    float netX = pointerX[pointerId] - downX[pointerId];
+    float netY = pointerY[pointerId] - downY[pointerId];
+    float straightness = (float) Math.sqrt(netX * netX + netY * netY) / pathLength[pointerId];
+    if (straightness < MIN_STRAIGHTNESS) {
+      return 1.0f;
+    }
+
+    float speed =
+        (float)
+            Math.sqrt(
+                velocityX[pointerId] * velocityX[pointerId]
+                    + velocityY[pointerId] * velocityY[pointerId]);
+    if (speed <= slowSpeedPixelsPerMilli) {
+      return 1.0f;
+    }
+
+    float speedRange = fastSpeedPixelsPerMilli - slowSpeedPixelsPerMilli;
+    float t = Math.min(1.0f, (speed - slowSpeedPixelsPerMilli) / speedRange);
+    return 1.0f - t * (1.0f - MIN_START_SLOP_SCALE);
+  }
+
+  /**
+   * Returns the start slop factor for a gesture of two pointers, which is only reduced when both
+   * pointers move with a clear intent.
+   */
+  public float getStartSlopScale(int pointerId1, int pointerId2) {
+    return Math.max(getStartSlopScale(pointerId1), getStartSlopScale(pointerId2));
+  }
+
+  /** Returns the masked action of the last decoded event. */
+  public int getActionMasked() {
+    return actionMasked;
+  }
+
+  /** Returns the id of the pointer that caused the action of the last decoded event. */
+  public int getActionPointerId() {
+    return actionPointerId;
+  }
+
+  /** Returns the number of pointers in the last decoded event. */
+  public int getPointerCount() {
+    return pointerCount;
+  }
+
+  /** Returns the time of the last decoded event, in the {@link MotionEvent#getEventTime} base. */
+  public long getEventTime() {
+    return eventTime;
+  }
+
+  /**
+   * Returns the number of historical samples batched into the last decoded event. Samples are
+   * numbered from 0 (oldest) to the history size, where the sample at the history size is the
+   * current position of the pointer.
+   */
+  public int getHistorySize() {
+    return decodedHistorySize;
+  }
+
+  /** Returns the x coordinate of the pointer at the given sample of the last decoded event. */
+  public float getSampleX(int pointerId, int sample) {
+    MotionEvent motionEvent = decodedEvent;
+    if (sample >= decodedHistorySize || motionEvent == null) {
+      return pointerX[pointerId];
+    }
+
+    return motionEvent.getHistoricalX(pointerIndex[pointerId], sample);
+  }
+
+  /** Returns the y coordinate of the pointer at the given sample of the last decoded event. */
+  public float getSampleY(int pointerId, int sample) {
+    MotionEvent motionEvent = decodedEvent;
+    if (sample >= decodedHistorySize || motionEvent == null) {
+      return pointerY[pointerId];
+    }
+
+    return motionEvent.getHistoricalY(pointerIndex[pointerId], sample);
+  }
+
+  /** Returns the time of the given sample of the last decoded event. */
+  public long getSampleEventTime(int sample) {
+    MotionEvent motionEvent = decodedEvent;
+    if (sample >= decodedHistorySize || motionEvent == null) {
+      return eventTime;
+    }
+
+    return motionEvent.getHistoricalEventTime(sample);
+  }
+
+  /** Returns true if the pointer is part of the last decoded event. */
+  public boolean isPointerActive(int pointerId) {
+    return (activePointerIds & (1 << pointerId)) != 0;
+  }
+
+  /** Returns a bitset of the ids of the pointers in the last decoded event. */
+  public int getActivePointerIds() {
+    return activePointerIds;
+  }
+
+  /** Returns a bitset of the ids of the pointers in the last decoded event that aren't retained. */
+  public int getUnretainedPointerIds() {
+    return activePointerIds & ~retainedPointerIds;
+  }
+
+  public float getPointerX(int pointerId) {
+    return pointerX[pointerId];
+  }
+
+  public float getPointerY(int pointerId) {
+    return pointerY[pointerId];
+  }
+
+  /**
+   * Returns the x coordinate of the pointer in the event decoded before the last one, or its
+   * current x coordinate if the pointer wasn't part of that event.
+   */
+  public float getPreviousPointerX(int pointerId) {
+    return previousPointerX[pointerId];
+  }
+
+  /**
+   * Returns the y coordinate of the pointer in the event decoded before the last one, or its
+   * current y coordinate if the pointer wasn't part of that event.
+   */
+  public float getPreviousPointerY(int pointerId) {
+    return previousPointerY[pointerId];
+  }
+
+  /** Returns the index of the pointer in the last decoded event. */
+  public int getPointerIndex(int pointerId) {
+    return pointerIndex[pointerId];
+  }
+
+  /** Returns the event time of the last ACTION_DOWN or ACTION_POINTER_DOWN for the pointer. */
+  public long getPointerDownTime(int pointerId) {
+    return pointerDownTime[pointerId];
   }
 
   public void retainPointerId(int pointerId) {
+    retainPointerId(pointerId, null);
+  }
+
+  /** Retains the pointer id and records which gesture is retaining it. */
+  public void retainPointerId(int pointerId, @Nullable BaseGesture<?> gesture) {
     if (!isPointerIdRetained(pointerId)) {
-      retainedPointerIds.add(pointerId);
+      retainedPointerIds |= 1 << pointerId;
+      retainingGestures[pointerId] = gesture;
     }
   }
 
   public void releasePointerId(int pointerId) {
-    retainedPointerIds.remove(Integer.valueOf(pointerId));
+    retainedPointerIds &= ~(1 << pointerId);
+    retainingGestures[pointerId] = null;
   }
 
   public boolean isPointerIdRetained(int pointerId) {
-    return retainedPointerIds.contains(pointerId);
+    return (retainedPointerIds & (1 << pointerId)) != 0;
+  }
+
+  /** Returns the gesture that is retaining the pointer id, if it was retained by a gesture. */
+  @Nullable
+  public BaseGesture<?> getRetainingGesture(int pointerId) {
+    return retainingGestures[pointerId];
+  }
+
+  /**
+   * Binds the pointer to the node that it touched when it went down, and to the {@link
+   * BaseTransformableNode} that node belongs to. Pointers bound to different transformable nodes
+   * form separate groups that are recognized independently, which lets several nodes be transformed
+   * at the same time. Pointers bound to no node form one group together.
+   */
+  public void bindPointer(int pointerId, @Nullable Node hitNode) {
+    bindPointer(pointerId, hitNode, findOwner(hitNode));
+  }
+
+  /**
+   * Binds the pointer to the node and to its transformable node, which the caller found with {@link
+   * #findOwner}. Lets the owner be found on the main thread when the pointers are bound on an input
+   * thread, which must not walk the scene graph.
+   */
+  void bindPointer(
+      int pointerId, @Nullable Node hitNode, @Nullable BaseTransformableNode hitNodeOwner) {
+    pointerHitNodes[pointerId] = hitNode;
+    pointerOwners[pointerId] = hitNodeOwner;
+  }
+
+  /** Returns the {@link BaseTransformableNode} that the node belongs to, or null if none. */
+  @Nullable
+  static BaseTransformableNode findOwner(@Nullable Node hitNode) {
+    Node node = hitNode;
+    while (node != null && !(node instanceof BaseTransformableNode)) {
+      node = node.getParent();
+    }
+    return (BaseTransformableNode) node;
+  }
+
+  /** Removes the bindings of every pointer. */
+  public void unbindAllPointers() {
+    Arrays.fill(pointerHitNodes, null);
+    Arrays.fill(pointerOwners, null);
+  }
+
+  /** Returns the node that the pointer was bound to with {@link #bindPointer}. */
+  @Nullable
+  public Node getPointerHitNode(int pointerId) {
+    return pointerHitNodes[pointerId];
+  }
+
+  /** Returns the transformable node that the pointer was bound to with {@link #bindPointer}. */
+  @Nullable
+  public BaseTransformableNode getPointerOwner(int pointerId) {
+    return pointerOwners[pointerId];
+  }
+
+  /**
+   * Returns a bitset of the ids of the pointers in the last decoded event that are bound to the
+   * same transformable node as the given pointer, including the pointer itself.
+   */
+  public int getPointerIdsWithSameOwner(int pointerId) {
+    BaseTransformableNode owner = pointerOwners[pointerId];
+    int pointerIds = 0;
+    int activeIds = activePointerIds;
+    while (activeIds != 0) {
+      int otherId = Integer.numberOfTrailingZeros(activeIds);
+      activeIds &= activeIds - 1;
+      if (pointerOwners[otherId] == owner) {
+        pointerIds |= 1 << otherId;
+      }
+    }
+    return pointerIds;
+  }
+
+  private void startTrackingMotion(int pointerId) {
+    trackedMotionPointerIds |= 1 << pointerId;
+    downX[pointerId] = pointerX[pointerId];
+    downY[pointerId] = pointerY[pointerId];
+    pathLength[pointerId] = 0.0f;
+    velocityX[pointerId] = 0.0f;
+    velocityY[pointerId] = 0.0f;
+    lastMoveTime[pointerId] = eventTime;
+  }
+
+  // Accumulates the path length of the pointer and smooths its velocity over a short window, so
+  // that a single jittery sample doesn't make the intent look clear.
+  private void trackMotion(int pointerId, float x, float y) {
+    float deltaX = x - previousPointerX[pointerId];
+    float deltaY = y - previousPointerY[pointerId];
+    // The first move seeds the velocity, instead of averaging it with the zero velocity at down.
+    boolean firstMove = pathLength[pointerId] == 0.0f;
+    pathLength[pointerId] += (float) Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+
+    long deltaTime = eventTime - lastMoveTime[pointerId];
+    if (deltaTime <= 0) {
+      return;
+    }
+
+    float alpha = firstMove ? 1.0f : deltaTime / (VELOCITY_TIME_CONSTANT_MILLIS + deltaTime);
+    velocityX[pointerId] += (deltaX / deltaTime - velocityX[pointerId]) * alpha;
+    velocityY[pointerId] += (deltaY / deltaTime - velocityY[pointerId]) * alpha;
+    lastMoveTime[pointerId] = eventTime;
+  }
+
+  /** Returns the table of pointer pairs shared by the two-finger gesture recognizers. */
+  PointerPairTable getPointerPairs() {
+    return pointerPairs;
   }
 
   public float inchesToPixels(float inches) {
-    return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_IN, inches, displayMetrics);
+    return inches * inchOfPixels;
   }
 
   public float pixelsToInches(float pixels) {
-    float inchOfPixels =
-        TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_IN, 1.0f, displayMetrics);
     return pixels / inchOfPixels;
   }
 
@@ -62,4 +458,10 @@ public class GesturePointersUtility {
     int index = me.findPointerIndex(pointerId);
     return new Vector3(me.getX(index), me.getY(index), 0.0f);
   }
+
+  /** Writes the position of the pointer into outPosition instead of allocating a new Vector3. */
+  public static void motionEventToPosition(MotionEvent me, int pointerId, Vector3 outPosition) {
+    int index = me.findPointerIndex(pointerId);
+    outPosition.set(me.getX(index), me.getY(index), 0.0f);
+  }
 }
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+import android.support.annotation.Nullable;
+import com.google.ar.core.Frame;
+import com.google.ar.core.HitResult;
+import com.google.ar.core.Plane;
+import com.google.ar.core.Pose;
+import com.google.ar.core.Trackable;
+import com.google.ar.sceneform.utilities.Preconditions;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Caches the results of ARCore hit tests for the current {@link Frame}, so that hit tests of the
+ * same screen position within a frame (i.e. by a {@link TranslationController} and a tap on the
+ * plane) only run once. Positions are quantized, so positions that are closer than a couple of
+ * pixels share their results. The cache is cleared when the frame changes.
+ *
+ * <p>Only use on the main thread.
+ */
+public class HitTestCache {
+  private static final float QUANTUM_PIXELS = 2.0f;
+  private static final int MAX_ENTRIES = 8;
+
+  private static final byte POLYGON_UNKNOWN = 0;
+  private static final byte POLYGON_INSIDE = 1;
+  private static final byte POLYGON_OUTSIDE = 2;
+
+  // Hit results of a quantized screen position, and whether each result is inside the polygon of
+  // its plane once that has been checked.
+  private static final class Entry {
+    int keyX;
+    int keyY;
+    @Nullable List<HitResult> hitResults;
+    byte[] polygonStates = new byte[4];
+  }
+
+  private final Entry[] entries = new Entry[MAX_ENTRIES];
+  private int entryCount;
+  // The oldest entry, which is replaced when every entry is used.
+  private int nextEntry;
+
+  @Nullable private Frame frame;
+  private long frameTimestamp;
+
+  private final PlanePolygonCache planePolygonCache = new PlanePolygonCache();
+
+  private long hitTestCount;
+  private long cacheHitCount;
+
+  public HitTestCache() {
+    for (int i = 0; i < MAX_ENTRIES; i++) {
+      entries[i] = new Entry();
+    }
+  }
+
+  /** Returns the results of the hit test of the frame at the screen position. */
+  public List<HitResult> hitTest(Frame frame, float x, float y) {
+    return Preconditions.checkNotNull(getEntry(frame, x, y).hitResults);
+  }
+
+  /**
+   * Returns the first result of the hit test of the frame at the screen position that hit a plane
+   * inside its polygon, or null if there is none.
+   *
+   * @param allowedPlaneTypes the types of planes that can be hit, or null to allow every type
+   */
+  @Nullable
+  public HitResult hitTestPlane(
+      Frame frame, float x, float y, @Nullable EnumSet<Plane.Type> allowedPlaneTypes) {
+    Entry entry = getEntry(frame, x, y);
+    List<HitResult> hitResults = Preconditions.checkNotNull(entry.hitResults);
+    for (int i = 0; i < hitResults.size(); i++) {
+      HitResult hit = hitResults.get(i);
+      Trackable trackable = hit.getTrackable();
+      if (!(trackable instanceof Plane)) {
+        continue;
+      }
+
+      Plane plane = (Plane) trackable;
+      if (allowedPlaneTypes != null && !allowedPlaneTypes.contains(plane.getType())) {
+        continue;
+      }
+
+      if (entry.polygonStates[i] == POLYGON_UNKNOWN) {
+        entry.polygonStates[i] =
+            isPoseInPolygon(frame, plane, hit.getHitPose()) ? POLYGON_INSIDE : POLYGON_OUTSIDE;
+      }
+
+      if (entry.polygonStates[i] == POLYGON_INSIDE) {
+        return hit;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns the cache of plane polygons used to check whether hits are inside the polygon of their
+   * plane. While it isn't updated every frame, the polygons are checked by ARCore instead.
+   */
+  public PlanePolygonCache getPlanePolygonCache() {
+    return planePolygonCache;
+  }
+
+  /** Returns the number of hit tests that were run on ARCore frames. */
+  public long getHitTestCount() {
+    return hitTestCount;
+  }
+
+  /** Returns the number of hit tests that were answered from the cache. */
+  public long getCacheHitCount() {
+    return cacheHitCount;
+  }
+
+  /** Clears the cached results, i.e. when the frame is about to be reused for another image. */
+  public void clear() {
+    for (int i = 0; i < entryCount; i++) {
+      entries[i].hitResults = null;
+    }
+    entryCount = 0;
+    nextEntry = 0;
+    frame = null;
+  }
+
+  private boolean isPoseInPolygon(Frame frame, Plane plane, Pose pose) {
+    if (planePolygonCache.isUpToDate(frame)) {
+      return planePolygonCache.isPoseInPolygon(plane, pose);
+    }
+
+    return plane.isPoseInPolygon(pose);
+  }
+
+  private Entry getEntry(Frame frame, float x, float y) {
+    long timestamp = frame.getTimestamp();
+    if (frame != this.frame || timestamp != frameTimestamp) {
+      clear();
+      this.frame = frame;
+      frameTimestamp = timestamp;
+    }
+
+    int keyX = Math.round(x / QUANTUM_PIXELS);
+    int keyY = Math.round(y / QUANTUM_PIXELS);
+    for (int i = 0; i < entryCount; i++) {
+      Entry entry = entries[i];
+      if (entry.keyX == keyX && entry.keyY == keyY) {
+        cacheHitCount++;
+        return entry;
+      }
+    }
+
+    Entry entry;
+    if (entryCount < MAX_ENTRIES) {
+      entry = entries[entryCount];
+      entryCount++;
+    } else {
+      entry = entries[nextEntry];
+      nextEntry = (nextEntry + 1) % MAX_ENTRIES;
+    }
+
+    List<HitResult> hitResults = frame.hitTest(x, y);
+    hitTestCount++;
+    entry.keyX = keyX;
+    entry.keyY = keyY;
+    entry.hitResults = hitResults;
+    if (entry.polygonStates.length < hitResults.size()) {
+      entry.polygonStates = new byte[hitResults.size()];
+    } else {
+      Arrays.fill(entry.polygonStates, POLYGON_UNKNOWN);
+    }
+    return entry;
+  }
+}
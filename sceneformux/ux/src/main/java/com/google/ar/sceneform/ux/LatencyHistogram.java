@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies with fixed one millisecond buckets. Recording and reading are lock-free,
+ * so latencies can be recorded on the main thread while another thread exports the percentiles.
+ */
+public final class LatencyHistogram {
+  /**
+   * The number of buckets. Bucket i counts latencies of i milliseconds, and the last bucket counts
+   * every latency that is at least as long.
+   */
+  public static final int BUCKET_COUNT = 256;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+  /** Records a latency. Negative latencies, caused by clock skew, are counted as 0. */
+  public void record(long latencyMillis) {
+    int bucket = (int) Math.max(0, Math.min(latencyMillis, BUCKET_COUNT - 1));
+    buckets.incrementAndGet(bucket);
+  }
+
+  /** Returns the number of latencies recorded in the bucket. */
+  public long getBucketCount(int bucket) {
+    return buckets.get(bucket);
+  }
+
+  /** Returns the number of latencies recorded. */
+  public long getCount() {
+    long count = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      count += buckets.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the smallest latency in milliseconds that is greater than or equal to the given
+   * percentile of the recorded latencies, or -1 if none were recorded. Latencies in the last bucket
+   * are reported as {@code BUCKET_COUNT - 1}.
+   *
+   * @param percentile the percentile, between 0 and 100 (i.e. 99 for p99)
+   */
+  public long getPercentileMillis(float percentile) {
+    // Copy the buckets first so that the result is consistent while latencies are being recorded.
+    long[] counts = new long[BUCKET_COUNT];
+    long count = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts[i] = buckets.get(i);
+      count += counts[i];
+    }
+
+    if (count == 0) {
+      return -1;
+    }
+
+    long rank = (long) Math.ceil(count * Math.max(0.0f, Math.min(percentile, 100.0f)) / 100.0);
+    rank = Math.max(rank, 1);
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return i;
+      }
+    }
+
+    return BUCKET_COUNT - 1;
+  }
+
+  /** Clears all recorded latencies. */
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      buckets.set(i, 0);
+    }
+  }
+}
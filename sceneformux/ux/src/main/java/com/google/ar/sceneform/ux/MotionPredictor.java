@@ -0,0 +1,285 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+/**
+ * Extrapolates the position of a pointer a short time ahead from its recent samples, so that a
+ * gesture can be applied where the finger will be when the next frame is displayed instead of
+ * where it was when the touch event was sampled.
+ *
+ * <p>The predictor fits a least-squares line or parabola to the samples of the last {@link
+ * #SAMPLE_HORIZON_MILLIS} milliseconds. A prediction is only made when the fit is confident, which
+ * requires enough recent samples and a root mean square error of the fit that doesn't exceed the
+ * maximum residual. Otherwise the predicted position is the position of the newest sample.
+ *
+ * <p>Samples are kept in a fixed size ring buffer, so adding samples and predicting doesn't
+ * allocate.
+ */
+public class MotionPredictor {
+  /** The curve that is fit to the samples of the pointer. */
+  public enum FitModel {
+    /** Extrapolates using the velocity of the pointer. */
+    LINEAR,
+    /**
+     * Extrapolates using the velocity and acceleration of the pointer. Falls back to {@link
+     * #LINEAR} when there aren't enough samples to fit a parabola.
+     */
+    QUADRATIC
+  }
+
+  /** Samples older than this, relative to the newest sample, are not used for the fit. */
+  public static final long SAMPLE_HORIZON_MILLIS = 100;
+
+  /** The furthest ahead of the newest sample that a prediction is made. */
+  public static final long MAX_PREDICTION_MILLIS = 50;
+
+  private static final int MAX_SAMPLE_COUNT = 16;
+  private static final int MIN_LINEAR_SAMPLE_COUNT = 3;
+  private static final int MIN_QUADRATIC_SAMPLE_COUNT = 4;
+  // Determinants at or below this fraction of the product of the diagonal of the normal equations
+  // are treated as singular. Unlike an absolute bound, this doesn't depend on the sample spacing.
+  private static final double RELATIVE_EPSILON = 1e-9;
+
+  private final FitModel fitModel;
+
+  // Ring buffer of samples, the newest sample is at newestSample.
+  private final long[] sampleTimes = new long[MAX_SAMPLE_COUNT];
+  private final float[] sampleX = new float[MAX_SAMPLE_COUNT];
+  private final float[] sampleY = new float[MAX_SAMPLE_COUNT];
+  private int newestSample = -1;
+  private int sampleCount;
+
+  private float maxResidualPixels = Float.MAX_VALUE;
+  private float predictedX;
+  private float predictedY;
+
+  // Coefficients of the last fit of one axis, as a + b * t + c * t^2 with t in seconds.
+  private double coefficientA;
+  private double coefficientB;
+  private double coefficientC;
+  private double residualSquares;
+
+  public MotionPredictor(FitModel fitModel) {
+    this.fitModel = fitModel;
+  }
+
+  public FitModel getFitModel() {
+    return fitModel;
+  }
+
+  /**
+   * Sets the maximum root mean square error, in pixels, of a fit that is used for a prediction.
+   * Fits with a larger error are considered not confident, since the pointer isn't following the
+   * fit curve closely enough to extrapolate it.
+   */
+  public void setMaxResidualPixels(float maxResidualPixels) {
+    this.maxResidualPixels = maxResidualPixels;
+  }
+
+  public float getMaxResidualPixels() {
+    return maxResidualPixels;
+  }
+
+  /** Removes all samples. */
+  public void reset() {
+    newestSample = -1;
+    sampleCount = 0;
+  }
+
+  /**
+   * Adds a sample of the pointer. Samples must be added in order of time, samples that are older
+   * than the newest sample are ignored and a sample at the same time replaces the newest sample.
+   */
+  public void addSample(long eventTimeMillis, float x, float y) {
+    if (sampleCount > 0) {
+      long newestTime = sampleTimes[newestSample];
+      if (eventTimeMillis < newestTime) {
+        return;
+      }
+
+      if (eventTimeMillis == newestTime) {
+        sampleX[newestSample] = x;
+        sampleY[newestSample] = y;
+        return;
+      }
+    }
+
+    newestSample = (newestSample + 1) % MAX_SAMPLE_COUNT;
+    sampleTimes[newestSample] = eventTimeMillis;
+    sampleX[newestSample] = x;
+    sampleY[newestSample] = y;
+    sampleCount = Math.min(sampleCount + 1, MAX_SAMPLE_COUNT);
+  }
+
+  /**
+   * Predicts the position of the pointer at the given time. Returns true if the prediction is
+   * confident. In both cases the result is available from {@link #getPredictedX()} and {@link
+   * #getPredictedY()}, which are the position of the newest sample if the prediction isn't
+   * confident.
+   */
+  public boolean predict(long targetTimeMillis) {
+    if (sampleCount == 0) {
+      return false;
+    }
+
+    long newestTime = sampleTimes[newestSample];
+    predictedX = sampleX[newestSample];
+    predictedY = sampleY[newestSample];
+
+    long predictionMillis = targetTimeMillis - newestTime;
+    if (predictionMillis <= 0 || predictionMillis > MAX_PREDICTION_MILLIS) {
+      return false;
+    }
+
+    int count = getRecentSampleCount(newestTime);
+    if (count < MIN_LINEAR_SAMPLE_COUNT) {
+      return false;
+    }
+
+    boolean quadratic = fitModel == FitModel.QUADRATIC && count >= MIN_QUADRATIC_SAMPLE_COUNT;
+    double predictionSeconds = predictionMillis / 1000.0;
+
+    if (!fit(sampleX, count, newestTime, quadratic)) {
+      return false;
+    }
+    double x = evaluate(predictionSeconds);
+    double totalResidualSquares = residualSquares;
+
+    if (!fit(sampleY, count, newestTime, quadratic)) {
+      return false;
+    }
+    double y = evaluate(predictionSeconds);
+    totalResidualSquares += residualSquares;
+
+    double rootMeanSquareError = Math.sqrt(totalResidualSquares / count);
+    if (rootMeanSquareError > maxResidualPixels) {
+      return false;
+    }
+
+    predictedX = (float) x;
+    predictedY = (float) y;
+    return true;
+  }
+
+  public float getPredictedX() {
+    return predictedX;
+  }
+
+  public float getPredictedY() {
+    return predictedY;
+  }
+
+  private int getRecentSampleCount(long newestTime) {
+    int count = 0;
+    while (count < sampleCount
+        && newestTime - sampleTimes[getSampleIndex(count)] <= SAMPLE_HORIZON_MILLIS) {
+      count++;
+    }
+    return count;
+  }
+
+  // Returns the index in the ring buffer of the sample that is age samples older than the newest.
+  private int getSampleIndex(int age) {
+    return (newestSample - age + MAX_SAMPLE_COUNT) % MAX_SAMPLE_COUNT;
+  }
+
+  /**
+   * Fits the newest samples of one axis by least squares, with time in seconds relative to the
+   * newest sample to keep the sums well conditioned. Falls back to a line if the samples don't
+   * determine a parabola. Returns false if they don't determine a line either, i.e. when they have
+   * too few distinct times.
+   */
+  private boolean fit(float[] values, int count, long newestTime, boolean quadratic) {
+    double sumT = 0;
+    double sumT2 = 0;
+    double sumT3 = 0;
+    double sumT4 = 0;
+    double sumV = 0;
+    double sumTV = 0;
+    double sumT2V = 0;
+    for (int i = 0; i < count; i++) {
+      int index = getSampleIndex(i);
+      double t = (sampleTimes[index] - newestTime) / 1000.0;
+      double t2 = t * t;
+      double v = values[index];
+      sumT += t;
+      sumT2 += t2;
+      sumT3 += t2 * t;
+      sumT4 += t2 * t2;
+      sumV += v;
+      sumTV += t * v;
+      sumT2V += t2 * v;
+    }
+
+    if (quadratic) {
+      // Solve the 3x3 normal equations with Cramer's rule.
+      double determinant =
+          determinant(count, sumT, sumT2, sumT, sumT2, sumT3, sumT2, sumT3, sumT4);
+      if (Math.abs(determinant) > RELATIVE_EPSILON * count * sumT2 * sumT4) {
+        coefficientA =
+            determinant(sumV, sumT, sumT2, sumTV, sumT2, sumT3, sumT2V, sumT3, sumT4) / determinant;
+        coefficientB =
+            determinant(count, sumV, sumT2, sumT, sumTV, sumT3, sumT2, sumT2V, sumT4) / determinant;
+        coefficientC =
+            determinant(count, sumT, sumV, sumT, sumT2, sumTV, sumT2, sumT3, sumT2V) / determinant;
+      } else {
+        // The samples don't determine a parabola, fall back to a line.
+        quadratic = false;
+      }
+    }
+
+    if (!quadratic) {
+      double determinant = count * sumT2 - sumT * sumT;
+      if (Math.abs(determinant) <= RELATIVE_EPSILON * count * sumT2) {
+        return false;
+      }
+
+      coefficientB = (count * sumTV - sumT * sumV) / determinant;
+      coefficientA = (sumV - coefficientB * sumT) / count;
+      coefficientC = 0;
+    }
+
+    residualSquares = 0;
+    for (int i = 0; i < count; i++) {
+      int index = getSampleIndex(i);
+      double t = (sampleTimes[index] - newestTime) / 1000.0;
+      double residual = values[index] - evaluate(t);
+      residualSquares += residual * residual;
+    }
+
+    return true;
+  }
+
+  private double evaluate(double t) {
+    return coefficientA + (coefficientB + coefficientC * t) * t;
+  }
+
+  // Determinant of the 3x3 matrix with the given rows.
+  private static double determinant(
+      double m00,
+      double m01,
+      double m02,
+      double m10,
+      double m11,
+      double m12,
+      double m20,
+      double m21,
+      double m22) {
+    return m00 * (m11 * m22 - m12 * m21)
+        - m01 * (m10 * m22 - m12 * m20)
+        + m02 * (m10 * m21 - m11 * m20);
+  }
+}
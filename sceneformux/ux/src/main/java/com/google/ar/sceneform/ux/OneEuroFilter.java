@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+/**
+ * A {@link SignalFilter} that implements the One Euro filter (Casiez et al., CHI 2012).
+ *
+ * <p>The One Euro filter is a low-pass filter whose cutoff frequency increases with the speed of
+ * the signal. Slow movements are smoothed heavily to remove jitter, and fast movements are barely
+ * smoothed so that they don't lag.
+ */
+public class OneEuroFilter implements SignalFilter {
+  public static final float DEFAULT_MIN_CUTOFF_HZ = 1.0f;
+  public static final float DEFAULT_BETA = 0.007f;
+  public static final float DEFAULT_DERIVATIVE_CUTOFF_HZ = 1.0f;
+
+  private final float minCutoffHz;
+  private final float beta;
+  private final float derivativeCutoffHz;
+
+  private boolean hasValue;
+  private float value;
+  private float derivative;
+  private long timestampMillis;
+
+  public OneEuroFilter() {
+    this(DEFAULT_MIN_CUTOFF_HZ, DEFAULT_BETA, DEFAULT_DERIVATIVE_CUTOFF_HZ);
+  }
+
+  /**
+   * @param minCutoffHz the cutoff frequency when the signal is still. Lower values remove more
+   *     jitter.
+   * @param beta how much the cutoff frequency increases with the speed of the signal. Higher
+   *     values reduce the lag of fast movements.
+   * @param derivativeCutoffHz the cutoff frequency used to smooth the speed of the signal.
+   */
+  public OneEuroFilter(float minCutoffHz, float beta, float derivativeCutoffHz) {
+    this.minCutoffHz = minCutoffHz;
+    this.beta = beta;
+    this.derivativeCutoffHz = derivativeCutoffHz;
+  }
+
+  /** Returns a factory that creates One Euro filters with the given parameters. */
+  public static SignalFilter.Factory factory(
+      float minCutoffHz, float beta, float derivativeCutoffHz) {
+    return () -> new OneEuroFilter(minCutoffHz, beta, derivativeCutoffHz);
+  }
+
+  @Override
+  public float filter(float value, long timestampMillis) {
+    if (!hasValue) {
+      hasValue = true;
+      this.value = value;
+      derivative = 0.0f;
+      this.timestampMillis = timestampMillis;
+      return value;
+    }
+
+    float deltaSeconds = (timestampMillis - this.timestampMillis) / 1000.0f;
+    this.timestampMillis = timestampMillis;
+    if (deltaSeconds <= 0.0f) {
+      return this.value;
+    }
+
+    float rawDerivative = (value - this.value) / deltaSeconds;
+    derivative += (rawDerivative - derivative) * alpha(derivativeCutoffHz, deltaSeconds);
+
+    float cutoffHz = minCutoffHz + beta * Math.abs(derivative);
+    this.value += (value - this.value) * alpha(cutoffHz, deltaSeconds);
+    return this.value;
+  }
+
+  @Override
+  public void reset() {
+    hasValue = false;
+  }
+
+  // Smoothing factor of a first order low-pass filter with the given cutoff frequency.
+  private static float alpha(float cutoffHz, float deltaSeconds) {
+    float timeConstant = 1.0f / (2.0f * (float) Math.PI * cutoffHz);
+    return 1.0f / (1.0f + timeConstant / deltaSeconds);
+  }
+}
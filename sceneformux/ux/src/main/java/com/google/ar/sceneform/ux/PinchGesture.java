@@ -18,7 +18,6 @@ package com.google.ar.sceneform.ux;
 import android.util.Log;
 import android.view.MotionEvent;
 import com.google.ar.sceneform.HitTestResult;
-import com.google.ar.sceneform.math.Vector3;
 
 /** Gesture for when the user performs a two-finger pinch motion on the touch screen. */
 public class PinchGesture extends BaseGesture<PinchGesture> {
@@ -28,31 +27,55 @@ public class PinchGesture extends BaseGesture<PinchGesture> {
   public interface OnGestureEventListener
       extends BaseGesture.OnGestureEventListener<PinchGesture> {}
 
-  private final int pointerId1;
-  private final int pointerId2;
-  private final Vector3 startPosition1;
-  private final Vector3 startPosition2;
-  private final Vector3 previousPosition1;
-  private final Vector3 previousPosition2;
+  private final float slopPixels;
+  private final PointerPairTable pointerPairs;
+  private int pairRow = PointerPairTable.NO_ROW;
+  private int pointerId1;
+  private int pointerId2;
   private float gap;
   private float gapDelta;
+  // The gap when the last update was dispatched, used when updates are coalesced.
+  private float dispatchedGap;
 
-  private static final float SLOP_INCHES = 0.05f;
+  static final float SLOP_INCHES = 0.05f;
   private static final float SLOP_MOTION_DIRECTION_DEGREES = 30.0f;
+  private static final float SLOP_MOTION_DIRECTION_DOT_THRESHOLD =
+      (float) Math.cos(Math.toRadians(SLOP_MOTION_DIRECTION_DEGREES));
 
   private static final boolean PINCH_GESTURE_DEBUG = false;
 
+  /**
+   * Creates a gesture for the pointer that caused the action of the motion event and the second
+   * pointer. The event must already have been decoded by the gesture pointers utility.
+   */
   public PinchGesture(
       GesturePointersUtility gesturePointersUtility, MotionEvent motionEvent, int pointerId2) {
+    this(gesturePointersUtility);
+
+    int pointerId1 = gesturePointersUtility.getActionPointerId();
+    init(pointerPairs.findOrAddRow(gesturePointersUtility, pointerId1, pointerId2));
+  }
+
+  // Creates a gesture that must be initialized with init before it is used.
+  PinchGesture(GesturePointersUtility gesturePointersUtility) {
     super(gesturePointersUtility);
 
-    pointerId1 = motionEvent.getPointerId(motionEvent.getActionIndex());
-    this.pointerId2 = pointerId2;
-    startPosition1 = GesturePointersUtility.motionEventToPosition(motionEvent, pointerId1);
-    startPosition2 = GesturePointersUtility.motionEventToPosition(motionEvent, pointerId2);
-    previousPosition1 = new Vector3(startPosition1);
-    previousPosition2 = new Vector3(startPosition2);
-    debugLog("Created");
+    pointerPairs = gesturePointersUtility.getPointerPairs();
+    slopPixels = gesturePointersUtility.inchesToPixels(SLOP_INCHES);
+  }
+
+  /** Initializes the gesture for the pair of pointers in the row of the pointer pair table. */
+  void init(int pairRow) {
+    this.pairRow = pairRow;
+    pointerPairs.retainRow(pairRow);
+    pointerId1 = pointerPairs.getPointerId1(pairRow);
+    pointerId2 = pointerPairs.getPointerId2(pairRow);
+    targetNode = gesturePointersUtility.getPointerOwner(pointerId1);
+    gap = 0.0f;
+    gapDelta = 0.0f;
+    if (PINCH_GESTURE_DEBUG) {
+      debugLog("Created");
+    }
   }
 
   public float getGap() {
@@ -73,77 +96,34 @@ public class PinchGesture extends BaseGesture<PinchGesture> {
 
   @Override
   protected boolean canStart(HitTestResult hitTestResult, MotionEvent motionEvent) {
-    if (gesturePointersUtility.isPointerIdRetained(pointerId1)
-        || gesturePointersUtility.isPointerIdRetained(pointerId2)) {
-      cancel();
-      return false;
-    }
-
-    int actionId = motionEvent.getPointerId(motionEvent.getActionIndex());
-    int action = motionEvent.getActionMasked();
-
-    if (action == MotionEvent.ACTION_CANCEL) {
+    if (pointerPairs.shouldCancelCandidate(gesturePointersUtility, pairRow)) {
       cancel();
       return false;
     }
 
-    boolean touchEnded = action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_POINTER_UP;
-
-    if (touchEnded && (actionId == pointerId1 || actionId == pointerId2)) {
-      cancel();
-      return false;
-    }
-
-    if (action != MotionEvent.ACTION_MOVE) {
-      return false;
-    }
-
-    Vector3 firstToSecond = Vector3.subtract(startPosition1, startPosition2);
-    Vector3 firstToSecondDirection = firstToSecond.normalized();
-
-    Vector3 newPosition1 = GesturePointersUtility.motionEventToPosition(motionEvent, pointerId1);
-    Vector3 newPosition2 = GesturePointersUtility.motionEventToPosition(motionEvent, pointerId2);
-    Vector3 deltaPosition1 = Vector3.subtract(newPosition1, previousPosition1);
-    Vector3 deltaPosition2 = Vector3.subtract(newPosition2, previousPosition2);
-    previousPosition1.set(newPosition1);
-    previousPosition2.set(newPosition2);
-
-    float dot1 = Vector3.dot(deltaPosition1.normalized(), firstToSecondDirection.negated());
-    float dot2 = Vector3.dot(deltaPosition2.normalized(), firstToSecondDirection);
-    float dotThreshold = (float) Math.cos(Math.toRadians(SLOP_MOTION_DIRECTION_DEGREES));
-
-    // Check angle of motion for the first touch.
-    if (!Vector3.equals(deltaPosition1, Vector3.zero()) && Math.abs(dot1) < dotThreshold) {
-      return false;
-    }
-
-    // Check angle of motion for the second touch.
-    if (!Vector3.equals(deltaPosition2, Vector3.zero()) && Math.abs(dot2) < dotThreshold) {
-      return false;
-    }
-
-    float startGap = firstToSecond.length();
-    gap = Vector3.subtract(newPosition1, newPosition2).length();
-    float separation = Math.abs(gap - startGap);
-    float slopPixels = gesturePointersUtility.inchesToPixels(SLOP_INCHES);
-    if (separation < slopPixels) {
+    if (!isPinching(gesturePointersUtility, pointerPairs, pairRow, slopPixels)) {
       return false;
     }
 
+    gap = calculateGap(gesturePointersUtility, pointerId1, pointerId2);
     return true;
   }
 
   @Override
   protected void onStart(HitTestResult hitTestResult, MotionEvent motionEvent) {
-    debugLog("Started");
-    gesturePointersUtility.retainPointerId(pointerId1);
-    gesturePointersUtility.retainPointerId(pointerId2);
+    if (PINCH_GESTURE_DEBUG) {
+      debugLog("Started");
+    }
+    gap = filterSignal(0, gap);
+    dispatchedGap = gap;
+    gesturePointersUtility.retainPointerId(pointerId1, this);
+    gesturePointersUtility.retainPointerId(pointerId2, this);
   }
 
   @Override
   protected boolean updateGesture(HitTestResult hitTestResult, MotionEvent motionEvent) {
-    int actionId = motionEvent.getPointerId(motionEvent.getActionIndex());
-    int action = motionEvent.getActionMasked();
+    int actionId = gesturePointersUtility.getActionPointerId();
+    int action = gesturePointersUtility.getActionMasked();
 
     if (action == MotionEvent.ACTION_CANCEL) {
       cancel();
@@ -161,9 +141,7 @@ public class PinchGesture extends BaseGesture<PinchGesture> {
       return false;
     }
 
-    Vector3 newPosition1 = GesturePointersUtility.motionEventToPosition(motionEvent, pointerId1);
-    Vector3 newPosition2 = GesturePointersUtility.motionEventToPosition(motionEvent, pointerId2);
-    float newGap = Vector3.subtract(newPosition1, newPosition2).length();
+    float newGap = filterSignal(0, calculateGap(gesturePointersUtility, pointerId1, pointerId2));
 
     if (newGap == gap) {
       return false;
@@ -171,20 +149,63 @@ public class PinchGesture extends BaseGesture<PinchGesture> {
 
     gapDelta = newGap - gap;
     gap = newGap;
-    debugLog("Update: " + gapDelta);
+    if (PINCH_GESTURE_DEBUG) {
+      debugLog("Update: " + gapDelta);
+    }
     return true;
   }
 
   @Override
   protected void onCancel() {
-    debugLog("Cancelled");
+    if (PINCH_GESTURE_DEBUG) {
+      debugLog("Cancelled");
+    }
+    releasePairRow();
   }
 
   @Override
   protected void onFinish() {
-    debugLog("Finished");
+    if (PINCH_GESTURE_DEBUG) {
+      debugLog("Finished");
+    }
     gesturePointersUtility.releasePointerId(pointerId1);
     gesturePointersUtility.releasePointerId(pointerId2);
+    releasePairRow();
+  }
+
+  @Override
+  protected boolean settleSignals() {
+    float newGap = settleSignal(0, calculateGap(gesturePointersUtility, pointerId1, pointerId2));
+    if (newGap == gap) {
+      return false;
+    }
+
+    gapDelta = newGap - gap;
+    gap = newGap;
+    return true;
+  }
+
+  @Override
+  protected void prepareCoalescedUpdate() {
+    gapDelta = gap - dispatchedGap;
+    dispatchedGap = gap;
+  }
+
+  @Override
+  protected int getSignalChannelCount() {
+    return 1;
+  }
+
+  @Override
+  protected void writeIntentValues(float[] values) {
+    values[0] = gap;
+    values[1] = gapDelta;
+  }
+
+  @Override
+  protected void readIntentValues(float[] values) {
+    gap = values[0];
+    gapDelta = values[1];
   }
 
   @Override
@@ -192,9 +213,92 @@ public class PinchGesture extends BaseGesture<PinchGesture> {
     return this;
   }
 
+  /**
+   * Returns true if the pointers of the pair are moving towards or away from each other along the
+   * line between their start positions, and the gap between them has changed by more than the slop
+   * since the pair was created. The slop is scaled by {@link
+   * GesturePointersUtility#getStartSlopScale(int, int)}.
+   */
+  static boolean isPinching(
+      GesturePointersUtility gesturePointersUtility,
+      PointerPairTable pointerPairs,
+      int pairRow,
+      float slopPixels) {
+    if (gesturePointersUtility.getActionMasked() != MotionEvent.ACTION_MOVE) {
+      return false;
+    }
+
+    int pointerId1 = pointerPairs.getPointerId1(pairRow);
+    int pointerId2 = pointerPairs.getPointerId2(pairRow);
+
+    float firstToSecondX = pointerPairs.getStartX1(pairRow) - pointerPairs.getStartX2(pairRow);
+    float firstToSecondY = pointerPairs.getStartY1(pairRow) - pointerPairs.getStartY2(pairRow);
+    float startGap = length(firstToSecondX, firstToSecondY);
+    float firstToSecondDirectionX = startGap > 0.0f ? firstToSecondX / startGap : 0.0f;
+    float firstToSecondDirectionY = startGap > 0.0f ? firstToSecondY / startGap : 0.0f;
+
+    float deltaX1 =
+        gesturePointersUtility.getPointerX(pointerId1)
+            - gesturePointersUtility.getPreviousPointerX(pointerId1);
+    float deltaY1 =
+        gesturePointersUtility.getPointerY(pointerId1)
+            - gesturePointersUtility.getPreviousPointerY(pointerId1);
+    float deltaX2 =
+        gesturePointersUtility.getPointerX(pointerId2)
+            - gesturePointersUtility.getPreviousPointerX(pointerId2);
+    float deltaY2 =
+        gesturePointersUtility.getPointerY(pointerId2)
+            - gesturePointersUtility.getPreviousPointerY(pointerId2);
+
+    // Check angle of motion for the first touch.
+    float deltaLength1 = length(deltaX1, deltaY1);
+    if (deltaLength1 > 0.0f) {
+      float dot1 =
+          -(deltaX1 * firstToSecondDirectionX + deltaY1 * firstToSecondDirectionY) / deltaLength1;
+      if (Math.abs(dot1) < SLOP_MOTION_DIRECTION_DOT_THRESHOLD) {
+        return false;
+      }
+    }
+
+    // Check angle of motion for the second touch.
+    float deltaLength2 = length(deltaX2, deltaY2);
+    if (deltaLength2 > 0.0f) {
+      float dot2 =
+          (deltaX2 * firstToSecondDirectionX + deltaY2 * firstToSecondDirectionY) / deltaLength2;
+      if (Math.abs(dot2) < SLOP_MOTION_DIRECTION_DOT_THRESHOLD) {
+        return false;
+      }
+    }
+
+    float gap = calculateGap(gesturePointersUtility, pointerId1, pointerId2);
+    float separation = Math.abs(gap - startGap);
+    return separation
+        >= slopPixels * gesturePointersUtility.getStartSlopScale(pointerId1, pointerId2);
+  }
+
+  private void releasePairRow() {
+    if (pairRow != PointerPairTable.NO_ROW) {
+      pointerPairs.releaseRow(pairRow);
+      pairRow = PointerPairTable.NO_ROW;
+    }
+  }
+
+  private static float calculateGap(
+      GesturePointersUtility gesturePointersUtility, int pointerId1, int pointerId2) {
+    return length(
+        gesturePointersUtility.getPointerX(pointerId1)
+            - gesturePointersUtility.getPointerX(pointerId2),
+        gesturePointersUtility.getPointerY(pointerId1)
+            - gesturePointersUtility.getPointerY(pointerId2));
+  }
+
   private static void debugLog(String log) {
     if (PINCH_GESTURE_DEBUG) {
       Log.d(TAG, "PinchGesture:[" + log + "]");
     }
   }
+
+  private static float length(float x, float y) {
+    return (float) Math.sqrt(x * x + y * y);
+  }
 }
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+import android.support.annotation.Nullable;
+import com.google.ar.core.Frame;
+import com.google.ar.core.Plane;
+import com.google.ar.core.Pose;
+import com.google.ar.core.TrackingState;
+import java.nio.FloatBuffer;
+import java.util.HashMap;
+
+/**
+ * Keeps a copy of the polygon of every plane, so that whether a point is inside the polygon of a
+ * plane can be answered in Java instead of calling {@link Plane#isPoseInPolygon} through JNI.
+ *
+ * <p>Call {@link #update} every frame. Only the planes that ARCore updated in the frame are copied
+ * again. Each copy holds the bounding box of the polygon and the inverse slope of each of its
+ * edges, so that most queries outside the polygon stop at the bounding box and the others only
+ * multiply and compare.
+ *
+ * <p>Only use on the main thread.
+ */
+public class PlanePolygonCache {
+  // The polygon of a plane in the space of its center pose, where the plane is y = 0, and the
+  // center pose to transform points into that space.
+  private static final class Polygon {
+    float[] xs = new float[0];
+    float[] zs = new float[0];
+    // The inverse slope dx/dz of the edge from each vertex to the previous one.
+    float[] edgeInverseSlopes = new float[0];
+    int vertexCount;
+    float minX;
+    float maxX;
+    float minZ;
+    float maxZ;
+    float tx;
+    float ty;
+    float tz;
+    float qx;
+    float qy;
+    float qz;
+    float qw;
+  }
+
+  private final HashMap<Plane, Polygon> polygons = new HashMap<>();
+
+  @Nullable private Frame frame;
+  private long frameTimestamp;
+
+  private long snapshotCount;
+
+  /**
+   * Copies the polygons of the planes that were updated in the frame, and forgets the planes that
+   * stopped being tracked or were merged into another plane.
+   */
+  public void update(Frame frame) {
+    for (Plane plane : frame.getUpdatedTrackables(Plane.class)) {
+      if (plane.getTrackingState() == TrackingState.STOPPED || plane.getSubsumedBy() != null) {
+        polygons.remove(plane);
+        continue;
+      }
+
+      snapshot(plane);
+    }
+
+    this.frame = frame;
+    frameTimestamp = frame.getTimestamp();
+  }
+
+  /**
+   * Returns true if {@link #update} was called with the frame since ARCore last updated it, so the
+   * polygons are current for it.
+   */
+  public boolean isUpToDate(Frame frame) {
+    return frame == this.frame && frame.getTimestamp() == frameTimestamp;
+  }
+
+  /**
+   * Returns true if the position of the pose, projected onto the plane, is inside the polygon of
+   * the plane, like {@link Plane#isPoseInPolygon}.
+   */
+  public boolean isPoseInPolygon(Plane plane, Pose pose) {
+    return isPointInPolygon(plane, pose.tx(), pose.ty(), pose.tz());
+  }
+
+  /**
+   * Returns true if the point in world space, projected onto the plane, is inside the polygon of
+   * the plane. Planes that haven't been seen by {@link #update} yet are copied first.
+   */
+  public boolean isPointInPolygon(Plane plane, float x, float y, float z) {
+    Polygon polygon = polygons.get(plane);
+    if (polygon == null) {
+      polygon = snapshot(plane);
+    }
+
+    // Rotate the offset from the center by the inverse of the center rotation, v + 2w(u x v) +
+    // 2u x (u x v) with u the negated vector part of the rotation. The local y is dropped, which
+    // projects the point onto the plane.
+    float dx = x - polygon.tx;
+    float dy = y - polygon.ty;
+    float dz = z - polygon.tz;
+    float ux = -polygon.qx;
+    float uy = -polygon.qy;
+    float uz = -polygon.qz;
+    float w = polygon.qw;
+    float cx = uy * dz - uz * dy;
+    float cy = uz * dx - ux * dz;
+    float cz = ux * dy - uy * dx;
+    float localX = dx + 2.0f * (w * cx + uy * cz - uz * cy);
+    float localZ = dz + 2.0f * (w * cz + ux * cy - uy * cx);
+
+    if (localX < polygon.minX
+        || localX > polygon.maxX
+        || localZ < polygon.minZ
+        || localZ > polygon.maxZ) {
+      return false;
+    }
+
+    // Count the edges crossed by a ray from the point towards +x.
+    float[] xs = polygon.xs;
+    float[] zs = polygon.zs;
+    float[] edgeInverseSlopes = polygon.edgeInverseSlopes;
+    int vertexCount = polygon.vertexCount;
+    boolean inside = false;
+    for (int i = 0, previous = vertexCount - 1; i < vertexCount; previous = i++) {
+      if ((zs[i] > localZ) != (zs[previous] > localZ)
+          && localX < xs[i] + (localZ - zs[i]) * edgeInverseSlopes[i]) {
+        inside = !inside;
+      }
+    }
+
+    return inside;
+  }
+
+  /** Returns the number of planes whose polygon is cached. */
+  public int getPlaneCount() {
+    return polygons.size();
+  }
+
+  /** Returns the number of times a polygon was copied from ARCore. */
+  public long getSnapshotCount() {
+    return snapshotCount;
+  }
+
+  /** Forgets every plane, i.e. when the session is reset. */
+  public void clear() {
+    polygons.clear();
+    frame = null;
+  }
+
+  private Polygon snapshot(Plane plane) {
+    Polygon polygon = polygons.get(plane);
+    if (polygon == null) {
+      polygon = new Polygon();
+      polygons.put(plane, polygon);
+    }
+
+    FloatBuffer buffer = plane.getPolygon();
+    buffer.rewind();
+    int vertexCount = buffer.remaining() / 2;
+    if (polygon.xs.length < vertexCount) {
+      polygon.xs = new float[vertexCount];
+      polygon.zs = new float[vertexCount];
+      polygon.edgeInverseSlopes = new float[vertexCount];
+    }
+    polygon.vertexCount = vertexCount;
+
+    float[] xs = polygon.xs;
+    float[] zs = polygon.zs;
+    polygon.minX = Float.MAX_VALUE;
+    polygon.maxX = -Float.MAX_VALUE;
+    polygon.minZ = Float.MAX_VALUE;
+    polygon.maxZ = -Float.MAX_VALUE;
+    for (int i = 0; i < vertexCount; i++) {
+      float x = buffer.get();
+      float z = buffer.get();
+      xs[i] = x;
+      zs[i] = z;
+      polygon.minX = Math.min(polygon.minX, x);
+      polygon.maxX = Math.max(polygon.maxX, x);
+      polygon.minZ = Math.min(polygon.minZ, z);
+      polygon.maxZ = Math.max(polygon.maxZ, z);
+    }
+
+    for (int i = 0, previous = vertexCount - 1; i < vertexCount; previous = i++) {
+      float deltaZ = zs[previous] - zs[i];
+      // Horizontal edges are never crossed, so their slope is never used.
+      polygon.edgeInverseSlopes[i] = deltaZ != 0.0f ? (xs[previous] - xs[i]) / deltaZ : 0.0f;
+    }
+
+    Pose centerPose = plane.getCenterPose();
+    polygon.tx = centerPose.tx();
+    polygon.ty = centerPose.ty();
+    polygon.tz = centerPose.tz();
+    polygon.qx = centerPose.qx();
+    polygon.qy = centerPose.qy();
+    polygon.qz = centerPose.qz();
+    polygon.qw = centerPose.qw();
+
+    snapshotCount++;
+    return polygon;
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+import android.view.MotionEvent;
+import java.util.Arrays;
+
+/**
+ * Table of the pointer pairs that are tracked by two-finger gesture recognizers (i.e. {@link
+ * PinchGestureRecognizer} and {@link TwistGestureRecognizer}).
+ *
+ * <p>When a pointer goes down, a row is added for each pair that it forms with the other pointers
+ * that are not retained. Recognizers mark the rows they are still evaluating as candidates instead
+ * of creating a gesture for every pair, and only create a gesture once a candidate passes its start
+ * check. Gestures keep a reference to their row until they finish. Rows are shared by every
+ * recognizer and gesture that uses the same pair, and are released once nothing uses them.
+ */
+final class PointerPairTable {
+  static final int NO_ROW = -1;
+
+  private static final int MAX_POINTER_COUNT = GesturePointersUtility.MAX_POINTER_COUNT;
+  private static final int INITIAL_CAPACITY = 8;
+
+  // Row of each pair of pointer ids, indexed by pointerId1 * MAX_POINTER_COUNT + pointerId2.
+  private final int[] pairRows = new int[MAX_POINTER_COUNT * MAX_POINTER_COUNT];
+
+  private int[] pointerIds1 = new int[INITIAL_CAPACITY];
+  private int[] pointerIds2 = new int[INITIAL_CAPACITY];
+  private int[] candidateFlags = new int[INITIAL_CAPACITY];
+  private int[] gestureCounts = new int[INITIAL_CAPACITY];
+  private boolean[] inUse = new boolean[INITIAL_CAPACITY];
+  private float[] startX1 = new float[INITIAL_CAPACITY];
+  private float[] startY1 = new float[INITIAL_CAPACITY];
+  private float[] startX2 = new float[INITIAL_CAPACITY];
+  private float[] startY2 = new float[INITIAL_CAPACITY];
+
+  private int[] freeRows = new int[INITIAL_CAPACITY];
+  private int freeRowCount;
+  private int rowCount;
+
+  private int registeredCandidateFlags;
+
+  PointerPairTable() {
+    Arrays.fill(pairRows, NO_ROW);
+  }
+
+  /**
+   * Returns a new flag that a recognizer can use to mark the rows it considers as candidates.
+   *
+   * @throws IllegalStateException if there are more than 32 recognizers using the table
+   */
+  int registerCandidateFlag() {
+    if (registeredCandidateFlags == -1) {
+      throw new IllegalStateException("Too many recognizers are using the pointer pair table.");
+    }
+
+    int flag = Integer.lowestOneBit(~registeredCandidateFlags);
+    registeredCandidateFlags |= flag;
+    return flag;
+  }
+
+  /** Returns the number of rows to iterate over, some of which may not be in use. */
+  int getRowCount() {
+    return rowCount;
+  }
+
+  boolean isInUse(int row) {
+    return inUse[row];
+  }
+
+  int getPointerId1(int row) {
+    return pointerIds1[row];
+  }
+
+  int getPointerId2(int row) {
+    return pointerIds2[row];
+  }
+
+  float getStartX1(int row) {
+    return startX1[row];
+  }
+
+  float getStartY1(int row) {
+    return startY1[row];
+  }
+
+  float getStartX2(int row) {
+    return startX2[row];
+  }
+
+  float getStartY2(int row) {
+    return startY2[row];
+  }
+
+  /**
+   * Returns the row for the pair of pointers, adding it with the current positions of the pointers
+   * in the {@link GesturePointersUtility} as the start positions if it doesn't exist yet.
+   */
+  int findOrAddRow(GesturePointersUtility gesturePointersUtility, int pointerId1, int pointerId2) {
+    int key = pointerId1 * MAX_POINTER_COUNT + pointerId2;
+    int row = pairRows[key];
+    if (row != NO_ROW) {
+      return row;
+    }
+
+    if (freeRowCount > 0) {
+      freeRowCount--;
+      row = freeRows[freeRowCount];
+    } else {
+      if (rowCount == inUse.length) {
+        grow();
+      }
+      row = rowCount;
+      rowCount++;
+    }
+
+    pairRows[key] = row;
+    inUse[row] = true;
+    pointerIds1[row] = pointerId1;
+    pointerIds2[row] = pointerId2;
+    candidateFlags[row] = 0;
+    gestureCounts[row] = 0;
+    startX1[row] = gesturePointersUtility.getPointerX(pointerId1);
+    startY1[row] = gesturePointersUtility.getPointerY(pointerId1);
+    startX2[row] = gesturePointersUtility.getPointerX(pointerId2);
+    startY2[row] = gesturePointersUtility.getPointerY(pointerId2);
+    return row;
+  }
+
+  void addCandidate(int row, int candidateFlag) {
+    candidateFlags[row] |= candidateFlag;
+  }
+
+  void removeCandidate(int row, int candidateFlag) {
+    candidateFlags[row] &= ~candidateFlag;
+    releaseIfUnused(row);
+  }
+
+  boolean isCandidate(int row, int candidateFlag) {
+    return inUse[row] && (candidateFlags[row] & candidateFlag) != 0;
+  }
+
+  boolean hasCandidates(int candidateFlag) {
+    for (int row = 0; row < rowCount; row++) {
+      if (isCandidate(row, candidateFlag)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /** Keeps the row alive while a gesture is using it. */
+  void retainRow(int row) {
+    gestureCounts[row]++;
+  }
+
+  void releaseRow(int row) {
+    gestureCounts[row]--;
+    releaseIfUnused(row);
+  }
+
+  /**
+   * Returns true if a candidate that uses the row can no longer become a gesture, because one of
+   * its pointers has been retained by another gesture or has gone up, or because the touch was
+   * cancelled.
+   */
+  boolean shouldCancelCandidate(GesturePointersUtility gesturePointersUtility, int row) {
+    int pointerId1 = pointerIds1[row];
+    int pointerId2 = pointerIds2[row];
+    if (gesturePointersUtility.isPointerIdRetained(pointerId1)
+        || gesturePointersUtility.isPointerIdRetained(pointerId2)) {
+      return true;
+    }
+
+    int action = gesturePointersUtility.getActionMasked();
+    if (action == MotionEvent.ACTION_CANCEL) {
+      return true;
+    }
+
+    int actionId = gesturePointersUtility.getActionPointerId();
+    boolean touchEnded = action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_POINTER_UP;
+    return touchEnded && (actionId == pointerId1 || actionId == pointerId2);
+  }
+
+  private void releaseIfUnused(int row) {
+    if (!inUse[row] || candidateFlags[row] != 0 || gestureCounts[row] > 0) {
+      return;
+    }
+
+    inUse[row] = false;
+    pairRows[pointerIds1[row] * MAX_POINTER_COUNT + pointerIds2[row]] = NO_ROW;
+    freeRows[freeRowCount] = row;
+    freeRowCount++;
+  }
+
+  private void grow() {
+    int newCapacity = inUse.length * 2;
+    pointerIds1 = Arrays.copyOf(pointerIds1, newCapacity);
+    pointerIds2 = Arrays.copyOf(pointerIds2, newCapacity);
+    candidateFlags = Arrays.copyOf(candidateFlags, newCapacity);
+    gestureCounts = Arrays.copyOf(gestureCounts, newCapacity);
+    inUse = Arrays.copyOf(inUse, newCapacity);
+    startX1 = Arrays.copyOf(startX1, newCapacity);
+    startY1 = Arrays.copyOf(startY1, newCapacity);
+    startX2 = Arrays.copyOf(startX2, newCapacity);
+    startY2 = Arrays.copyOf(startY2, newCapacity);
+    freeRows = Arrays.copyOf(freeRows, newCapacity);
+  }
+}
@@ -15,6 +15,8 @@
  */
 package com.google.ar.sceneform.ux;
 
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.Node;
 import com.google.ar.sceneform.math.Quaternion;
 import com.google.ar.sceneform.math.Vector3;
 
@@ -42,18 +44,29 @@ public class RotationController extends BaseTransformationController<TwistGestur
 
   @Override
   public boolean canStartTransformation(TwistGesture gesture) {
-    return getTransformableNode().isSelected();
+    return isGestureForTransformableNode(gesture);
   }
 
   @Override
   public void onContinueTransformation(TwistGesture gesture) {
-    float rotationAmount = -gesture.getDeltaRotationDegrees() * rotationRateDegrees;
+    applyDeltaRotationDegrees(gesture.getDeltaRotationDegrees());
+  }
+
+  @Override
+  public void onEndTransformation(TwistGesture gesture) {}
+
+  @Override
+  public void onUpdated(Node node, FrameTime frameTime) {
+    // Rotation is applied directly from the gesture, so there is nothing to update per frame.
+    goIdle();
+  }
+
+  /** Rotates the node around its up axis by the rotation of two fingers. */
+  void applyDeltaRotationDegrees(float deltaRotationDegrees) {
+    float rotationAmount = -deltaRotationDegrees * rotationRateDegrees;
     Quaternion rotationDelta = new Quaternion(Vector3.up(), rotationAmount);
     Quaternion localrotation = getTransformableNode().getLocalRotation();
     localrotation = Quaternion.multiply(localrotation, rotationDelta);
     getTransformableNode().setLocalRotation(localrotation);
   }
-
-  @Override
-  public void onEndTransformation(TwistGesture gesture) {}
 }
@@ -17,7 +17,6 @@ package com.google.ar.sceneform.ux;
 
 import com.google.ar.sceneform.FrameTime;
 import com.google.ar.sceneform.Node;
-import com.google.ar.sceneform.math.MathHelper;
 import com.google.ar.sceneform.math.Vector3;
 
 /**
@@ -37,9 +36,18 @@ public class ScaleController extends BaseTransformationController<PinchGesture>
   private float elasticity = DEFAULT_ELASTICITY;
 
   private float currentScaleRatio;
+  private boolean externallyTransforming;
+
+  // Bounces the scale ratio back within the min/max scale. Seeded from the scale ratio when a
+  // gesture stops scaling the node.
+  private final CriticallyDampedSpring scaleRatioSpring =
+      new CriticallyDampedSpring(1, SPRING_ANGULAR_FREQUENCY, SCALE_RATIO_TOLERANCE);
+  private boolean isScaleRatioSpringSeeded;
+  private final Vector3 finalScale = new Vector3();
 
   private static final float ELASTIC_RATIO_LIMIT = 0.8f;
-  private static final float LERP_SPEED = 8.0f;
+  private static final float SPRING_ANGULAR_FREQUENCY = 14.0f;
+  private static final float SCALE_RATIO_TOLERANCE = 0.001f;
 
   public ScaleController(
       BaseTransformableNode transformableNode, PinchGestureRecognizer gestureRecognizer) {
@@ -48,6 +56,7 @@ public class ScaleController extends BaseTransformationController<PinchGesture>
 
   public void setMinScale(float minScale) {
     this.minScale = minScale;
+    wakeUp();
   }
 
   public float getMinScale() {
@@ -56,6 +65,7 @@ public class ScaleController extends BaseTransformationController<PinchGesture>
 
   public void setMaxScale(float maxScale) {
     this.maxScale = maxScale;
+    wakeUp();
   }
 
   public float getMaxScale() {
@@ -72,6 +82,7 @@ public class ScaleController extends BaseTransformationController<PinchGesture>
 
   public void setElasticity(float elasticity) {
     this.elasticity = elasticity;
+    wakeUp();
   }
 
   public float getElasticity() {
@@ -87,32 +98,34 @@ public class ScaleController extends BaseTransformationController<PinchGesture>
 
   @Override
   public void onUpdated(Node node, FrameTime frameTime) {
-    if (isTransforming()) {
+    if (isTransforming() || externallyTransforming) {
+      isScaleRatioSpringSeeded = false;
       return;
     }
 
-    float t = MathHelper.clamp(frameTime.getDeltaSeconds() * LERP_SPEED, 0, 1);
-    currentScaleRatio = MathHelper.lerp(currentScaleRatio, getClampedScaleRatio(), t);
-    float finalScaleValue = getFinalScale();
-    Vector3 finalScale = new Vector3(finalScaleValue, finalScaleValue, finalScaleValue);
-    getTransformableNode().setLocalScale(finalScale);
+    if (!isScaleRatioSpringSeeded) {
+      scaleRatioSpring.reset(0, currentScaleRatio);
+      isScaleRatioSpringSeeded = true;
+    }
+
+    scaleRatioSpring.setTarget(0, getClampedScaleRatio());
+    boolean converged = scaleRatioSpring.update(frameTime.getDeltaSeconds());
+    currentScaleRatio = scaleRatioSpring.getValue(0);
+    updateLocalScale();
+    if (converged) {
+      isScaleRatioSpringSeeded = false;
+      goIdle();
+    }
   }
 
   @Override
   public boolean canStartTransformation(PinchGesture gesture) {
-    return getTransformableNode().isSelected();
+    return isGestureForTransformableNode(gesture);
   }
 
   @Override
   public void onContinueTransformation(PinchGesture gesture) {
-    currentScaleRatio += gesture.gapDeltaInches() * sensitivity;
-
-    float finalScaleValue = getFinalScale();
-    Vector3 finalScale = new Vector3(finalScaleValue, finalScaleValue, finalScaleValue);
-    getTransformableNode().setLocalScale(finalScale);
-
-    if (currentScaleRatio < -ELASTIC_RATIO_LIMIT
-        || currentScaleRatio > (1.0f + ELASTIC_RATIO_LIMIT)) {
+    if (!applyGapDeltaInches(gesture.gapDeltaInches())) {
       gesture.cancel();
     }
   }
@@ -120,6 +133,34 @@ public class ScaleController extends BaseTransformationController<PinchGesture>
   @Override
   public void onEndTransformation(PinchGesture gesture) {}
 
+  /**
+   * Scales the node by the change of the gap between two fingers. Returns false if the node has
+   * been scaled so far beyond the min/max scale that the gesture should be cancelled.
+   */
+  boolean applyGapDeltaInches(float gapDeltaInches) {
+    currentScaleRatio += gapDeltaInches * sensitivity;
+    updateLocalScale();
+    wakeUp();
+
+    return currentScaleRatio >= -ELASTIC_RATIO_LIMIT
+        && currentScaleRatio <= (1.0f + ELASTIC_RATIO_LIMIT);
+  }
+
+  /**
+   * Sets whether another controller is scaling the node through {@link #applyGapDeltaInches}, in
+   * which case the scale doesn't bounce back within the min/max scale until it is done.
+   */
+  void setExternallyTransforming(boolean externallyTransforming) {
+    this.externallyTransforming = externallyTransforming;
+    wakeUp();
+  }
+
+  private void updateLocalScale() {
+    float finalScaleValue = getFinalScale();
+    finalScale.set(finalScaleValue, finalScaleValue, finalScaleValue);
+    getTransformableNode().setLocalScale(finalScale);
+  }
+
   private float getScaleDelta() {
     float scaleDelta = maxScale - minScale;
 
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+/**
+ * Filters a single noisy signal of a gesture (i.e. one coordinate of the position of a {@link
+ * DragGesture}) before it is reported to the gesture's listener.
+ *
+ * <p>Filters keep their state in fields, so filtering a sample doesn't allocate. Each gesture
+ * creates its own filters from the {@link Factory} set on its recognizer with {@link
+ * BaseGestureRecognizer#setSignalFilterFactory}.
+ */
+public interface SignalFilter {
+  /** Creates the filters for each signal of a gesture. */
+  interface Factory {
+    SignalFilter createFilter();
+  }
+
+  /**
+   * Returns the filtered value of the signal for a sample taken at the given time. The first
+   * sample after the filter is reset is returned unchanged.
+   */
+  float filter(float value, long timestampMillis);
+
+  /** Clears the state of the filter so that it can be used for a new signal. */
+  void reset();
+}
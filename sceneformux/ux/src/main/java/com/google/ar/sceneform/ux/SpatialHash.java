@@ -0,0 +1,327 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+import android.support.annotation.Nullable;
+import android.util.LongSparseArray;
+import com.google.ar.sceneform.Node;
+import com.google.ar.sceneform.math.Vector3;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Uniform grid of placed {@link BaseTransformableNode}s, to find the nodes near a point without
+ * going through every node. Each node is a sphere around its world position, kept in the cell of
+ * its center and moved between cells when its transform changes.
+ *
+ * <p>A node that is moved itself is rehashed right away. A node that only moves with one of its
+ * ancestors, e.g. an {@link com.google.ar.sceneform.AnchorNode} that ARCore updates every frame, is
+ * marked as stale instead and rehashed by the next query, so that tracking updates cost nothing
+ * while the hash isn't used.
+ *
+ * <p>Queries look at the cells within the query range plus the radius of the largest node, so they
+ * stay O(1) on average as long as nodes are not much larger than a cell.
+ *
+ * <p>A {@link TransformableNode} that is inserted uses the hash to snap to its neighbours and to
+ * avoid overlapping them while it is dragged, when enabled on its {@link TranslationController}.
+ *
+ * <p>Only use on the main thread.
+ */
+public class SpatialHash {
+  private static final int CELL_COORDINATE_BITS = 21;
+  private static final long CELL_COORDINATE_MASK = (1L << CELL_COORDINATE_BITS) - 1;
+
+  /** A node in the hash, with the position and radius it was last hashed with. */
+  public static final class Item implements Node.TransformChangedListener {
+    private final SpatialHash spatialHash;
+    private final BaseTransformableNode node;
+    private final float radius;
+    private float x;
+    private float y;
+    private float z;
+    private long cellKey;
+    private boolean isStale;
+
+    private Item(SpatialHash spatialHash, BaseTransformableNode node, float radius) {
+      this.spatialHash = spatialHash;
+      this.node = node;
+      this.radius = radius;
+    }
+
+    public BaseTransformableNode getNode() {
+      return node;
+    }
+
+    public float getRadius() {
+      return radius;
+    }
+
+    public float getX() {
+      return x;
+    }
+
+    public float getY() {
+      return y;
+    }
+
+    public float getZ() {
+      return z;
+    }
+
+    @Override
+    public void onTransformChanged(Node node, Node originatingNode) {
+      if (originatingNode == node) {
+        spatialHash.moveItem(this);
+      } else {
+        spatialHash.markStale(this);
+      }
+    }
+  }
+
+  private final float cellSize;
+  private final LongSparseArray<ArrayList<Item>> cells = new LongSparseArray<>();
+  private final HashMap<BaseTransformableNode, Item> items = new HashMap<>();
+  // Items that moved with an ancestor since they were last hashed.
+  private final ArrayList<Item> staleItems = new ArrayList<>();
+  // The radius of the largest node, by which queries are extended.
+  private float maxRadius;
+
+  /** Creates a hash whose cells are cubes of the size, which should be close to the node size. */
+  public SpatialHash(float cellSizeMeters) {
+    if (cellSizeMeters <= 0.0f) {
+      throw new IllegalArgumentException("cellSizeMeters must be positive.");
+    }
+
+    cellSize = cellSizeMeters;
+  }
+
+  public float getCellSize() {
+    return cellSize;
+  }
+
+  /** Returns the number of nodes in the hash. */
+  public int size() {
+    return items.size();
+  }
+
+  /**
+   * Inserts the node as a sphere of the radius around its world position, and keeps it up to date
+   * as the node moves. Inserting a node again replaces its radius.
+   */
+  public void insert(BaseTransformableNode node, float radiusMeters) {
+    remove(node);
+
+    Item item = new Item(this, node, radiusMeters);
+    items.put(node, item);
+    maxRadius = Math.max(maxRadius, radiusMeters);
+    hashItem(item);
+    addToCell(item);
+    node.addTransformChangedListener(item);
+
+    if (node instanceof TransformableNode) {
+      ((TransformableNode) node).getTranslationController().setSpatialHash(this);
+    }
+  }
+
+  /** Removes the node from the hash. */
+  public void remove(BaseTransformableNode node) {
+    Item item = items.remove(node);
+    if (item == null) {
+      return;
+    }
+
+    node.removeTransformChangedListener(item);
+    removeFromCell(item);
+    if (item.isStale) {
+      staleItems.remove(item);
+    }
+    if (node instanceof TransformableNode) {
+      ((TransformableNode) node).getTranslationController().setSpatialHash(null);
+    }
+
+    if (item.radius >= maxRadius) {
+      maxRadius = 0.0f;
+      for (Item other : items.values()) {
+        maxRadius = Math.max(maxRadius, other.radius);
+      }
+    }
+  }
+
+  /** Returns the item of the node, or null if the node isn't in the hash. */
+  @Nullable
+  public Item getItem(BaseTransformableNode node) {
+    Item item = items.get(node);
+    if (item != null && item.isStale) {
+      rehashStaleItems();
+    }
+    return item;
+  }
+
+  /**
+   * Adds the items whose sphere intersects the sphere of the radius around the point to the list.
+   * Returns the number of items added.
+   */
+  public int queryRadius(float x, float y, float z, float radius, List<Item> out) {
+    rehashStaleItems();
+
+    float range = radius + maxRadius;
+    int minCellX = toCell(x - range);
+    int maxCellX = toCell(x + range);
+    int minCellY = toCell(y - range);
+    int maxCellY = toCell(y + range);
+    int minCellZ = toCell(z - range);
+    int maxCellZ = toCell(z + range);
+
+    int count = 0;
+    for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+      for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+        for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+          ArrayList<Item> cell = cells.get(toCellKey(cellX, cellY, cellZ));
+          if (cell == null) {
+            continue;
+          }
+
+          for (int i = 0; i < cell.size(); i++) {
+            Item item = cell.get(i);
+            float dx = item.x - x;
+            float dy = item.y - y;
+            float dz = item.z - z;
+            float reach = radius + item.radius;
+            if (dx * dx + dy * dy + dz * dz <= reach * reach) {
+              out.add(item);
+              count++;
+            }
+          }
+        }
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * Adds the items whose sphere intersects the axis-aligned box to the list. Returns the number of
+   * items added.
+   */
+  public int queryBox(
+      float minX, float minY, float minZ, float maxX, float maxY, float maxZ, List<Item> out) {
+    rehashStaleItems();
+
+    int minCellX = toCell(minX - maxRadius);
+    int maxCellX = toCell(maxX + maxRadius);
+    int minCellY = toCell(minY - maxRadius);
+    int maxCellY = toCell(maxY + maxRadius);
+    int minCellZ = toCell(minZ - maxRadius);
+    int maxCellZ = toCell(maxZ + maxRadius);
+
+    int count = 0;
+    for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+      for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+        for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+          ArrayList<Item> cell = cells.get(toCellKey(cellX, cellY, cellZ));
+          if (cell == null) {
+            continue;
+          }
+
+          for (int i = 0; i < cell.size(); i++) {
+            Item item = cell.get(i);
+            // The distance from the center of the sphere to the closest point of the box.
+            float dx = item.x - Math.max(minX, Math.min(item.x, maxX));
+            float dy = item.y - Math.max(minY, Math.min(item.y, maxY));
+            float dz = item.z - Math.max(minZ, Math.min(item.z, maxZ));
+            if (dx * dx + dy * dy + dz * dz <= item.radius * item.radius) {
+              out.add(item);
+              count++;
+            }
+          }
+        }
+      }
+    }
+
+    return count;
+  }
+
+  private void markStale(Item item) {
+    if (!item.isStale) {
+      item.isStale = true;
+      staleItems.add(item);
+    }
+  }
+
+  private void rehashStaleItems() {
+    for (int i = 0; i < staleItems.size(); i++) {
+      Item item = staleItems.get(i);
+      item.isStale = false;
+      moveItem(item);
+    }
+    staleItems.clear();
+  }
+
+  private void moveItem(Item item) {
+    long previousCellKey = item.cellKey;
+    hashItem(item);
+    if (item.cellKey == previousCellKey) {
+      return;
+    }
+
+    removeFromCell(item, previousCellKey);
+    addToCell(item);
+  }
+
+  private void hashItem(Item item) {
+    Vector3 position = item.node.getWorldPosition();
+    item.x = position.x;
+    item.y = position.y;
+    item.z = position.z;
+    item.cellKey = toCellKey(toCell(item.x), toCell(item.y), toCell(item.z));
+  }
+
+  private void addToCell(Item item) {
+    ArrayList<Item> cell = cells.get(item.cellKey);
+    if (cell == null) {
+      cell = new ArrayList<>(4);
+      cells.put(item.cellKey, cell);
+    }
+    cell.add(item);
+  }
+
+  private void removeFromCell(Item item) {
+    removeFromCell(item, item.cellKey);
+  }
+
+  private void removeFromCell(Item item, long cellKey) {
+    ArrayList<Item> cell = cells.get(cellKey);
+    if (cell == null) {
+      return;
+    }
+
+    cell.remove(item);
+    if (cell.isEmpty()) {
+      cells.remove(cellKey);
+    }
+  }
+
+  private int toCell(float coordinate) {
+    return (int) Math.floor(coordinate / cellSize);
+  }
+
+  private static long toCellKey(int cellX, int cellY, int cellZ) {
+    return ((cellX & CELL_COORDINATE_MASK) << (2 * CELL_COORDINATE_BITS))
+        | ((cellY & CELL_COORDINATE_MASK) << CELL_COORDINATE_BITS)
+        | (cellZ & CELL_COORDINATE_MASK);
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+import android.support.annotation.Nullable;
+import android.view.MotionEvent;
+import com.google.ar.sceneform.HitTestResult;
+import com.google.ar.sceneform.Node;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free single-producer/single-consumer ring of touch events.
+ *
+ * <p>{@link #offer} copies the pointer ids, positions, historical samples and times of an event
+ * into a preallocated slot, so that the thread receiving touch events only pays for a copy. {@link
+ * #poll(HitTestResult)} rebuilds the events in the order they were offered. One thread may offer
+ * events while another one polls them.
+ */
+final class TouchEventQueue {
+  private static final int MAX_POINTER_COUNT = GesturePointersUtility.MAX_POINTER_COUNT;
+  private static final int INITIAL_SAMPLE_CAPACITY = 4;
+
+  // A touch event copied into the ring.
+  private static final class Slot {
+    final int[] pointerIds = new int[MAX_POINTER_COUNT];
+    long[] sampleTimes = new long[INITIAL_SAMPLE_CAPACITY];
+    // Positions of each pointer for each sample, ordered by sample then pointer index, x then y.
+    float[] coords = new float[INITIAL_SAMPLE_CAPACITY * 2 * 2];
+    @Nullable Node hitNode;
+    // The node that the pointer of a down action was bound to, and its transformable node.
+    @Nullable Node boundNode;
+    @Nullable BaseTransformableNode boundNodeOwner;
+    long downTime;
+    int action;
+    int pointerCount;
+    int sampleCount;
+  }
+
+  private final Slot[] slots;
+  private final int mask;
+
+  // Number of events offered and polled so far. The producer only writes head and the consumer
+  // only writes tail, and each publishes its slots to the other.
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong tail = new AtomicLong();
+
+  // Only used by the consumer.
+  @Nullable private Node polledBoundNode;
+  @Nullable private BaseTransformableNode polledBoundNodeOwner;
+  private final MotionEvent.PointerProperties[] pointerProperties =
+      new MotionEvent.PointerProperties[MAX_POINTER_COUNT];
+  private final MotionEvent.PointerCoords[] pointerCoords =
+      new MotionEvent.PointerCoords[MAX_POINTER_COUNT];
+
+  /**
+   * Creates a queue that holds up to the given number of events.
+   *
+   * @throws IllegalArgumentException if the capacity is not a positive power of two
+   */
+  TouchEventQueue(int capacity) {
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a positive power of two: " + capacity);
+    }
+
+    slots = new Slot[capacity];
+    for (int i = 0; i < capacity; i++) {
+      slots[i] = new Slot();
+    }
+    mask = capacity - 1;
+
+    for (int i = 0; i < MAX_POINTER_COUNT; i++) {
+      pointerProperties[i] = new MotionEvent.PointerProperties();
+      pointerCoords[i] = new MotionEvent.PointerCoords();
+    }
+  }
+
+  /** Returns true if there are no events waiting to be polled. */
+  boolean isEmpty() {
+    return tail.get() == head.get();
+  }
+
+  /**
+   * Copies the event, the node that it hit and the node that the pointer of a down action is bound
+   * to into the queue. Must only be called by the producer.
+   *
+   * @return false if the queue is full, in which case the event was not copied
+   */
+  boolean offer(
+      @Nullable Node hitNode,
+      @Nullable Node boundNode,
+      @Nullable BaseTransformableNode boundNodeOwner,
+      MotionEvent motionEvent) {
+    long currentHead = head.get();
+    if (currentHead - tail.get() == slots.length) {
+      return false;
+    }
+
+    Slot slot = slots[(int) currentHead & mask];
+    int pointerCount = Math.min(motionEvent.getPointerCount(), MAX_POINTER_COUNT);
+    int historySize = motionEvent.getHistorySize();
+    int sampleCount = historySize + 1;
+    if (slot.sampleTimes.length < sampleCount) {
+      slot.sampleTimes = Arrays.copyOf(slot.sampleTimes, sampleCount * 2);
+    }
+    if (slot.coords.length < sampleCount * pointerCount * 2) {
+      slot.coords = Arrays.copyOf(slot.coords, sampleCount * pointerCount * 4);
+    }
+
+    slot.hitNode = hitNode;
+    slot.boundNode = boundNode;
+    slot.boundNodeOwner = boundNodeOwner;
+    slot.downTime = motionEvent.getDownTime();
+    slot.action = motionEvent.getAction();
+    slot.pointerCount = pointerCount;
+    slot.sampleCount = sampleCount;
+    for (int i = 0; i < pointerCount; i++) {
+      slot.pointerIds[i] = motionEvent.getPointerId(i);
+    }
+
+    int offset = 0;
+    for (int h = 0; h < historySize; h++) {
+      slot.sampleTimes[h] = motionEvent.getHistoricalEventTime(h);
+      for (int i = 0; i < pointerCount; i++) {
+        slot.coords[offset++] = motionEvent.getHistoricalX(i, h);
+        slot.coords[offset++] = motionEvent.getHistoricalY(i, h);
+      }
+    }
+    slot.sampleTimes[historySize] = motionEvent.getEventTime();
+    for (int i = 0; i < pointerCount; i++) {
+      slot.coords[offset++] = motionEvent.getX(i);
+      slot.coords[offset++] = motionEvent.getY(i);
+    }
+
+    // A volatile rather than an ordered store, so that a consumer that checks that the queue is
+    // empty before going to sleep can't miss the event (see TouchInputThread).
+    head.set(currentHead + 1);
+    return true;
+  }
+
+  /**
+   * Rebuilds the oldest event in the queue and removes it. Must only be called by the consumer.
+   *
+   * @param outHitTestResult set to the node that the event hit when it was offered
+   * @return the event, which the caller must recycle, or null if the queue is empty
+   */
+  @Nullable
+  MotionEvent poll(HitTestResult outHitTestResult) {
+    long currentTail = tail.get();
+    if (currentTail == head.get()) {
+      return null;
+    }
+
+    Slot slot = slots[(int) currentTail & mask];
+    int pointerCount = slot.pointerCount;
+    for (int i = 0; i < pointerCount; i++) {
+      pointerProperties[i].clear();
+      pointerProperties[i].id = slot.pointerIds[i];
+    }
+
+    // The first sample creates the event, and the remaining samples are added as batches so that
+    // the historical samples are kept.
+    MotionEvent motionEvent = null;
+    int offset = 0;
+    for (int h = 0; h < slot.sampleCount; h++) {
+      for (int i = 0; i < pointerCount; i++) {
+        pointerCoords[i].clear();
+        pointerCoords[i].x = slot.coords[offset++];
+        pointerCoords[i].y = slot.coords[offset++];
+      }
+
+      if (motionEvent == null) {
+        motionEvent =
+            MotionEvent.obtain(
+                slot.downTime,
+                slot.sampleTimes[h],
+                slot.action,
+                pointerCount,
+                pointerProperties,
+                pointerCoords,
+                0,
+                0,
+                1.0f,
+                1.0f,
+                0,
+                0,
+                0,
+                0);
+      } else {
+        motionEvent.addBatch(slot.sampleTimes[h], pointerCoords, 0);
+      }
+    }
+
+    outHitTestResult.setNode(slot.hitNode);
+    polledBoundNode = slot.boundNode;
+    polledBoundNodeOwner = slot.boundNodeOwner;
+    // Don't keep the nodes alive after the event is consumed.
+    slot.hitNode = null;
+    slot.boundNode = null;
+    slot.boundNodeOwner = null;
+
+    tail.lazySet(currentTail + 1);
+    return motionEvent;
+  }
+
+  /** Returns the node that the pointer of the last polled event was bound to. */
+  @Nullable
+  Node getPolledBoundNode() {
+    return polledBoundNode;
+  }
+
+  /** Returns the transformable node of the node returned by {@link #getPolledBoundNode()}. */
+  @Nullable
+  BaseTransformableNode getPolledBoundNodeOwner() {
+    return polledBoundNodeOwner;
+  }
+
+  /** Drops the references to the nodes of the last polled event. */
+  void clearPolledNodes() {
+    polledBoundNode = null;
+    polledBoundNodeOwner = null;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Thread that recognizes the gestures of the touch events queued by a {@link TransformationSystem},
+ * and sleeps while the queue is empty.
+ */
+final class TouchInputThread extends Thread {
+  private static final String THREAD_NAME = "SceneformTouchInput";
+
+  private final TransformationSystem transformationSystem;
+  private final TouchEventQueue touchEventQueue;
+  private volatile boolean idle;
+  private volatile boolean quitting;
+
+  TouchInputThread(TransformationSystem transformationSystem, TouchEventQueue touchEventQueue) {
+    super(THREAD_NAME);
+    this.transformationSystem = transformationSystem;
+    this.touchEventQueue = touchEventQueue;
+    setDaemon(true);
+  }
+
+  @Override
+  public void run() {
+    while (!quitting) {
+      if (transformationSystem.processQueuedTouchEventOnInputThread()) {
+        continue;
+      }
+
+      // The flag is set before the queue is checked again, and the producer checks the flag after
+      // publishing an event, so an event is either seen here or wakes the thread up.
+      idle = true;
+      if (touchEventQueue.isEmpty() && !quitting) {
+        LockSupport.park(this);
+      }
+      idle = false;
+    }
+  }
+
+  /** Wakes the thread up if it is waiting for touch events. Called after an event is queued. */
+  void wake() {
+    if (idle) {
+      LockSupport.unpark(this);
+    }
+  }
+
+  /** Makes the thread return once it is done with the event it is processing. */
+  void quit() {
+    quitting = true;
+    LockSupport.unpark(this);
+  }
+}
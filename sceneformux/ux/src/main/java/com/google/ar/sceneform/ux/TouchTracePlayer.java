@@ -0,0 +1,222 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+import android.support.annotation.Nullable;
+import android.view.MotionEvent;
+import com.google.ar.sceneform.HitTestResult;
+import com.google.ar.sceneform.Node;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+
+/**
+ * Replays a trace written by {@link TouchTraceRecorder} through a {@link TransformationSystem}.
+ *
+ * <p>Events are dispatched as fast as they can be read, in the order they were recorded. The player
+ * doesn't depend on the wall clock, so replaying a trace is deterministic and can be used for
+ * benchmarks and for regression tests of gesture behavior without a device.
+ *
+ * <p>The player is also a {@link GestureLatencyMonitor.Clock} whose time is the time of the event
+ * that is being replayed. A monitor created with the player as its clock measures latencies in
+ * the time of the trace rather than against the wall clock, which is unrelated to the recorded
+ * event times. The stages of a touch event are then measured as taking no time, and {@link
+ * GestureLatencyMonitor.Stage#FRAME_RENDERED} as the time of the trace between the event and the
+ * next call to {@link GestureLatencyMonitor#onUpdate} made while replaying.
+ */
+public class TouchTracePlayer implements Closeable, GestureLatencyMonitor.Clock {
+  /** Resolves the nodes that were hit when the trace was recorded. */
+  public interface NodeResolver {
+    /**
+     * Returns the node to use when replaying events that hit the recorded node, or null if the
+     * event should be replayed as a touch that didn't hit a node.
+     *
+     * @param nodeId the id that the recorder assigned to the node
+     * @param nodeName the name of the node when it was recorded, empty if it had no name
+     */
+    @Nullable
+    Node resolveNode(int nodeId, String nodeName);
+  }
+
+  private final DataInputStream in;
+  private final NodeResolver nodeResolver;
+  private final ArrayList<Node> resolvedNodes = new ArrayList<>();
+  private final HitTestResult hitTestResult = new HitTestResult();
+
+  private final MotionEvent.PointerProperties[] pointerProperties =
+      new MotionEvent.PointerProperties[GesturePointersUtility.MAX_POINTER_COUNT];
+  private final MotionEvent.PointerCoords[] pointerCoords =
+      new MotionEvent.PointerCoords[GesturePointersUtility.MAX_POINTER_COUNT];
+
+  private long eventTime;
+  private int eventCount;
+
+  public TouchTracePlayer(InputStream inputStream, NodeResolver nodeResolver) throws IOException {
+    this.nodeResolver = nodeResolver;
+    in = new DataInputStream(new BufferedInputStream(inputStream));
+
+    if (in.readInt() != TouchTraceRecorder.MAGIC) {
+      throw new IOException("Not a touch trace.");
+    }
+
+    int version = in.readShort();
+    if (version != TouchTraceRecorder.VERSION) {
+      throw new IOException("Unsupported touch trace version: " + version);
+    }
+
+    for (int i = 0; i < GesturePointersUtility.MAX_POINTER_COUNT; i++) {
+      pointerProperties[i] = new MotionEvent.PointerProperties();
+      pointerCoords[i] = new MotionEvent.PointerCoords();
+    }
+  }
+
+  /** Returns the event time of the last replayed event. */
+  public long getEventTime() {
+    return eventTime;
+  }
+
+  /** Returns the event time of the event that is being replayed, or that was replayed last. */
+  @Override
+  public long uptimeMillis() {
+    return eventTime;
+  }
+
+  /** Returns the number of events replayed so far. */
+  public int getEventCount() {
+    return eventCount;
+  }
+
+  /**
+   * Replays the next event of the trace.
+   *
+   * @return false if the end of the trace was reached
+   */
+  public boolean replayNext(TransformationSystem transformationSystem) throws IOException {
+    while (true) {
+      int recordType = in.read();
+      if (recordType == -1) {
+        return false;
+      }
+
+      switch (recordType) {
+        case TouchTraceRecorder.RECORD_NODE:
+          readNode();
+          break;
+        case TouchTraceRecorder.RECORD_EVENT:
+          replayEvent(transformationSystem);
+          return true;
+        default:
+          throw new IOException("Unknown touch trace record: " + recordType);
+      }
+    }
+  }
+
+  /**
+   * Replays every remaining event of the trace.
+   *
+   * @return the number of events that were replayed
+   */
+  public int replayAll(TransformationSystem transformationSystem) throws IOException {
+    int count = 0;
+    while (replayNext(transformationSystem)) {
+      count++;
+    }
+    return count;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  private void readNode() throws IOException {
+    int nodeId = in.readInt();
+    String nodeName = in.readUTF();
+    if (nodeId != resolvedNodes.size()) {
+      throw new IOException("Unexpected node id in touch trace: " + nodeId);
+    }
+
+    resolvedNodes.add(nodeResolver.resolveNode(nodeId, nodeName));
+  }
+
+  private void replayEvent(TransformationSystem transformationSystem) throws IOException {
+    long downTime = in.readLong();
+    eventTime = in.readLong();
+    int action = in.readInt();
+    int nodeId = in.readInt();
+    int pointerCount = in.readUnsignedByte();
+    if (pointerCount > GesturePointersUtility.MAX_POINTER_COUNT) {
+      throw new IOException("Too many pointers in touch trace: " + pointerCount);
+    }
+
+    for (int i = 0; i < pointerCount; i++) {
+      pointerProperties[i].clear();
+      pointerProperties[i].id = in.readUnsignedByte();
+    }
+
+    // The first sample creates the event, and the remaining samples are added as batches so that
+    // the historical samples are replayed as well.
+    MotionEvent motionEvent = null;
+    int historySize = in.readUnsignedShort();
+    for (int h = 0; h <= historySize; h++) {
+      long sampleTime = h < historySize ? in.readLong() : eventTime;
+      for (int i = 0; i < pointerCount; i++) {
+        pointerCoords[i].clear();
+        pointerCoords[i].x = in.readFloat();
+        pointerCoords[i].y = in.readFloat();
+      }
+
+      if (motionEvent == null) {
+        motionEvent =
+            MotionEvent.obtain(
+                downTime,
+                sampleTime,
+                action,
+                pointerCount,
+                pointerProperties,
+                pointerCoords,
+                0,
+                0,
+                1.0f,
+                1.0f,
+                0,
+                0,
+                0,
+                0);
+      } else {
+        motionEvent.addBatch(sampleTime, pointerCoords, 0);
+      }
+    }
+
+    if (nodeId < TouchTraceRecorder.NO_NODE_ID || nodeId >= resolvedNodes.size()) {
+      throw new IOException("Unknown node id in touch trace: " + nodeId);
+    }
+
+    Node node = nodeId == TouchTraceRecorder.NO_NODE_ID ? null : resolvedNodes.get(nodeId);
+    hitTestResult.setNode(node);
+
+    try {
+      transformationSystem.onTouch(hitTestResult, motionEvent);
+    } finally {
+      motionEvent.recycle();
+    }
+
+    eventCount++;
+  }
+}
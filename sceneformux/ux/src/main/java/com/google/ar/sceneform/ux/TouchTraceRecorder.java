@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+import android.support.annotation.Nullable;
+import android.util.Log;
+import android.view.MotionEvent;
+import com.google.ar.sceneform.HitTestResult;
+import com.google.ar.sceneform.Node;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.IdentityHashMap;
+
+/**
+ * Records the touch events dispatched to a {@link TransformationSystem} into a compact binary trace
+ * that can be replayed with {@link TouchTracePlayer}.
+ *
+ * <p>Attach the recorder with {@link TransformationSystem#setTouchTraceRecorder}. Every event is
+ * written with its times, action, pointer ids and coordinates (including batched historical
+ * samples), and the id of the node that was hit. Each node is given an id the first time it is hit,
+ * and a record with the id and the name of the node is written so that the node can be resolved
+ * again when the trace is replayed.
+ */
+public class TouchTraceRecorder implements Closeable {
+  private static final String TAG = TouchTraceRecorder.class.getSimpleName();
+
+  static final int MAGIC = 0x53465454;
+  static final int VERSION = 1;
+  static final int RECORD_NODE = 1;
+  static final int RECORD_EVENT = 2;
+  static final int NO_NODE_ID = -1;
+
+  private final DataOutputStream out;
+  private final IdentityHashMap<Node, Integer> nodeIds = new IdentityHashMap<>();
+  private boolean failed;
+
+  public TouchTraceRecorder(OutputStream outputStream) throws IOException {
+    out = new DataOutputStream(new BufferedOutputStream(outputStream));
+    out.writeInt(MAGIC);
+    out.writeShort(VERSION);
+  }
+
+  /**
+   * Writes the event to the trace. If writing fails, the error is logged and the recorder stops
+   * recording.
+   */
+  public void record(HitTestResult hitTestResult, MotionEvent motionEvent) {
+    if (failed) {
+      return;
+    }
+
+    try {
+      int nodeId = getNodeId(hitTestResult.getNode());
+      writeEvent(nodeId, motionEvent);
+    } catch (IOException e) {
+      Log.e(TAG, "Unable to write touch trace, recording stopped.", e);
+      failed = true;
+    }
+  }
+
+  /** Returns false if writing the trace failed. */
+  public boolean isRecording() {
+    return !failed;
+  }
+
+  /** Returns the id that was written to the trace for the node, or -1 if it was never hit. */
+  public int getRecordedNodeId(@Nullable Node node) {
+    Integer nodeId = node == null ? null : nodeIds.get(node);
+    return nodeId == null ? NO_NODE_ID : nodeId;
+  }
+
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+
+  private int getNodeId(@Nullable Node node) throws IOException {
+    if (node == null) {
+      return NO_NODE_ID;
+    }
+
+    Integer nodeId = nodeIds.get(node);
+    if (nodeId != null) {
+      return nodeId;
+    }
+
+    int newNodeId = nodeIds.size();
+    nodeIds.put(node, newNodeId);
+
+    String name = node.getName();
+    out.writeByte(RECORD_NODE);
+    out.writeInt(newNodeId);
+    out.writeUTF(name == null ? "" : name);
+    return newNodeId;
+  }
+
+  private void writeEvent(int nodeId, MotionEvent motionEvent) throws IOException {
+    int pointerCount = motionEvent.getPointerCount();
+    int historySize = motionEvent.getHistorySize();
+
+    out.writeByte(RECORD_EVENT);
+    out.writeLong(motionEvent.getDownTime());
+    out.writeLong(motionEvent.getEventTime());
+    out.writeInt(motionEvent.getAction());
+    out.writeInt(nodeId);
+    out.writeByte(pointerCount);
+    for (int i = 0; i < pointerCount; i++) {
+      out.writeByte(motionEvent.getPointerId(i));
+    }
+
+    out.writeShort(historySize);
+    for (int h = 0; h < historySize; h++) {
+      out.writeLong(motionEvent.getHistoricalEventTime(h));
+      for (int i = 0; i < pointerCount; i++) {
+        out.writeFloat(motionEvent.getHistoricalX(i, h));
+        out.writeFloat(motionEvent.getHistoricalY(i, h));
+      }
+    }
+
+    for (int i = 0; i < pointerCount; i++) {
+      out.writeFloat(motionEvent.getX(i));
+      out.writeFloat(motionEvent.getY(i));
+    }
+  }
+}
@@ -23,6 +23,7 @@ public class TransformableNode extends BaseTransformableNode {
   private final TranslationController translationController;
   private final ScaleController scaleController;
   private final RotationController rotationController;
+  private final TwoFingerTransformationController twoFingerTransformationController;
 
   @SuppressWarnings("initialization") // Suppress @UnderInitialization warning.
   public TransformableNode(TransformationSystem transformationSystem) {
@@ -37,6 +38,14 @@ public class TransformableNode extends BaseTransformableNode {
 
     rotationController = new RotationController(this, transformationSystem.getTwistRecognizer());
     addTransformationController(rotationController);
+
+    twoFingerTransformationController =
+        new TwoFingerTransformationController(
+            this,
+            transformationSystem.getTwoFingerRecognizer(),
+            scaleController,
+            rotationController);
+    addTransformationController(twoFingerTransformationController);
   }
 
   /** Returns the controller that translates this node using a drag gesture. */
@@ -53,4 +62,12 @@ public class TransformableNode extends BaseTransformableNode {
   public RotationController getRotationController() {
     return rotationController;
   }
+
+  /**
+   * Returns the controller that scales and rotates this node at the same time using a two-finger
+   * gesture, when fused two-finger gestures are enabled in the {@link TransformationSystem}.
+   */
+  public TwoFingerTransformationController getTwoFingerTransformationController() {
+    return twoFingerTransformationController;
+  }
 }
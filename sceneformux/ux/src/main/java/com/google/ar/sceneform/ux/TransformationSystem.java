@@ -18,8 +18,15 @@ package com.google.ar.sceneform.ux;
 import android.support.annotation.Nullable;
 import android.util.DisplayMetrics;
 import android.view.MotionEvent;
+import com.google.ar.sceneform.FrameTime;
 import com.google.ar.sceneform.HitTestResult;
+import com.google.ar.sceneform.Node;
+import com.google.ar.sceneform.Scene;
+import com.google.ar.sceneform.collision.Ray;
+import com.google.ar.sceneform.utilities.Preconditions;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Coordinates which {@link BaseTransformableNode} is currently selected. Also, detects various
@@ -29,17 +36,41 @@ import java.util.ArrayList;
  * default, this is done automatically by {@link ArFragment}.
  */
 public class TransformationSystem implements TransformationGestureDetector {
+  private static final int TOUCH_EVENT_QUEUE_CAPACITY = 64;
+  private static final int GESTURE_INTENT_QUEUE_CAPACITY = 256;
+  private static final long INPUT_THREAD_JOIN_MILLIS = 1;
+
   private final GesturePointersUtility gesturePointersUtility;
 
   private final DragGestureRecognizer dragGestureRecognizer;
   private final PinchGestureRecognizer pinchGestureRecognizer;
   private final TwistGestureRecognizer twistGestureRecognizer;
+  private final TwoFingerGestureRecognizer twoFingerGestureRecognizer;
 
   private final ArrayList<BaseGestureRecognizer<?>> recognizers = new ArrayList<>();
+  private final HitTestCache hitTestCache = new HitTestCache();
 
   private SelectionVisualizer selectionVisualizer;
 
   @Nullable private BaseTransformableNode selectedNode;
+  private final ArrayList<BaseTransformableNode> selectedNodes = new ArrayList<>();
+  private final List<BaseTransformableNode> unmodifiableSelectedNodes =
+      Collections.unmodifiableList(selectedNodes);
+  private boolean multiSelectEnabled;
+  @Nullable private Scene scene;
+
+  @Nullable private TouchTraceRecorder touchTraceRecorder;
+  @Nullable private GestureLatencyMonitor gestureLatencyMonitor;
+  private boolean updatesCoalesced;
+  @Nullable private TouchEventQueue touchEventQueue;
+  private final HitTestResult queuedHitTestResult = new HitTestResult();
+  @Nullable private TouchInputThread inputThread;
+  // Created when the input thread is first enabled, and kept until the gestures that were
+  // recognized on it have finished.
+  @Nullable private GestureIntentQueue gestureIntentQueue;
+  private final GestureIntentQueue.Intent polledGestureIntent = new GestureIntentQueue.Intent();
+  // Only used by the input thread.
+  private final HitTestResult inputThreadHitTestResult = new HitTestResult();
 
   @SuppressWarnings("initialization")
   public TransformationSystem(
@@ -56,22 +87,26 @@ public class TransformationSystem implements TransformationGestureDetector {
 
     twistGestureRecognizer = new TwistGestureRecognizer(gesturePointersUtility);
     addGestureRecognizer(twistGestureRecognizer);
+
+    // Only dispatched to once fused two-finger gestures are enabled.
+    twoFingerGestureRecognizer = new TwoFingerGestureRecognizer(gesturePointersUtility);
+    twoFingerGestureRecognizer.setTransformationSystem(this);
   }
 
   /**
    * Sets the selection visualizer used to visualize which {@link BaseTransformableNode} is
-   * currently selected. If there is already a selected node, then the old selection visual is
-   * removed and the new one is applied immediately.
+   * currently selected. If there are already selected nodes, then the old selection visuals are
+   * removed and the new ones are applied immediately.
    */
   public void setSelectionVisualizer(SelectionVisualizer selectionVisualizer) {
-    if (selectedNode != null) {
-      this.selectionVisualizer.removeSelectionVisual(selectedNode);
+    for (int i = 0; i < selectedNodes.size(); i++) {
+      this.selectionVisualizer.removeSelectionVisual(selectedNodes.get(i));
     }
 
     this.selectionVisualizer = selectionVisualizer;
 
-    if (selectedNode != null) {
-      this.selectionVisualizer.applySelectionVisual(selectedNode);
+    for (int i = 0; i < selectedNodes.size(); i++) {
+      this.selectionVisualizer.applySelectionVisual(selectedNodes.get(i));
     }
   }
 
@@ -127,50 +162,595 @@ public class TransformationSystem implements TransformationGestureDetector {
     return twistGestureRecognizer;
   }
 
+  /**
+   * Gets the gesture recognizer for determining when the user pinches, twists or pans with two
+   * fingers on the touch screen, which only receives touch events while fused two-finger gestures
+   * are enabled.
+   *
+   * @see #setFusedTwoFingerGesturesEnabled(boolean)
+   */
+  public TwoFingerGestureRecognizer getTwoFingerRecognizer() {
+    return twoFingerGestureRecognizer;
+  }
+
+  /**
+   * Sets whether two-finger motions are recognized as one {@link TwoFingerGesture} instead of
+   * separate {@link PinchGesture}s and {@link TwistGesture}s. Fused gestures let a node be scaled
+   * and rotated at the same time, instead of only by whichever gesture retains the pointers first.
+   * Should be changed while no gestures are in progress. Disabled by default.
+   */
+  public void setFusedTwoFingerGesturesEnabled(boolean enabled) {
+    if (enabled == isFusedTwoFingerGesturesEnabled()) {
+      return;
+    }
+
+    checkInputThreadDisabled();
+
+    if (enabled) {
+      recognizers.remove(pinchGestureRecognizer);
+      recognizers.remove(twistGestureRecognizer);
+      recognizers.add(twoFingerGestureRecognizer);
+      applyRecognizerSettings(twoFingerGestureRecognizer);
+    } else {
+      recognizers.remove(twoFingerGestureRecognizer);
+      recognizers.add(pinchGestureRecognizer);
+      recognizers.add(twistGestureRecognizer);
+      applyRecognizerSettings(pinchGestureRecognizer);
+      applyRecognizerSettings(twistGestureRecognizer);
+    }
+  }
+
+  public boolean isFusedTwoFingerGesturesEnabled() {
+    return recognizers.contains(twoFingerGestureRecognizer);
+  }
+
   /**
    * Adds a gesture recognizer to this transformation system. Touch events will be dispatched to the
    * recognizer when {@link #onTouch(HitTestResult, MotionEvent)} is called.
+   *
+   * <p>Events are only dispatched to the recognizer while it can act on them. Custom recognizers
+   * can declare which events they are interested in by overriding {@link
+   * BaseGestureRecognizer#getMinimumPointerCount()} and {@link
+   * BaseGestureRecognizer#createsGesturesOnlyOnPointerDown()}.
    */
   public void addGestureRecognizer(BaseGestureRecognizer<?> gestureRecognizer) {
+    checkInputThreadDisabled();
     recognizers.add(gestureRecognizer);
+    gestureRecognizer.setTransformationSystem(this);
+    if (gestureLatencyMonitor != null) {
+      gestureRecognizer.setLatencyMonitor(gestureLatencyMonitor);
+    }
+    if (updatesCoalesced) {
+      gestureRecognizer.setUpdatesCoalesced(true);
+    }
+  }
+
+  /**
+   * Sets whether the gestures of every recognizer in this transformation system combine their
+   * updates and dispatch them at most once per frame, from {@link #onUpdate(FrameTime)}. This
+   * bounds the work done by transformation controllers to once per frame no matter how many touch
+   * events arrive. Applies to gestures created after this is called. Disabled by default.
+   *
+   * @see BaseGesture#setUpdatesCoalesced(boolean)
+   */
+  public void setUpdatesCoalesced(boolean coalesced) {
+    updatesCoalesced = coalesced;
+    for (int i = 0; i < recognizers.size(); i++) {
+      recognizers.get(i).setUpdatesCoalesced(coalesced);
+    }
+  }
+
+  public boolean isUpdatesCoalesced() {
+    return updatesCoalesced;
+  }
+
+  /**
+   * Processes the queued touch events when touch processing is deferred, then dispatches the
+   * combined updates of gestures when updates are coalesced. When the input thread is enabled,
+   * dispatches the gestures that it recognized since the last call instead. Must be called once
+   * per frame, before the nodes are updated, for any of these modes to deliver gestures. By
+   * default, this is done automatically by {@link ArFragment}.
+   */
+  public void onUpdate(FrameTime frameTime) {
+    if (inputThread == null) {
+      processQueuedTouchEvents();
+
+      for (int i = 0; i < recognizers.size(); i++) {
+        recognizers.get(i).flushPendingUpdates();
+      }
+    }
+
+    processGestureIntents();
+  }
+
+  /**
+   * Gets the cache of ARCore hit tests shared by the transformation controllers of the nodes of
+   * this transformation system and by taps on planes.
+   */
+  public HitTestCache getHitTestCache() {
+    return hitTestCache;
+  }
+
+  /**
+   * Sets whether gestures start early when their pointers move fast and in a straight line, and
+   * only wait for the full slop otherwise. Disabled by default. Use {@link
+   * GestureLatencyMonitor#getStartDelayHistogram} to compare how fast gestures start with and
+   * without it.
+   *
+   * @see GesturePointersUtility#setAdaptiveStartSlopEnabled(boolean)
+   */
+  public void setAdaptiveStartSlopEnabled(boolean enabled) {
+    checkInputThreadDisabled();
+    gesturePointersUtility.setAdaptiveStartSlopEnabled(enabled);
+  }
+
+  public boolean isAdaptiveStartSlopEnabled() {
+    return gesturePointersUtility.isAdaptiveStartSlopEnabled();
+  }
+
+  /**
+   * Sets whether {@link #onTouch(HitTestResult, MotionEvent)} only copies touch events into a
+   * queue, and the gesture recognizers process them in {@link #onUpdate(FrameTime)} instead. This
+   * keeps the work done when a touch event is received to a copy, and moves gesture recognition
+   * next to the rest of the per-frame work of the scene. Disabled by default.
+   *
+   * <p>Disabling it disables the input thread and processes the touch events that are still
+   * queued.
+   *
+   * @see #setInputThreadEnabled(boolean)
+   */
+  public void setDeferredTouchProcessingEnabled(boolean enabled) {
+    if (enabled) {
+      if (touchEventQueue == null) {
+        touchEventQueue = new TouchEventQueue(TOUCH_EVENT_QUEUE_CAPACITY);
+      }
+      return;
+    }
+
+    stopInputThread();
+    processQueuedTouchEvents();
+    touchEventQueue = null;
+  }
+
+  public boolean isDeferredTouchProcessingEnabled() {
+    return touchEventQueue != null;
+  }
+
+  /**
+   * Sets whether the queued touch events are processed on a dedicated input thread rather than on
+   * the main thread. The input thread decodes the events, checks the slops and computes the values
+   * of the gestures, then publishes their starts, updates and ends. {@link #onUpdate(FrameTime)}
+   * dispatches them to the gesture listeners on the main thread, so the transformation controllers
+   * still start and transform their nodes on the main thread. Enabling it also enables deferred
+   * touch processing. Disabled by default.
+   *
+   * <p>Listeners receive mirrors of the gestures rather than the gestures that the input thread
+   * updates. While it is enabled, recognizers can't be added, fused two-finger gestures and the
+   * adaptive start slop can't be toggled, and the {@link GesturePointersUtility} must only be used
+   * by gestures. Coalesced updates are combined over the events that the input thread processes at
+   * once rather than per frame.
+   *
+   * <p>Disabling it waits for the input thread to finish the event that it is processing. The
+   * events that are still queued are processed on the main thread.
+   *
+   * @throws IllegalStateException if a recognizer doesn't override {@link
+   *     BaseGestureRecognizer#createMirrorGesture()}
+   */
+  public void setInputThreadEnabled(boolean enabled) {
+    if (!enabled) {
+      stopInputThread();
+      return;
+    }
+
+    if (inputThread != null) {
+      return;
+    }
+
+    for (int i = 0; i < recognizers.size(); i++) {
+      if (!recognizers.get(i).canMirrorGestures()) {
+        throw new IllegalStateException(
+            "Every gesture recognizer must create mirror gestures to use an input thread.");
+      }
+    }
+
+    setDeferredTouchProcessingEnabled(true);
+    // Keep the events in order by processing the ones queued so far on the main thread.
+    processQueuedTouchEvents();
+
+    // Local variable for nullness static-analysis.
+    GestureIntentQueue gestureIntentQueue = this.gestureIntentQueue;
+    if (gestureIntentQueue == null) {
+      gestureIntentQueue = new GestureIntentQueue(GESTURE_INTENT_QUEUE_CAPACITY);
+      this.gestureIntentQueue = gestureIntentQueue;
+    }
+    for (int i = 0; i < recognizers.size(); i++) {
+      recognizers.get(i).setGestureIntentQueue(gestureIntentQueue);
+    }
+
+    TouchInputThread inputThread =
+        new TouchInputThread(this, Preconditions.checkNotNull(touchEventQueue));
+    this.inputThread = inputThread;
+    inputThread.start();
+  }
+
+  public boolean isInputThreadEnabled() {
+    return inputThread != null;
   }
 
   /**
-   * Gets the currently selected node. Only the currently selected node can be transformed. Nodes
-   * are selected automatically when they are tapped, or when the user begins to translate the node
-   * with a drag gesture.
+   * Sets the monitor that measures the latency of the gestures of every recognizer in this
+   * transformation system, or null to stop measuring. Applies to gestures created after this is
+   * called.
+   */
+  public void setGestureLatencyMonitor(@Nullable GestureLatencyMonitor gestureLatencyMonitor) {
+    this.gestureLatencyMonitor = gestureLatencyMonitor;
+    for (int i = 0; i < recognizers.size(); i++) {
+      recognizers.get(i).setLatencyMonitor(gestureLatencyMonitor);
+    }
+  }
+
+  @Nullable
+  public GestureLatencyMonitor getGestureLatencyMonitor() {
+    return gestureLatencyMonitor;
+  }
+
+  /**
+   * Sets a recorder that writes every touch event passed to {@link #onTouch(HitTestResult,
+   * MotionEvent)} into a trace, which can be replayed with {@link TouchTracePlayer}. Set to null to
+   * stop recording.
+   */
+  public void setTouchTraceRecorder(@Nullable TouchTraceRecorder touchTraceRecorder) {
+    this.touchTraceRecorder = touchTraceRecorder;
+  }
+
+  @Nullable
+  public TouchTraceRecorder getTouchTraceRecorder() {
+    return touchTraceRecorder;
+  }
+
+  /**
+   * Sets whether several nodes can be selected and transformed at the same time. When enabled,
+   * each pointer is bound to the node it touches when it goes down, and the gestures of the
+   * pointers bound to a node only transform that node. Selecting a node doesn't deselect the other
+   * selected nodes. Disabled by default.
+   *
+   * <p>Disabling it deselects every selected node except the one that was selected last. Nodes
+   * that are transforming stay selected until their transformation ends.
+   */
+  public void setMultiSelectEnabled(boolean multiSelectEnabled) {
+    this.multiSelectEnabled = multiSelectEnabled;
+    if (multiSelectEnabled) {
+      return;
+    }
+
+    for (int i = selectedNodes.size() - 1; i >= 0; i--) {
+      BaseTransformableNode node = selectedNodes.get(i);
+      if (node != selectedNode && !node.isTransforming()) {
+        selectionVisualizer.removeSelectionVisual(node);
+        selectedNodes.remove(i);
+      }
+    }
+  }
+
+  public boolean isMultiSelectEnabled() {
+    return multiSelectEnabled;
+  }
+
+  /**
+   * Sets the scene that is hit-tested to find the node under each pointer that goes down while
+   * multi-select is enabled. Without it, pointers after the first are bound to the node hit by the
+   * first pointer, since that is what the hit test result of a touch event is for.
+   */
+  public void setScene(@Nullable Scene scene) {
+    this.scene = scene;
+  }
+
+  /**
+   * Gets the currently selected node. Only selected nodes can be transformed. Nodes are selected
+   * automatically when they are tapped, or when the user begins to translate the node with a drag
+   * gesture. If multi-select is enabled, this is the node that was selected last.
    */
   @Nullable
   public BaseTransformableNode getSelectedNode() {
     return selectedNode;
   }
 
+  /** Gets every selected node, in the order they were selected. */
+  public List<BaseTransformableNode> getSelectedNodes() {
+    return unmodifiableSelectedNodes;
+  }
+
+  /** Returns true if the node is selected. */
+  public boolean isNodeSelected(BaseTransformableNode node) {
+    if (node == selectedNode) {
+      return true;
+    }
+
+    return multiSelectEnabled && selectedNodes.contains(node);
+  }
+
   /**
    * Sets a {@link BaseTransformableNode} as the selected node if there is no currently selected
    * node or if the currently selected node is not actively being transformed. If null, then
    * deselects the currently selected node if the node is not transforming.
    *
+   * <p>If multi-select is enabled, the node is added to the selected nodes instead, and null
+   * deselects every selected node that is not transforming.
+   *
    * @see BaseTransformableNode#isTransforming
    * @return true if the node was successfully selected
    */
   public boolean selectNode(@Nullable BaseTransformableNode node) {
+    if (multiSelectEnabled) {
+      if (node == null) {
+        return deselectAllNodes();
+      }
+
+      if (!selectedNodes.contains(node)) {
+        selectedNodes.add(node);
+        selectionVisualizer.applySelectionVisual(node);
+      }
+      selectedNode = node;
+      return true;
+    }
+
     if (!deselectNode()) {
       return false;
     }
 
     if (node != null) {
       selectedNode = node;
+      selectedNodes.add(node);
       selectionVisualizer.applySelectionVisual(selectedNode);
     }
 
     return true;
   }
 
-  /** Dispatches touch events to the gesture recognizers contained by this transformation system. */
+  /**
+   * Deselects the node if it is selected and is not transforming.
+   *
+   * @return true if the node is not selected anymore
+   */
+  public boolean deselectNode(BaseTransformableNode node) {
+    if (!isNodeSelected(node)) {
+      return true;
+    }
+
+    if (node.isTransforming()) {
+      return false;
+    }
+
+    removeSelection(node);
+    return true;
+  }
+
+  /**
+   * Dispatches touch events to the gesture recognizers contained by this transformation system
+   * that can act on them. If deferred touch processing is enabled, the event is queued until the
+   * next call to {@link #onUpdate(FrameTime)} or until the input thread processes it instead.
+   */
   @Override
   public void onTouch(HitTestResult hitTestResult, MotionEvent motionEvent) {
+    // Local variable for nullness static-analysis.
+    TouchTraceRecorder touchTraceRecorder = this.touchTraceRecorder;
+    if (touchTraceRecorder != null) {
+      touchTraceRecorder.record(hitTestResult, motionEvent);
+    }
+
+    // Local variable for nullness static-analysis.
+    TouchEventQueue touchEventQueue = this.touchEventQueue;
+    if (touchEventQueue == null) {
+      Node boundNode = findActionPointerNode(hitTestResult, motionEvent);
+      processTouch(
+          hitTestResult, motionEvent, boundNode, GesturePointersUtility.findOwner(boundNode));
+      // Gestures that started on the input thread before it was disabled still publish intents.
+      processGestureIntents();
+      return;
+    }
+
+    // The scene graph is only read on the main thread, so the pointer is bound to a node here.
+    Node hitNode = hitTestResult.getNode();
+    Node boundNode = findActionPointerNode(hitTestResult, motionEvent);
+    BaseTransformableNode boundNodeOwner = GesturePointersUtility.findOwner(boundNode);
+    // Local variable for nullness static-analysis.
+    TouchInputThread inputThread = this.inputThread;
+    if (inputThread == null) {
+      if (!touchEventQueue.offer(hitNode, boundNode, boundNodeOwner, motionEvent)) {
+        // The queue is full, so catch up now rather than drop an event.
+        processQueuedTouchEvents();
+        touchEventQueue.offer(hitNode, boundNode, boundNodeOwner, motionEvent);
+      }
+      return;
+    }
+
+    while (!touchEventQueue.offer(hitNode, boundNode, boundNodeOwner, motionEvent)) {
+      // The input thread may be waiting for gesture intents to be consumed before it can poll the
+      // queue again.
+      processGestureIntents();
+      inputThread.wake();
+      Thread.yield();
+    }
+    inputThread.wake();
+  }
+
+  /**
+   * Processes the next queued touch event on the input thread. Returns false if the queue is empty,
+   * after publishing the coalesced updates of the gestures.
+   */
+  boolean processQueuedTouchEventOnInputThread() {
+    // Local variable for nullness static-analysis.
+    TouchEventQueue touchEventQueue = Preconditions.checkNotNull(this.touchEventQueue);
+    MotionEvent motionEvent = touchEventQueue.poll(inputThreadHitTestResult);
+    if (motionEvent == null) {
+      for (int i = 0; i < recognizers.size(); i++) {
+        recognizers.get(i).flushPendingUpdates();
+      }
+      return false;
+    }
+
+    try {
+      processTouch(
+          inputThreadHitTestResult,
+          motionEvent,
+          touchEventQueue.getPolledBoundNode(),
+          touchEventQueue.getPolledBoundNodeOwner());
+    } finally {
+      motionEvent.recycle();
+      inputThreadHitTestResult.setNode(null);
+      touchEventQueue.clearPolledNodes();
+    }
+    return true;
+  }
+
+  private void processTouch(
+      HitTestResult hitTestResult,
+      MotionEvent motionEvent,
+      @Nullable Node boundNode,
+      @Nullable BaseTransformableNode boundNodeOwner) {
+    // Decode the event once, then only wake the recognizers that can act on it. For example, a
+    // single-pointer move doesn't reach the pinch and twist recognizers unless they have gestures.
+    gesturePointersUtility.updatePointers(motionEvent);
+    int action = gesturePointersUtility.getActionMasked();
+    if (action == MotionEvent.ACTION_DOWN || action == MotionEvent.ACTION_POINTER_DOWN) {
+      gesturePointersUtility.bindPointer(
+          gesturePointersUtility.getActionPointerId(), boundNode, boundNodeOwner);
+    }
+
+    try {
+      for (int i = 0; i < recognizers.size(); i++) {
+        BaseGestureRecognizer<?> recognizer = recognizers.get(i);
+        if (recognizer.canActOnTouch()) {
+          recognizer.dispatchTouch(hitTestResult, motionEvent);
+        }
+      }
+    } finally {
+      gesturePointersUtility.clearDecodedEvent();
+    }
+
+    if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+      gesturePointersUtility.unbindAllPointers();
+    } else if (action == MotionEvent.ACTION_POINTER_UP) {
+      gesturePointersUtility.bindPointer(gesturePointersUtility.getActionPointerId(), null);
+    }
+  }
+
+  private void processQueuedTouchEvents() {
+    // Local variable for nullness static-analysis.
+    TouchEventQueue touchEventQueue = this.touchEventQueue;
+    if (touchEventQueue == null) {
+      return;
+    }
+
+    MotionEvent motionEvent;
+    while ((motionEvent = touchEventQueue.poll(queuedHitTestResult)) != null) {
+      try {
+        processTouch(
+            queuedHitTestResult,
+            motionEvent,
+            touchEventQueue.getPolledBoundNode(),
+            touchEventQueue.getPolledBoundNodeOwner());
+      } finally {
+        motionEvent.recycle();
+      }
+    }
+    queuedHitTestResult.setNode(null);
+    touchEventQueue.clearPolledNodes();
+  }
+
+  /** Dispatches the gesture intents published by the input thread, on the main thread. */
+  private void processGestureIntents() {
+    // Local variable for nullness static-analysis.
+    GestureIntentQueue gestureIntentQueue = this.gestureIntentQueue;
+    if (gestureIntentQueue == null) {
+      return;
+    }
+
+    while (gestureIntentQueue.poll(polledGestureIntent)) {
+      polledGestureIntent.apply();
+    }
+    polledGestureIntent.clear();
+  }
+
+  private void stopInputThread() {
+    // Local variable for nullness static-analysis.
+    TouchInputThread inputThread = this.inputThread;
+    if (inputThread == null) {
+      return;
+    }
+
+    inputThread.quit();
+    boolean interrupted = false;
+    while (inputThread.isAlive()) {
+      // The input thread may be waiting for its gesture intents to be consumed.
+      processGestureIntents();
+      try {
+        inputThread.join(INPUT_THREAD_JOIN_MILLIS);
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+
+    this.inputThread = null;
     for (int i = 0; i < recognizers.size(); i++) {
-      recognizers.get(i).onTouch(hitTestResult, motionEvent);
+      recognizers.get(i).setGestureIntentQueue(null);
+    }
+    processGestureIntents();
+  }
+
+  private void checkInputThreadDisabled() {
+    if (inputThread != null) {
+      throw new IllegalStateException("Can't be changed while the input thread is enabled.");
+    }
+  }
+
+  private void applyRecognizerSettings(BaseGestureRecognizer<?> gestureRecognizer) {
+    gestureRecognizer.setLatencyMonitor(gestureLatencyMonitor);
+    gestureRecognizer.setUpdatesCoalesced(updatesCoalesced);
+  }
+
+  /**
+   * Returns the node that the pointer of a down action should be bound to, or null if the action
+   * isn't a down action or the pointer shouldn't be bound to a node.
+   */
+  @Nullable
+  private Node findActionPointerNode(HitTestResult hitTestResult, MotionEvent motionEvent) {
+    int action = motionEvent.getActionMasked();
+    if (!multiSelectEnabled
+        || (action != MotionEvent.ACTION_DOWN && action != MotionEvent.ACTION_POINTER_DOWN)) {
+      // All pointers form one group, like before pointers were bound to nodes.
+      return null;
+    }
+
+    // The hit test result is only for the first pointer, so hit-test any later pointer again.
+    // Local variable for nullness static-analysis.
+    Scene scene = this.scene;
+    if (action == MotionEvent.ACTION_POINTER_DOWN && scene != null) {
+      int actionIndex = motionEvent.getActionIndex();
+      Ray ray =
+          scene
+              .getCamera()
+              .screenPointToRay(motionEvent.getX(actionIndex), motionEvent.getY(actionIndex));
+      return scene.hitTest(ray).getNode();
+    }
+
+    return hitTestResult.getNode();
+  }
+
+  /**
+   * Deselects a node that was left selected when multi-select was disabled while it was
+   * transforming, once its transformation ends.
+   */
+  void onTransformationEnded(BaseTransformableNode node) {
+    if (multiSelectEnabled || node == selectedNode || node.isTransforming()) {
+      return;
+    }
+
+    if (selectedNodes.contains(node)) {
+      removeSelection(node);
     }
   }
 
@@ -189,9 +769,36 @@ public class TransformationSystem implements TransformationGestureDetector {
       return false;
     }
 
-    selectionVisualizer.removeSelectionVisual(selectedNode);
-    selectedNode = null;
+    removeSelection(selectedNode);
 
     return true;
   }
+
+  /**
+   * Deselects every selected node that is not currently transforming.
+   *
+   * @return true if every node was deselected
+   */
+  private boolean deselectAllNodes() {
+    boolean deselectedAll = true;
+    for (int i = selectedNodes.size() - 1; i >= 0; i--) {
+      BaseTransformableNode node = selectedNodes.get(i);
+      if (node.isTransforming()) {
+        deselectedAll = false;
+      } else {
+        removeSelection(node);
+      }
+    }
+
+    return deselectedAll;
+  }
+
+  private void removeSelection(BaseTransformableNode node) {
+    selectionVisualizer.removeSelectionVisual(node);
+    selectedNodes.remove(node);
+    if (node == selectedNode) {
+      int count = selectedNodes.size();
+      selectedNode = count > 0 ? selectedNodes.get(count - 1) : null;
+    }
+  }
 }
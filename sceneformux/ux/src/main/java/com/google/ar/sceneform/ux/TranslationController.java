@@ -29,12 +29,12 @@ import com.google.ar.sceneform.ArSceneView;
 import com.google.ar.sceneform.FrameTime;
 import com.google.ar.sceneform.Node;
 import com.google.ar.sceneform.Scene;
-import com.google.ar.sceneform.math.MathHelper;
+import com.google.ar.sceneform.collision.Ray;
 import com.google.ar.sceneform.math.Quaternion;
 import com.google.ar.sceneform.math.Vector3;
 import com.google.ar.sceneform.utilities.Preconditions;
+import java.util.ArrayList;
 import java.util.EnumSet;
-import java.util.List;
 
 /**
  * Manipulates the position of a {@link BaseTransformableNode} using a {@link
@@ -48,11 +48,64 @@ public class TranslationController extends BaseTransformationController<DragGest
 
   private final Vector3 initialForwardInLocal = new Vector3();
 
-  private EnumSet<Plane.Type> allowedPlaneTypes = EnumSet.allOf(Plane.Type.class);
+  // Smooth the local position and rotation of the node towards the desired ones. They are seeded
+  // from the node when it starts moving, and again when its parent changes.
+  private final CriticallyDampedSpring positionSpring =
+      new CriticallyDampedSpring(3, SPRING_ANGULAR_FREQUENCY, POSITION_TOLERANCE_METERS);
+  private final CriticallyDampedSpring rotationSpring =
+      new CriticallyDampedSpring(4, SPRING_ANGULAR_FREQUENCY, ROTATION_TOLERANCE);
+  private boolean isPositionSpringSeeded;
+  private boolean isRotationSpringSeeded;
+  private final Vector3 springLocalPosition = new Vector3();
+  private final Quaternion springLocalRotation = new Quaternion();
 
-  private static final float LERP_SPEED = 12.0f;
-  private static final float POSITION_LENGTH_THRESHOLD = 0.01f;
-  private static final float ROTATION_DOT_THRESHOLD = 0.99f;
+  private EnumSet<Plane.Type> allowedPlaneTypes = EnumSet.allOf(Plane.Type.class);
+  private boolean hitTestAtPredictedPosition;
+  private boolean interpolationEnabled = true;
+
+  // Drags that end closer than this to the anchor, on the plane it is attached to, keep it.
+  private float anchorReuseDistanceMeters;
+  private int anchorCreationCount;
+  private int anchorDetachCount;
+  // Places the node again when a drag ends, if the node was placed by it.
+  @Nullable private AnchorBudgetManager anchorBudgetManager;
+
+  // The nodes the dragged node snaps to and doesn't overlap, if the node was inserted in it.
+  @Nullable private SpatialHash spatialHash;
+  private float snapDistanceMeters;
+  private boolean overlapResolutionEnabled;
+  private final ArrayList<SpatialHash.Item> neighbours = new ArrayList<>();
+  private final Vector3 neighbourOffset = new Vector3();
+
+  // The latest position of the drag, hit-tested once per frame.
+  private boolean hasPendingHitTest;
+  private float pendingHitTestX;
+  private float pendingHitTestY;
+
+  // The plane of the last hit, extended infinitely, that the node is dragged on while the drag is
+  // outside the polygon of every plane.
+  private boolean virtualPlaneFallbackEnabled;
+  @Nullable private Plane virtualPlane;
+  private final Vector3 virtualPlanePoint = new Vector3();
+  private final Vector3 virtualPlaneNormal = new Vector3();
+  private final float[] virtualPlaneRotation = new float[4];
+  // The world position the node is moving to, where it is anchored if that isn't the hit.
+  private final float[] targetWorldPoint = new float[3];
+  private boolean isTargetAdjusted;
+  private boolean isOnVirtualPlane;
+  private int framesUntilReacquire;
+
+  private static final float SPRING_ANGULAR_FREQUENCY = 20.0f;
+  private static final float POSITION_TOLERANCE_METERS = 0.001f;
+  private static final float ROTATION_TOLERANCE = 0.001f;
+  // How often ARCore is hit-tested to find a plane again while dragging on the virtual plane.
+  private static final int REACQUIRE_INTERVAL_FRAMES = 6;
+  // Rays that are almost parallel to the virtual plane, or that hit it too far away, are ignored.
+  private static final float MIN_RAY_PLANE_COSINE = 0.05f;
+  private static final float MAX_VIRTUAL_PLANE_DISTANCE_METERS = 10.0f;
+  // How many times overlaps with neighbours are resolved, since resolving one can cause another.
+  private static final int OVERLAP_RESOLUTION_PASSES = 2;
+  private static final float MIN_SEPARATION_METERS = 0.0001f;
 
   public TranslationController(
       BaseTransformableNode transformableNode, DragGestureRecognizer gestureRecognizer) {
@@ -72,10 +125,118 @@ public class TranslationController extends BaseTransformationController<DragGest
     return allowedPlaneTypes;
   }
 
+  /**
+   * Sets whether the plane is hit-tested at the position that the drag is predicted to be at when
+   * the next frame is displayed, instead of at the last touch position. This reduces how far the
+   * node trails behind the finger. Has no effect unless motion prediction is enabled on the {@link
+   * DragGestureRecognizer} with {@link DragGestureRecognizer#setMotionPrediction}.
+   */
+  public void setHitTestAtPredictedPosition(boolean hitTestAtPredictedPosition) {
+    this.hitTestAtPredictedPosition = hitTestAtPredictedPosition;
+  }
+
+  public boolean isHitTestAtPredictedPosition() {
+    return hitTestAtPredictedPosition;
+  }
+
+  /**
+   * Sets whether the node moves smoothly towards the latest hit result or jumps to it.
+   * Interpolation hides the noise of raw touch positions at the cost of lag. It can be disabled
+   * when a {@link SignalFilter} is set on the {@link DragGestureRecognizer}. Enabled by default.
+   */
+  public void setInterpolationEnabled(boolean interpolationEnabled) {
+    this.interpolationEnabled = interpolationEnabled;
+    wakeUp();
+  }
+
+  public boolean isInterpolationEnabled() {
+    return interpolationEnabled;
+  }
+
+  /**
+   * Sets how far from its anchor a drag can end, on the plane the anchor is attached to, without
+   * the node being re-anchored. Within this distance the anchor is kept and the node is offset from
+   * it instead, which avoids the cost of creating and detaching anchors when the node is nudged.
+   * Defaults to 0, in which case a new anchor is created at the end of every drag. Nodes placed by
+   * an {@link AnchorBudgetManager} share anchors according to its share radius instead.
+   */
+  public void setAnchorReuseDistanceMeters(float anchorReuseDistanceMeters) {
+    this.anchorReuseDistanceMeters = anchorReuseDistanceMeters;
+  }
+
+  public float getAnchorReuseDistanceMeters() {
+    return anchorReuseDistanceMeters;
+  }
+
+  /** Sets the manager that placed the node, or null if its parent is its own anchor node. */
+  void setAnchorBudgetManager(@Nullable AnchorBudgetManager anchorBudgetManager) {
+    this.anchorBudgetManager = anchorBudgetManager;
+  }
+
+  /** Sets the hash the node was inserted in, or null if it was removed. */
+  void setSpatialHash(@Nullable SpatialHash spatialHash) {
+    this.spatialHash = spatialHash;
+  }
+
+  /**
+   * Sets how close to a neighbour the node must be dragged to snap against it. Neighbours are
+   * found in the {@link SpatialHash} the node was inserted in. Defaults to 0, which disables
+   * snapping.
+   */
+  public void setSnapDistanceMeters(float snapDistanceMeters) {
+    this.snapDistanceMeters = snapDistanceMeters;
+  }
+
+  public float getSnapDistanceMeters() {
+    return snapDistanceMeters;
+  }
+
+  /**
+   * Sets whether the node is pushed out of the neighbours it is dragged into, along the plane it is
+   * dragged on. Neighbours are found in the {@link SpatialHash} the node was inserted in. Disabled
+   * by default.
+   */
+  public void setOverlapResolutionEnabled(boolean overlapResolutionEnabled) {
+    this.overlapResolutionEnabled = overlapResolutionEnabled;
+  }
+
+  public boolean isOverlapResolutionEnabled() {
+    return overlapResolutionEnabled;
+  }
+
+  /** Returns the number of anchors this controller has created. */
+  public int getAnchorCreationCount() {
+    return anchorCreationCount;
+  }
+
+  /** Returns the number of anchors this controller has detached. */
+  public int getAnchorDetachCount() {
+    return anchorDetachCount;
+  }
+
+  /**
+   * Sets whether the node keeps following the drag when it leaves the polygon of the plane it was
+   * on, by intersecting the touch ray with the plane extended infinitely. While it does, ARCore is
+   * only hit-tested every few frames to find a plane again. If the drag ends outside the polygon,
+   * the node is anchored to the plane at the position it was dragged to. Disabled by default, in
+   * which case the node stops at the last position that hit a plane.
+   */
+  public void setVirtualPlaneFallbackEnabled(boolean virtualPlaneFallbackEnabled) {
+    this.virtualPlaneFallbackEnabled = virtualPlaneFallbackEnabled;
+  }
+
+  public boolean isVirtualPlaneFallbackEnabled() {
+    return virtualPlaneFallbackEnabled;
+  }
+
   @Override
   public void onUpdated(Node node, FrameTime frameTime) {
+    runPendingHitTest();
     updatePosition(frameTime);
     updateRotation(frameTime);
+    if (!hasPendingHitTest && !isTransforming()) {
+      goIdle();
+    }
   }
 
   @Override
@@ -114,66 +275,62 @@ public class TranslationController extends BaseTransformationController<DragGest
 
   @Override
   public void onContinueTransformation(DragGesture gesture) {
-    Scene scene = getTransformableNode().getScene();
-    if (scene == null) {
-      return;
-    }
-
-    Frame frame = ((ArSceneView) scene.getView()).getArFrame();
-    if (frame == null) {
-      return;
-    }
-
-    Camera arCamera = frame.getCamera();
-    if (arCamera.getTrackingState() != TrackingState.TRACKING) {
-      return;
-    }
-
-    Vector3 position = gesture.getPosition();
-    List<HitResult> hitResultList = frame.hitTest(position.x, position.y);
-    for (int i = 0; i < hitResultList.size(); i++) {
-      HitResult hit = hitResultList.get(i);
-      Trackable trackable = hit.getTrackable();
-      Pose pose = hit.getHitPose();
-      if (trackable instanceof Plane) {
-        Plane plane = (Plane) trackable;
-        if (plane.isPoseInPolygon(pose) && allowedPlaneTypes.contains(plane.getType())) {
-          desiredLocalPosition = new Vector3(pose.tx(), pose.ty(), pose.tz());
-          desiredLocalRotation = new Quaternion(pose.qx(), pose.qy(), pose.qz(), pose.qw());
-          Node parent = getTransformableNode().getParent();
-          if (parent != null && desiredLocalPosition != null && desiredLocalRotation != null) {
-            desiredLocalPosition = parent.worldToLocalPoint(desiredLocalPosition);
-            desiredLocalRotation =
-                Quaternion.multiply(
-                    parent.getWorldRotation().inverted(),
-                    Preconditions.checkNotNull(desiredLocalRotation));
-          }
-
-          desiredLocalRotation =
-              calculateFinalDesiredLocalRotation(Preconditions.checkNotNull(desiredLocalRotation));
-          lastArHitResult = hit;
-          break;
-        }
-      }
-    }
+    // Several updates can arrive within a frame, only the latest position is hit-tested when the
+    // node is updated.
+    pendingHitTestX =
+        hitTestAtPredictedPosition ? gesture.getPredictedPositionX() : gesture.getPositionX();
+    pendingHitTestY =
+        hitTestAtPredictedPosition ? gesture.getPredictedPositionY() : gesture.getPositionY();
+    hasPendingHitTest = true;
   }
 
   @Override
   public void onEndTransformation(DragGesture gesture) {
+    runPendingHitTest();
+
     HitResult hitResult = lastArHitResult;
     if (hitResult == null) {
       return;
     }
 
-    if (hitResult.getTrackable().getTrackingState() == TrackingState.TRACKING) {
-      AnchorNode anchorNode = getAnchorNodeOrDie();
+    // Local variable for nullness static-analysis.
+    Plane virtualPlane = this.virtualPlane;
+    boolean endOnVirtualPlane = isOnVirtualPlane && virtualPlane != null;
+    boolean anchorAtTarget = endOnVirtualPlane || isTargetAdjusted;
+    isOnVirtualPlane = false;
+    isTargetAdjusted = false;
+    framesUntilReacquire = 0;
+    this.virtualPlane = null;
+
+    Trackable trackable = endOnVirtualPlane ? virtualPlane : hitResult.getTrackable();
+    if (trackable.getTrackingState() == TrackingState.TRACKING) {
+      Pose dropPose =
+          anchorAtTarget
+              ? new Pose(targetWorldPoint, virtualPlaneRotation)
+              : hitResult.getHitPose();
+
+      // Local variable for nullness static-analysis.
+      AnchorBudgetManager anchorBudgetManager = this.anchorBudgetManager;
+      AnchorNode anchorNode = null;
+      Anchor newAnchor = null;
+      if (anchorBudgetManager == null) {
+        anchorNode = getAnchorNodeOrDie();
+
+        Anchor oldAnchor = anchorNode.getAnchor();
+        if (oldAnchor != null && canReuseAnchor(oldAnchor, trackable, dropPose)) {
+          // The desired local position and rotation are already relative to the anchor node, so
+          // the node settles at the drop point without a new anchor.
+          return;
+        }
 
-      Anchor oldAnchor = anchorNode.getAnchor();
-      if (oldAnchor != null) {
-        oldAnchor.detach();
-      }
+        if (oldAnchor != null) {
+          oldAnchor.detach();
+          anchorDetachCount++;
+        }
 
-      Anchor newAnchor = hitResult.createAnchor();
+        newAnchor = anchorAtTarget ? trackable.createAnchor(dropPose) : hitResult.createAnchor();
+        anchorCreationCount++;
+      }
 
       Vector3 worldPosition = getTransformableNode().getWorldPosition();
       Quaternion worldRotation = getTransformableNode().getWorldRotation();
@@ -187,22 +344,270 @@ public class TranslationController extends BaseTransformationController<DragGest
         finalDesiredWorldRotation = getTransformableNode().getWorldRotation();
       }
 
-      anchorNode.setAnchor(newAnchor);
+      Node parent;
+      if (anchorBudgetManager != null) {
+        anchorBudgetManager.placeNode(getTransformableNode(), trackable, dropPose);
+        parent = Preconditions.checkNotNull(getTransformableNode().getParent());
+      } else {
+        AnchorNode newAnchorNode = Preconditions.checkNotNull(anchorNode);
+        newAnchorNode.setAnchor(newAnchor);
+        parent = newAnchorNode;
+      }
 
       // Temporarily set the node to the final world rotation so that we can accurately
       // determine the initialForwardInLocal in the new coordinate space.
       getTransformableNode().setWorldRotation(finalDesiredWorldRotation);
       Vector3 initialForwardInWorld = getTransformableNode().getForward();
-      initialForwardInLocal.set(anchorNode.worldToLocalDirection(initialForwardInWorld));
+      initialForwardInLocal.set(parent.worldToLocalDirection(initialForwardInWorld));
 
       getTransformableNode().setWorldRotation(worldRotation);
       getTransformableNode().setWorldPosition(worldPosition);
+
+      // The local transform of the node is now relative to its new parent.
+      isPositionSpringSeeded = false;
+      isRotationSpringSeeded = false;
     }
 
     desiredLocalPosition = Vector3.zero();
     desiredLocalRotation = calculateFinalDesiredLocalRotation(Quaternion.identity());
   }
 
+  /**
+   * Returns true if the anchor is still tracked, is attached to the trackable and is closer to the
+   * drop pose than the anchor reuse distance.
+   */
+  private boolean canReuseAnchor(Anchor anchor, Trackable trackable, Pose dropPose) {
+    if (anchorReuseDistanceMeters <= 0.0f
+        || anchor.getTrackingState() != TrackingState.TRACKING
+        || !trackable.getAnchors().contains(anchor)) {
+      return false;
+    }
+
+    Pose anchorPose = anchor.getPose();
+    float dx = dropPose.tx() - anchorPose.tx();
+    float dy = dropPose.ty() - anchorPose.ty();
+    float dz = dropPose.tz() - anchorPose.tz();
+    return dx * dx + dy * dy + dz * dz < anchorReuseDistanceMeters * anchorReuseDistanceMeters;
+  }
+
+  private void runPendingHitTest() {
+    if (!hasPendingHitTest) {
+      return;
+    }
+    hasPendingHitTest = false;
+
+    Scene scene = getTransformableNode().getScene();
+    if (scene == null) {
+      return;
+    }
+
+    Frame frame = ((ArSceneView) scene.getView()).getArFrame();
+    if (frame == null) {
+      return;
+    }
+
+    Camera arCamera = frame.getCamera();
+    if (arCamera.getTrackingState() != TrackingState.TRACKING) {
+      return;
+    }
+
+    // While dragging on the virtual plane, only look for a real plane every few frames.
+    if (isOnVirtualPlane && framesUntilReacquire > 0) {
+      framesUntilReacquire--;
+      moveOnVirtualPlane(scene);
+      return;
+    }
+
+    HitResult hit =
+        getTransformableNode()
+            .getTransformationSystem()
+            .getHitTestCache()
+            .hitTestPlane(frame, pendingHitTestX, pendingHitTestY, allowedPlaneTypes);
+    if (hit == null) {
+      framesUntilReacquire = REACQUIRE_INTERVAL_FRAMES;
+      moveOnVirtualPlane(scene);
+      return;
+    }
+
+    isOnVirtualPlane = false;
+    Pose pose = hit.getHitPose();
+    rememberVirtualPlane((Plane) hit.getTrackable(), pose);
+    Vector3 worldPosition = new Vector3(pose.tx(), pose.ty(), pose.tz());
+    isTargetAdjusted = arrangeAmongNeighbours(worldPosition);
+    setTargetWorldPoint(worldPosition);
+    desiredLocalPosition = worldPosition;
+    desiredLocalRotation = new Quaternion(pose.qx(), pose.qy(), pose.qz(), pose.qw());
+    Node parent = getTransformableNode().getParent();
+    if (parent != null && desiredLocalPosition != null && desiredLocalRotation != null) {
+      desiredLocalPosition = parent.worldToLocalPoint(desiredLocalPosition);
+      desiredLocalRotation =
+          Quaternion.multiply(
+              parent.getWorldRotation().inverted(),
+              Preconditions.checkNotNull(desiredLocalRotation));
+    }
+
+    desiredLocalRotation =
+        calculateFinalDesiredLocalRotation(Preconditions.checkNotNull(desiredLocalRotation));
+    lastArHitResult = hit;
+  }
+
+  private void rememberVirtualPlane(Plane plane, Pose hitPose) {
+    virtualPlane = plane;
+    virtualPlanePoint.set(hitPose.tx(), hitPose.ty(), hitPose.tz());
+    float[] normal = hitPose.getYAxis();
+    virtualPlaneNormal.set(normal[0], normal[1], normal[2]);
+    virtualPlaneRotation[0] = hitPose.qx();
+    virtualPlaneRotation[1] = hitPose.qy();
+    virtualPlaneRotation[2] = hitPose.qz();
+    virtualPlaneRotation[3] = hitPose.qw();
+  }
+
+  /**
+   * Moves the node to where the ray through the pending drag position intersects the plane of the
+   * last hit, if the fallback is enabled. The rotation of the node is kept.
+   */
+  private void moveOnVirtualPlane(Scene scene) {
+    // Local variable for nullness static-analysis.
+    Plane virtualPlane = this.virtualPlane;
+    if (!virtualPlaneFallbackEnabled
+        || virtualPlane == null
+        || virtualPlane.getTrackingState() != TrackingState.TRACKING) {
+      isOnVirtualPlane = false;
+      return;
+    }
+
+    Ray ray = scene.getCamera().screenPointToRay(pendingHitTestX, pendingHitTestY);
+    Vector3 origin = ray.getOrigin();
+    Vector3 direction = ray.getDirection();
+    float cosine = Vector3.dot(direction, virtualPlaneNormal);
+    if (Math.abs(cosine) < MIN_RAY_PLANE_COSINE) {
+      return;
+    }
+
+    float distance = Vector3.dot(Vector3.subtract(virtualPlanePoint, origin), virtualPlaneNormal);
+    distance /= cosine;
+    if (distance <= 0.0f || distance > MAX_VIRTUAL_PLANE_DISTANCE_METERS) {
+      return;
+    }
+
+    Vector3 worldPoint = ray.getPoint(distance);
+    arrangeAmongNeighbours(worldPoint);
+    setTargetWorldPoint(worldPoint);
+    isOnVirtualPlane = true;
+
+    Node parent = getTransformableNode().getParent();
+    desiredLocalPosition = parent != null ? parent.worldToLocalPoint(worldPoint) : worldPoint;
+  }
+
+  private void setTargetWorldPoint(Vector3 worldPoint) {
+    targetWorldPoint[0] = worldPoint.x;
+    targetWorldPoint[1] = worldPoint.y;
+    targetWorldPoint[2] = worldPoint.z;
+  }
+
+  /**
+   * Moves the world position the node is dragged to so that it touches the closest neighbour
+   * within the snap distance, and then out of the neighbours it overlaps. The position only moves
+   * along the plane the node is dragged on. Returns true if the position was moved.
+   */
+  private boolean arrangeAmongNeighbours(Vector3 worldPosition) {
+    // Local variable for nullness static-analysis.
+    SpatialHash spatialHash = this.spatialHash;
+    if (spatialHash == null || (snapDistanceMeters <= 0.0f && !overlapResolutionEnabled)) {
+      return false;
+    }
+
+    BaseTransformableNode node = getTransformableNode();
+    SpatialHash.Item self = spatialHash.getItem(node);
+    float radius = self != null ? self.getRadius() : 0.0f;
+    neighbours.clear();
+    spatialHash.queryRadius(
+        worldPosition.x,
+        worldPosition.y,
+        worldPosition.z,
+        radius + Math.max(snapDistanceMeters, 0.0f),
+        neighbours);
+
+    boolean moved = false;
+    if (snapDistanceMeters > 0.0f) {
+      SpatialHash.Item closest = null;
+      float closestGap = snapDistanceMeters;
+      for (int i = 0; i < neighbours.size(); i++) {
+        SpatialHash.Item neighbour = neighbours.get(i);
+        if (neighbour.getNode() == node) {
+          continue;
+        }
+
+        float gap = offsetOnPlane(worldPosition, neighbour) - radius - neighbour.getRadius();
+        if (gap > 0.0f && gap <= closestGap) {
+          closest = neighbour;
+          closestGap = gap;
+        }
+      }
+
+      if (closest != null) {
+        moved = separate(worldPosition, closest, radius + closest.getRadius());
+      }
+    }
+
+    if (overlapResolutionEnabled) {
+      for (int pass = 0; pass < OVERLAP_RESOLUTION_PASSES; pass++) {
+        boolean resolved = false;
+        for (int i = 0; i < neighbours.size(); i++) {
+          SpatialHash.Item neighbour = neighbours.get(i);
+          float minDistance = radius + neighbour.getRadius();
+          if (neighbour.getNode() != node
+              && offsetOnPlane(worldPosition, neighbour) < minDistance
+              && separate(worldPosition, neighbour, minDistance)) {
+            resolved = true;
+          }
+        }
+
+        if (!resolved) {
+          break;
+        }
+        moved = true;
+      }
+    }
+
+    neighbours.clear();
+    return moved;
+  }
+
+  /**
+   * Sets the offset from the neighbour to the position, projected onto the plane the node is
+   * dragged on, and returns its length.
+   */
+  private float offsetOnPlane(Vector3 position, SpatialHash.Item neighbour) {
+    float dx = position.x - neighbour.getX();
+    float dy = position.y - neighbour.getY();
+    float dz = position.z - neighbour.getZ();
+    float normalDistance =
+        dx * virtualPlaneNormal.x + dy * virtualPlaneNormal.y + dz * virtualPlaneNormal.z;
+    neighbourOffset.set(
+        dx - normalDistance * virtualPlaneNormal.x,
+        dy - normalDistance * virtualPlaneNormal.y,
+        dz - normalDistance * virtualPlaneNormal.z);
+    return neighbourOffset.length();
+  }
+
+  /**
+   * Moves the position along the plane, directly away from or towards the neighbour, to the
+   * distance from it. Returns false if the position is on the neighbour, so there is no direction.
+   */
+  private boolean separate(Vector3 position, SpatialHash.Item neighbour, float distance) {
+    float current = offsetOnPlane(position, neighbour);
+    if (current < MIN_SEPARATION_METERS) {
+      return false;
+    }
+
+    float scale = (distance - current) / current;
+    position.x += neighbourOffset.x * scale;
+    position.y += neighbourOffset.y * scale;
+    position.z += neighbourOffset.z * scale;
+    return true;
+  }
+
   private AnchorNode getAnchorNodeOrDie() {
     Node parent = getTransformableNode().getParent();
     if (!(parent instanceof AnchorNode)) {
@@ -219,17 +624,36 @@ public class TranslationController extends BaseTransformationController<DragGest
       return;
     }
 
-    Vector3 localPosition = getTransformableNode().getLocalPosition();
-    float lerpFactor = MathHelper.clamp(frameTime.getDeltaSeconds() * LERP_SPEED, 0, 1);
-    localPosition = Vector3.lerp(localPosition, desiredLocalPosition, lerpFactor);
+    if (!interpolationEnabled) {
+      finishPosition(desiredLocalPosition);
+      return;
+    }
 
-    float lengthDiff = Math.abs(Vector3.subtract(desiredLocalPosition, localPosition).length());
-    if (lengthDiff <= POSITION_LENGTH_THRESHOLD) {
-      localPosition = desiredLocalPosition;
-      this.desiredLocalPosition = null;
+    if (!isPositionSpringSeeded) {
+      Vector3 localPosition = getTransformableNode().getLocalPosition();
+      positionSpring.reset(0, localPosition.x);
+      positionSpring.reset(1, localPosition.y);
+      positionSpring.reset(2, localPosition.z);
+      isPositionSpringSeeded = true;
+    }
+
+    positionSpring.setTarget(0, desiredLocalPosition.x);
+    positionSpring.setTarget(1, desiredLocalPosition.y);
+    positionSpring.setTarget(2, desiredLocalPosition.z);
+    if (positionSpring.update(frameTime.getDeltaSeconds())) {
+      finishPosition(desiredLocalPosition);
+      return;
     }
 
-    getTransformableNode().setLocalPosition(localPosition);
+    springLocalPosition.set(
+        positionSpring.getValue(0), positionSpring.getValue(1), positionSpring.getValue(2));
+    getTransformableNode().setLocalPosition(springLocalPosition);
+  }
+
+  private void finishPosition(Vector3 desiredLocalPosition) {
+    getTransformableNode().setLocalPosition(desiredLocalPosition);
+    this.desiredLocalPosition = null;
+    isPositionSpringSeeded = false;
   }
 
   private void updateRotation(FrameTime frameTime) {
@@ -239,17 +663,50 @@ public class TranslationController extends BaseTransformationController<DragGest
       return;
     }
 
-    Quaternion localRotation = getTransformableNode().getLocalRotation();
-    float lerpFactor = MathHelper.clamp(frameTime.getDeltaSeconds() * LERP_SPEED, 0, 1);
-    localRotation = Quaternion.slerp(localRotation, desiredLocalRotation, lerpFactor);
+    if (!interpolationEnabled) {
+      finishRotation(desiredLocalRotation);
+      return;
+    }
 
-    float dot = Math.abs(dotQuaternion(localRotation, desiredLocalRotation));
-    if (dot >= ROTATION_DOT_THRESHOLD) {
-      localRotation = desiredLocalRotation;
-      this.desiredLocalRotation = null;
+    if (!isRotationSpringSeeded) {
+      Quaternion localRotation = getTransformableNode().getLocalRotation();
+      rotationSpring.reset(0, localRotation.x);
+      rotationSpring.reset(1, localRotation.y);
+      rotationSpring.reset(2, localRotation.z);
+      rotationSpring.reset(3, localRotation.w);
+      isRotationSpringSeeded = true;
     }
 
-    getTransformableNode().setLocalRotation(localRotation);
+    // Spring towards whichever of the two quaternions of the desired rotation is closest, so the
+    // node turns the short way around.
+    float dot =
+        rotationSpring.getValue(0) * desiredLocalRotation.x
+            + rotationSpring.getValue(1) * desiredLocalRotation.y
+            + rotationSpring.getValue(2) * desiredLocalRotation.z
+            + rotationSpring.getValue(3) * desiredLocalRotation.w;
+    float sign = dot < 0.0f ? -1.0f : 1.0f;
+    rotationSpring.setTarget(0, sign * desiredLocalRotation.x);
+    rotationSpring.setTarget(1, sign * desiredLocalRotation.y);
+    rotationSpring.setTarget(2, sign * desiredLocalRotation.z);
+    rotationSpring.setTarget(3, sign * desiredLocalRotation.w);
+    if (rotationSpring.update(frameTime.getDeltaSeconds())) {
+      finishRotation(desiredLocalRotation);
+      return;
+    }
+
+    springLocalRotation.set(
+        rotationSpring.getValue(0),
+        rotationSpring.getValue(1),
+        rotationSpring.getValue(2),
+        rotationSpring.getValue(3));
+    springLocalRotation.normalize();
+    getTransformableNode().setLocalRotation(springLocalRotation);
+  }
+
+  private void finishRotation(Quaternion desiredLocalRotation) {
+    getTransformableNode().setLocalRotation(desiredLocalRotation);
+    this.desiredLocalRotation = null;
+    isRotationSpringSeeded = false;
   }
 
   /**
@@ -270,8 +727,4 @@ public class TranslationController extends BaseTransformationController<DragGest
 
     return desiredLocalRotation.normalized();
   }
-
-  private static float dotQuaternion(Quaternion lhs, Quaternion rhs) {
-    return lhs.x * rhs.x + lhs.y * rhs.y + lhs.z * rhs.z + lhs.w * rhs.w;
-  }
 }
@@ -18,7 +18,6 @@ package com.google.ar.sceneform.ux;
 import android.util.Log;
 import android.view.MotionEvent;
 import com.google.ar.sceneform.HitTestResult;
-import com.google.ar.sceneform.math.Vector3;
 
 /** Gesture for when the user performs a two-finger twist motion on the touch screen. */
 public class TwistGesture extends BaseGesture<TwistGesture> {
@@ -30,27 +29,51 @@ public class TwistGesture extends BaseGesture<TwistGesture> {
 
   private static final boolean TWIST_GESTURE_DEBUG = false;
 
-  private final int pointerId1;
-  private final int pointerId2;
-  private final Vector3 startPosition1;
-  private final Vector3 startPosition2;
-  private final Vector3 previousPosition1;
-  private final Vector3 previousPosition2;
+  private final PointerPairTable pointerPairs;
+  private int pairRow = PointerPairTable.NO_ROW;
+  private int pointerId1;
+  private int pointerId2;
   private float deltaRotationDegrees;
+  // The rotation since the gesture started, before and after the signal filter is applied.
+  private float rotationDegrees;
+  private float filteredRotationDegrees;
+  // The rotation when the last update was dispatched, used when updates are coalesced.
+  private float dispatchedRotationDegrees;
 
   private static final float SLOP_ROTATION_DEGREES = 15.0f;
 
+  /**
+   * Creates a gesture for the pointer that caused the action of the motion event and the second
+   * pointer. The event must already have been decoded by the gesture pointers utility.
+   */
   public TwistGesture(
       GesturePointersUtility gesturePointersUtility, MotionEvent motionEvent, int pointerId2) {
+    this(gesturePointersUtility);
+
+    int pointerId1 = gesturePointersUtility.getActionPointerId();
+    init(pointerPairs.findOrAddRow(gesturePointersUtility, pointerId1, pointerId2));
+  }
+
+  // Creates a gesture that must be initialized with init before it is used.
+  TwistGesture(GesturePointersUtility gesturePointersUtility) {
     super(gesturePointersUtility);
 
-    pointerId1 = motionEvent.getPointerId(motionEvent.getActionIndex());
-    this.pointerId2 = pointerId2;
-    startPosition1 = GesturePointersUtility.motionEventToPosition(motionEvent, pointerId1);
-    startPosition2 = GesturePointersUtility.motionEventToPosition(motionEvent, pointerId2);
-    previousPosition1 = new Vector3(startPosition1);
-    previousPosition2 = new Vector3(startPosition2);
-    debugLog("Created");
+    pointerPairs = gesturePointersUtility.getPointerPairs();
+  }
+
+  /** Initializes the gesture for the pair of pointers in the row of the pointer pair table. */
+  void init(int pairRow) {
+    this.pairRow = pairRow;
+    pointerPairs.retainRow(pairRow);
+    pointerId1 = pointerPairs.getPointerId1(pairRow);
+    pointerId2 = pointerPairs.getPointerId2(pairRow);
+    targetNode = gesturePointersUtility.getPointerOwner(pointerId1);
+    deltaRotationDegrees = 0.0f;
+    rotationDegrees = 0.0f;
+    filteredRotationDegrees = 0.0f;
+    if (TWIST_GESTURE_DEBUG) {
+      debugLog("Created");
+    }
   }
 
   public float getDeltaRotationDegrees() {
@@ -59,14 +82,30 @@ public class TwistGesture extends BaseGesture<TwistGesture> {
 
   @Override
   protected boolean canStart(HitTestResult hitTestResult, MotionEvent motionEvent) {
-    if (gesturePointersUtility.isPointerIdRetained(pointerId1)
-        || gesturePointersUtility.isPointerIdRetained(pointerId2)) {
+    if (pointerPairs.shouldCancelCandidate(gesturePointersUtility, pairRow)) {
       cancel();
       return false;
     }
 
-    int actionId = motionEvent.getPointerId(motionEvent.getActionIndex());
-    int action = motionEvent.getActionMasked();
+    return isTwisting(gesturePointersUtility, pointerPairs, pairRow);
+  }
+
+  @Override
+  protected void onStart(HitTestResult hitTestResult, MotionEvent motionEvent) {
+    if (TWIST_GESTURE_DEBUG) {
+      debugLog("Started");
+    }
+    rotationDegrees = 0.0f;
+    filteredRotationDegrees = filterSignal(0, rotationDegrees);
+    dispatchedRotationDegrees = filteredRotationDegrees;
+    gesturePointersUtility.retainPointerId(pointerId1, this);
+    gesturePointersUtility.retainPointerId(pointerId2, this);
+  }
+
+  @Override
+  protected boolean updateGesture(HitTestResult hitTestResult, MotionEvent motionEvent) {
+    int actionId = gesturePointersUtility.getActionPointerId();
+    int action = gesturePointersUtility.getActionMasked();
 
     if (action == MotionEvent.ACTION_CANCEL) {
       cancel();
@@ -76,7 +115,7 @@ public class TwistGesture extends BaseGesture<TwistGesture> {
     boolean touchEnded = action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_POINTER_UP;
 
     if (touchEnded && (actionId == pointerId1 || actionId == pointerId2)) {
-      cancel();
+      complete();
       return false;
     }
 
@@ -84,76 +123,87 @@ public class TwistGesture extends BaseGesture<TwistGesture> {
       return false;
     }
 
-    Vector3 newPosition1 = GesturePointersUtility.motionEventToPosition(motionEvent, pointerId1);
-    Vector3 newPosition2 = GesturePointersUtility.motionEventToPosition(motionEvent, pointerId2);
-    Vector3 deltaPosition1 = Vector3.subtract(newPosition1, previousPosition1);
-    Vector3 deltaPosition2 = Vector3.subtract(newPosition2, previousPosition2);
-    previousPosition1.set(newPosition1);
-    previousPosition2.set(newPosition2);
-
-    // Check that both fingers are moving.
-    if (Vector3.equals(deltaPosition1, Vector3.zero())
-        || Vector3.equals(deltaPosition2, Vector3.zero())) {
-      return false;
+    // Accumulate the rotation between consecutive samples, starting from the positions of the
+    // pointers in the previous event, so that the rotation isn't lost when the pointers turn a lot
+    // between two events.
+    float previousX1 = gesturePointersUtility.getPreviousPointerX(pointerId1);
+    float previousY1 = gesturePointersUtility.getPreviousPointerY(pointerId1);
+    float previousX2 = gesturePointersUtility.getPreviousPointerX(pointerId2);
+    float previousY2 = gesturePointersUtility.getPreviousPointerY(pointerId2);
+    float rotation = 0.0f;
+    int historySize = gesturePointersUtility.getHistorySize();
+    for (int sample = getFirstSample(); sample <= historySize; sample++) {
+      float newX1 = gesturePointersUtility.getSampleX(pointerId1, sample);
+      float newY1 = gesturePointersUtility.getSampleY(pointerId1, sample);
+      float newX2 = gesturePointersUtility.getSampleX(pointerId2, sample);
+      float newY2 = gesturePointersUtility.getSampleY(pointerId2, sample);
+      rotation +=
+          calculateDeltaRotation(
+              newX1, newY1, newX2, newY2, previousX1, previousY1, previousX2, previousY2);
+      previousX1 = newX1;
+      previousY1 = newY1;
+      previousX2 = newX2;
+      previousY2 = newY2;
     }
-
-    float rotation =
-        calculateDeltaRotation(newPosition1, newPosition2, startPosition1, startPosition2);
-    if (Math.abs(rotation) < SLOP_ROTATION_DEGREES) {
-      return false;
+    rotationDegrees += rotation;
+    float newFilteredRotationDegrees = filterSignal(0, rotationDegrees);
+    deltaRotationDegrees = newFilteredRotationDegrees - filteredRotationDegrees;
+    filteredRotationDegrees = newFilteredRotationDegrees;
+    if (TWIST_GESTURE_DEBUG) {
+      debugLog("Update: " + deltaRotationDegrees);
     }
-
     return true;
   }
 
   @Override
-  protected void onStart(HitTestResult hitTestResult, MotionEvent motionEvent) {
-    debugLog("Started");
-    gesturePointersUtility.retainPointerId(pointerId1);
-    gesturePointersUtility.retainPointerId(pointerId2);
+  protected void onCancel() {
+    if (TWIST_GESTURE_DEBUG) {
+      debugLog("Cancelled");
+    }
+    releasePairRow();
   }
 
   @Override
-  protected boolean updateGesture(HitTestResult hitTestResult, MotionEvent motionEvent) {
-    int actionId = motionEvent.getPointerId(motionEvent.getActionIndex());
-    int action = motionEvent.getActionMasked();
-
-    if (action == MotionEvent.ACTION_CANCEL) {
-      cancel();
-      return false;
-    }
-
-    boolean touchEnded = action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_POINTER_UP;
-
-    if (touchEnded && (actionId == pointerId1 || actionId == pointerId2)) {
-      complete();
-      return false;
+  protected void onFinish() {
+    if (TWIST_GESTURE_DEBUG) {
+      debugLog("Finished");
     }
+    gesturePointersUtility.releasePointerId(pointerId1);
+    gesturePointersUtility.releasePointerId(pointerId2);
+    releasePairRow();
+  }
 
-    if (action != MotionEvent.ACTION_MOVE) {
+  @Override
+  protected boolean settleSignals() {
+    float newFilteredRotationDegrees = settleSignal(0, rotationDegrees);
+    if (newFilteredRotationDegrees == filteredRotationDegrees) {
       return false;
     }
 
-    Vector3 newPosition1 = GesturePointersUtility.motionEventToPosition(motionEvent, pointerId1);
-    Vector3 newPosition2 = GesturePointersUtility.motionEventToPosition(motionEvent, pointerId2);
-    deltaRotationDegrees =
-        calculateDeltaRotation(newPosition1, newPosition2, previousPosition1, previousPosition2);
-    previousPosition1.set(newPosition1);
-    previousPosition2.set(newPosition2);
-    debugLog("Update: " + deltaRotationDegrees);
+    deltaRotationDegrees = newFilteredRotationDegrees - filteredRotationDegrees;
+    filteredRotationDegrees = newFilteredRotationDegrees;
     return true;
   }
 
   @Override
-  protected void onCancel() {
-    debugLog("Cancelled");
+  protected void prepareCoalescedUpdate() {
+    deltaRotationDegrees = filteredRotationDegrees - dispatchedRotationDegrees;
+    dispatchedRotationDegrees = filteredRotationDegrees;
   }
 
   @Override
-  protected void onFinish() {
-    debugLog("Finished");
-    gesturePointersUtility.releasePointerId(pointerId1);
-    gesturePointersUtility.releasePointerId(pointerId2);
+  protected int getSignalChannelCount() {
+    return 1;
+  }
+
+  @Override
+  protected void writeIntentValues(float[] values) {
+    values[0] = deltaRotationDegrees;
+  }
+
+  @Override
+  protected void readIntentValues(float[] values) {
+    deltaRotationDegrees = values[0];
   }
 
   @Override
@@ -161,22 +211,81 @@ public class TwistGesture extends BaseGesture<TwistGesture> {
     return this;
   }
 
+  /**
+   * Returns true if both pointers of the pair moved in the last event and the line between them has
+   * rotated by more than the slop since the pair was created, scaled by {@link
+   * GesturePointersUtility#getStartSlopScale(int, int)}.
+   */
+  static boolean isTwisting(
+      GesturePointersUtility gesturePointersUtility, PointerPairTable pointerPairs, int pairRow) {
+    if (gesturePointersUtility.getActionMasked() != MotionEvent.ACTION_MOVE) {
+      return false;
+    }
+
+    int pointerId1 = pointerPairs.getPointerId1(pairRow);
+    int pointerId2 = pointerPairs.getPointerId2(pairRow);
+    float newX1 = gesturePointersUtility.getPointerX(pointerId1);
+    float newY1 = gesturePointersUtility.getPointerY(pointerId1);
+    float newX2 = gesturePointersUtility.getPointerX(pointerId2);
+    float newY2 = gesturePointersUtility.getPointerY(pointerId2);
+    boolean firstMoved =
+        newX1 != gesturePointersUtility.getPreviousPointerX(pointerId1)
+            || newY1 != gesturePointersUtility.getPreviousPointerY(pointerId1);
+    boolean secondMoved =
+        newX2 != gesturePointersUtility.getPreviousPointerX(pointerId2)
+            || newY2 != gesturePointersUtility.getPreviousPointerY(pointerId2);
+
+    // Check that both fingers are moving.
+    if (!firstMoved || !secondMoved) {
+      return false;
+    }
+
+    float rotation =
+        calculateDeltaRotation(
+            newX1,
+            newY1,
+            newX2,
+            newY2,
+            pointerPairs.getStartX1(pairRow),
+            pointerPairs.getStartY1(pairRow),
+            pointerPairs.getStartX2(pairRow),
+            pointerPairs.getStartY2(pairRow));
+    return Math.abs(rotation)
+        >= SLOP_ROTATION_DEGREES * gesturePointersUtility.getStartSlopScale(pointerId1, pointerId2);
+  }
+
+  private void releasePairRow() {
+    if (pairRow != PointerPairTable.NO_ROW) {
+      pointerPairs.releaseRow(pairRow);
+      pairRow = PointerPairTable.NO_ROW;
+    }
+  }
+
   private static void debugLog(String log) {
     if (TWIST_GESTURE_DEBUG) {
       Log.d(TAG, "TwistGesture:[" + log + "]");
     }
   }
 
-  private static float calculateDeltaRotation(
-      Vector3 currentPosition1,
-      Vector3 currentPosition2,
-      Vector3 previousPosition1,
-      Vector3 previousPosition2) {
-    Vector3 currentDirection = Vector3.subtract(currentPosition1, currentPosition2).normalized();
-    Vector3 previousDirection = Vector3.subtract(previousPosition1, previousPosition2).normalized();
-    float sign =
-        Math.signum(
-            previousDirection.x * currentDirection.y - previousDirection.y * currentDirection.x);
-    return Vector3.angleBetweenVectors(currentDirection, previousDirection) * sign;
+  static float calculateDeltaRotation(
+      float currentX1,
+      float currentY1,
+      float currentX2,
+      float currentY2,
+      float previousX1,
+      float previousY1,
+      float previousX2,
+      float previousY2) {
+    float currentDirectionX = currentX1 - currentX2;
+    float currentDirectionY = currentY1 - currentY2;
+    float previousDirectionX = previousX1 - previousX2;
+    float previousDirectionY = previousY1 - previousY2;
+
+    // The angle between the two directions is computed from their cross and dot products, which
+    // avoids normalizing either direction.
+    float cross = previousDirectionX * currentDirectionY - previousDirectionY * currentDirectionX;
+    float dot = previousDirectionX * currentDirectionX + previousDirectionY * currentDirectionY;
+    float angle = (float) Math.toDegrees(Math.atan2(Math.abs(cross), dot));
+    return angle * Math.signum(cross);
   }
 }
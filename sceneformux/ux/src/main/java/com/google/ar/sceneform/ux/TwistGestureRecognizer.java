@@ -24,19 +24,74 @@ public class TwistGestureRecognizer extends BaseGestureRecognizer<TwistGesture>
   public interface OnGestureStartedListener
       extends BaseGestureRecognizer.OnGestureStartedListener<TwistGesture> {}
 
+  private final PointerPairTable pointerPairs;
+  private final int candidateFlag;
+
   public TwistGestureRecognizer(GesturePointersUtility gesturePointersUtility) {
     super(gesturePointersUtility);
+
+    pointerPairs = gesturePointersUtility.getPointerPairs();
+    candidateFlag = pointerPairs.registerCandidateFlag();
+  }
+
+  @Override
+  protected int getMinimumPointerCount() {
+    return 2;
+  }
+
+  @Override
+  protected boolean createsGesturesOnlyOnPointerDown() {
+    return true;
+  }
+
+  @Override
+  protected TwistGesture createMirrorGesture() {
+    return new TwistGesture(gesturePointersUtility);
+  }
+
+  @Override
+  protected boolean hasCandidates() {
+    return pointerPairs.hasCandidates(candidateFlag);
   }
 
   @Override
   protected void tryCreateGestures(HitTestResult hitTestResult, MotionEvent motionEvent) {
+    addCandidates();
+
+    // Only create a gesture for a candidate pair once it passes the start check, instead of
+    // creating a gesture for every pair of pointers that might never start.
+    for (int row = 0; row < pointerPairs.getRowCount(); row++) {
+      if (!pointerPairs.isCandidate(row, candidateFlag)) {
+        continue;
+      }
+
+      if (pointerPairs.shouldCancelCandidate(gesturePointersUtility, row)) {
+        pointerPairs.removeCandidate(row, candidateFlag);
+        continue;
+      }
+
+      if (!TwistGesture.isTwisting(gesturePointersUtility, pointerPairs, row)) {
+        continue;
+      }
+
+      TwistGesture gesture = obtainRecycledGesture();
+      if (gesture == null) {
+        gesture = new TwistGesture(gesturePointersUtility);
+      }
+      gesture.init(row);
+      pointerPairs.removeCandidate(row, candidateFlag);
+      addGesture(gesture);
+    }
+  }
+
+  private void addCandidates() {
     // Twist gestures require at least two fingers to be touching.
-    if (motionEvent.getPointerCount() < 2) {
+    if (gesturePointersUtility.getPointerCount() < 2) {
       return;
     }
 
-    int actionId = motionEvent.getPointerId(motionEvent.getActionIndex());
-    int action = motionEvent.getActionMasked();
+    int actionId = gesturePointersUtility.getActionPointerId();
+    int action = gesturePointersUtility.getActionMasked();
     boolean touchBegan =
         action == MotionEvent.ACTION_DOWN || action == MotionEvent.ACTION_POINTER_DOWN;
 
@@ -44,18 +99,17 @@ public class TwistGestureRecognizer extends BaseGestureRecognizer<TwistGesture>
       return;
     }
 
-    // Determine if there is another pointer Id that has not yet been retained.
-    for (int i = 0; i < motionEvent.getPointerCount(); i++) {
-      int pointerId = motionEvent.getPointerId(i);
-      if (pointerId == actionId) {
-        continue;
-      }
-
-      if (gesturePointersUtility.isPointerIdRetained(pointerId)) {
-        continue;
-      }
-
-      gestures.add(new TwistGesture(gesturePointersUtility, motionEvent, pointerId));
+    // Pair the new pointer with every other pointer bound to the same node that has not yet been
+    // retained.
+    int pointerIds =
+        gesturePointersUtility.getUnretainedPointerIds()
+            & gesturePointersUtility.getPointerIdsWithSameOwner(actionId)
+            & ~(1 << actionId);
+    while (pointerIds != 0) {
+      int pointerId = Integer.numberOfTrailingZeros(pointerIds);
+      pointerIds &= pointerIds - 1;
+      int row = pointerPairs.findOrAddRow(gesturePointersUtility, actionId, pointerId);
+      pointerPairs.addCandidate(row, candidateFlag);
     }
   }
 }
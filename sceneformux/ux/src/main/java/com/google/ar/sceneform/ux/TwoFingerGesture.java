@@ -0,0 +1,378 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+import android.util.Log;
+import android.view.MotionEvent;
+import com.google.ar.sceneform.HitTestResult;
+
+/**
+ * Gesture for when the user pinches, twists or pans with two fingers on the touch screen. The
+ * centroid, gap and angle of the pair of pointers are computed once per touch event, and the scale,
+ * rotation and pan deltas are reported together in a single update.
+ */
+public class TwoFingerGesture extends BaseGesture<TwoFingerGesture> {
+  private static final String TAG = TwoFingerGesture.class.getSimpleName();
+
+  /** Interface definition for callbacks to be invoked by a {@link TwoFingerGesture}. */
+  public interface OnGestureEventListener
+      extends BaseGesture.OnGestureEventListener<TwoFingerGesture> {}
+
+  private final float slopPixels;
+  private final PointerPairTable pointerPairs;
+  private int pairRow = PointerPairTable.NO_ROW;
+  private int pointerId1;
+  private int pointerId2;
+
+  private float centroidX;
+  private float centroidY;
+  private float gap;
+  // The rotation since the gesture started, before and after the signal filter is applied.
+  private float rotationDegrees;
+  private float filteredRotationDegrees;
+  // The values when the last update was dispatched, used when updates are coalesced.
+  private float dispatchedCentroidX;
+  private float dispatchedCentroidY;
+  private float dispatchedGap;
+  private float dispatchedRotationDegrees;
+
+  private float panDeltaX;
+  private float panDeltaY;
+  private float gapDelta;
+  private float deltaRotationDegrees;
+
+  static final float SLOP_INCHES = PinchGesture.SLOP_INCHES;
+
+  private static final int SIGNAL_CENTROID_X = 0;
+  private static final int SIGNAL_CENTROID_Y = 1;
+  private static final int SIGNAL_GAP = 2;
+  private static final int SIGNAL_ROTATION = 3;
+  private static final int SIGNAL_CHANNEL_COUNT = 4;
+
+  private static final boolean TWO_FINGER_GESTURE_DEBUG = false;
+
+  // Creates a gesture that must be initialized with init before it is used.
+  TwoFingerGesture(GesturePointersUtility gesturePointersUtility) {
+    super(gesturePointersUtility);
+
+    pointerPairs = gesturePointersUtility.getPointerPairs();
+    slopPixels = gesturePointersUtility.inchesToPixels(SLOP_INCHES);
+  }
+
+  /** Initializes the gesture for the pair of pointers in the row of the pointer pair table. */
+  void init(int pairRow) {
+    this.pairRow = pairRow;
+    pointerPairs.retainRow(pairRow);
+    pointerId1 = pointerPairs.getPointerId1(pairRow);
+    pointerId2 = pointerPairs.getPointerId2(pairRow);
+    targetNode = gesturePointersUtility.getPointerOwner(pointerId1);
+    panDeltaX = 0.0f;
+    panDeltaY = 0.0f;
+    gapDelta = 0.0f;
+    deltaRotationDegrees = 0.0f;
+    if (TWO_FINGER_GESTURE_DEBUG) {
+      debugLog("Created");
+    }
+  }
+
+  /** Returns the x coordinate of the point halfway between the two pointers. */
+  public float getCentroidX() {
+    return centroidX;
+  }
+
+  /** Returns the y coordinate of the point halfway between the two pointers. */
+  public float getCentroidY() {
+    return centroidY;
+  }
+
+  public float getPanDeltaX() {
+    return panDeltaX;
+  }
+
+  public float getPanDeltaY() {
+    return panDeltaY;
+  }
+
+  public float getGap() {
+    return gap;
+  }
+
+  public float gapInches() {
+    return gesturePointersUtility.pixelsToInches(getGap());
+  }
+
+  public float getGapDelta() {
+    return gapDelta;
+  }
+
+  public float gapDeltaInches() {
+    return gesturePointersUtility.pixelsToInches(getGapDelta());
+  }
+
+  /** Returns the rotation since the last update, with the same sign as a {@link TwistGesture}. */
+  public float getDeltaRotationDegrees() {
+    return deltaRotationDegrees;
+  }
+
+  @Override
+  protected boolean canStart(HitTestResult hitTestResult, MotionEvent motionEvent) {
+    if (pointerPairs.shouldCancelCandidate(gesturePointersUtility, pairRow)) {
+      cancel();
+      return false;
+    }
+
+    return canStartPair(gesturePointersUtility, pointerPairs, pairRow, slopPixels);
+  }
+
+  @Override
+  protected void onStart(HitTestResult hitTestResult, MotionEvent motionEvent) {
+    if (TWO_FINGER_GESTURE_DEBUG) {
+      debugLog("Started");
+    }
+
+    float x1 = gesturePointersUtility.getPointerX(pointerId1);
+    float y1 = gesturePointersUtility.getPointerY(pointerId1);
+    float x2 = gesturePointersUtility.getPointerX(pointerId2);
+    float y2 = gesturePointersUtility.getPointerY(pointerId2);
+    centroidX = filterSignal(SIGNAL_CENTROID_X, (x1 + x2) * 0.5f);
+    centroidY = filterSignal(SIGNAL_CENTROID_Y, (y1 + y2) * 0.5f);
+    gap = filterSignal(SIGNAL_GAP, length(x1 - x2, y1 - y2));
+    rotationDegrees = 0.0f;
+    filteredRotationDegrees = filterSignal(SIGNAL_ROTATION, rotationDegrees);
+    dispatchedCentroidX = centroidX;
+    dispatchedCentroidY = centroidY;
+    dispatchedGap = gap;
+    dispatchedRotationDegrees = filteredRotationDegrees;
+
+    gesturePointersUtility.retainPointerId(pointerId1, this);
+    gesturePointersUtility.retainPointerId(pointerId2, this);
+  }
+
+  @Override
+  protected boolean updateGesture(HitTestResult hitTestResult, MotionEvent motionEvent) {
+    int actionId = gesturePointersUtility.getActionPointerId();
+    int action = gesturePointersUtility.getActionMasked();
+
+    if (action == MotionEvent.ACTION_CANCEL) {
+      cancel();
+      return false;
+    }
+
+    boolean touchEnded = action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_POINTER_UP;
+
+    if (touchEnded && (actionId == pointerId1 || actionId == pointerId2)) {
+      complete();
+      return false;
+    }
+
+    if (action != MotionEvent.ACTION_MOVE) {
+      return false;
+    }
+
+    // Accumulate the rotation between consecutive samples, starting from the positions of the
+    // pointers in the previous event, like a TwistGesture does.
+    float x1 = gesturePointersUtility.getPreviousPointerX(pointerId1);
+    float y1 = gesturePointersUtility.getPreviousPointerY(pointerId1);
+    float x2 = gesturePointersUtility.getPreviousPointerX(pointerId2);
+    float y2 = gesturePointersUtility.getPreviousPointerY(pointerId2);
+    float rotation = 0.0f;
+    int historySize = gesturePointersUtility.getHistorySize();
+    for (int sample = getFirstSample(); sample <= historySize; sample++) {
+      float newX1 = gesturePointersUtility.getSampleX(pointerId1, sample);
+      float newY1 = gesturePointersUtility.getSampleY(pointerId1, sample);
+      float newX2 = gesturePointersUtility.getSampleX(pointerId2, sample);
+      float newY2 = gesturePointersUtility.getSampleY(pointerId2, sample);
+      rotation += TwistGesture.calculateDeltaRotation(newX1, newY1, newX2, newY2, x1, y1, x2, y2);
+      x1 = newX1;
+      y1 = newY1;
+      x2 = newX2;
+      y2 = newY2;
+    }
+
+    // After the loop, the positions are the current positions of the pointers.
+    float newCentroidX = filterSignal(SIGNAL_CENTROID_X, (x1 + x2) * 0.5f);
+    float newCentroidY = filterSignal(SIGNAL_CENTROID_Y, (y1 + y2) * 0.5f);
+    float newGap = filterSignal(SIGNAL_GAP, length(x1 - x2, y1 - y2));
+    rotationDegrees += rotation;
+    float newFilteredRotationDegrees = filterSignal(SIGNAL_ROTATION, rotationDegrees);
+
+    panDeltaX = newCentroidX - centroidX;
+    panDeltaY = newCentroidY - centroidY;
+    gapDelta = newGap - gap;
+    deltaRotationDegrees = newFilteredRotationDegrees - filteredRotationDegrees;
+    centroidX = newCentroidX;
+    centroidY = newCentroidY;
+    gap = newGap;
+    filteredRotationDegrees = newFilteredRotationDegrees;
+
+    boolean moved = panDeltaX != 0.0f || panDeltaY != 0.0f || gapDelta != 0.0f;
+    if (!moved && deltaRotationDegrees == 0.0f) {
+      return false;
+    }
+
+    if (TWO_FINGER_GESTURE_DEBUG) {
+      debugLog("Update: " + gapDelta + ", " + deltaRotationDegrees);
+    }
+    return true;
+  }
+
+  @Override
+  protected void onCancel() {
+    if (TWO_FINGER_GESTURE_DEBUG) {
+      debugLog("Cancelled");
+    }
+    releasePairRow();
+  }
+
+  @Override
+  protected void onFinish() {
+    if (TWO_FINGER_GESTURE_DEBUG) {
+      debugLog("Finished");
+    }
+    gesturePointersUtility.releasePointerId(pointerId1);
+    gesturePointersUtility.releasePointerId(pointerId2);
+    releasePairRow();
+  }
+
+  @Override
+  protected boolean settleSignals() {
+    float x1 = gesturePointersUtility.getPointerX(pointerId1);
+    float y1 = gesturePointersUtility.getPointerY(pointerId1);
+    float x2 = gesturePointersUtility.getPointerX(pointerId2);
+    float y2 = gesturePointersUtility.getPointerY(pointerId2);
+    float newCentroidX = settleSignal(SIGNAL_CENTROID_X, (x1 + x2) * 0.5f);
+    float newCentroidY = settleSignal(SIGNAL_CENTROID_Y, (y1 + y2) * 0.5f);
+    float newGap = settleSignal(SIGNAL_GAP, length(x1 - x2, y1 - y2));
+    float newFilteredRotationDegrees = settleSignal(SIGNAL_ROTATION, rotationDegrees);
+
+    panDeltaX = newCentroidX - centroidX;
+    panDeltaY = newCentroidY - centroidY;
+    gapDelta = newGap - gap;
+    deltaRotationDegrees = newFilteredRotationDegrees - filteredRotationDegrees;
+    centroidX = newCentroidX;
+    centroidY = newCentroidY;
+    gap = newGap;
+    filteredRotationDegrees = newFilteredRotationDegrees;
+
+    return panDeltaX != 0.0f
+        || panDeltaY != 0.0f
+        || gapDelta != 0.0f
+        || deltaRotationDegrees != 0.0f;
+  }
+
+  @Override
+  protected void prepareCoalescedUpdate() {
+    panDeltaX = centroidX - dispatchedCentroidX;
+    panDeltaY = centroidY - dispatchedCentroidY;
+    gapDelta = gap - dispatchedGap;
+    deltaRotationDegrees = filteredRotationDegrees - dispatchedRotationDegrees;
+    dispatchedCentroidX = centroidX;
+    dispatchedCentroidY = centroidY;
+    dispatchedGap = gap;
+    dispatchedRotationDegrees = filteredRotationDegrees;
+  }
+
+  @Override
+  protected int getSignalChannelCount() {
+    return SIGNAL_CHANNEL_COUNT;
+  }
+
+  @Override
+  protected void writeIntentValues(float[] values) {
+    values[0] = centroidX;
+    values[1] = centroidY;
+    values[2] = panDeltaX;
+    values[3] = panDeltaY;
+    values[4] = gap;
+    values[5] = gapDelta;
+    values[6] = deltaRotationDegrees;
+  }
+
+  @Override
+  protected void readIntentValues(float[] values) {
+    centroidX = values[0];
+    centroidY = values[1];
+    panDeltaX = values[2];
+    panDeltaY = values[3];
+    gap = values[4];
+    gapDelta = values[5];
+    deltaRotationDegrees = values[6];
+  }
+
+  @Override
+  protected TwoFingerGesture getSelf() {
+    return this;
+  }
+
+  /**
+   * Returns true if the pair of pointers is pinching or twisting, or if both pointers moved and
+   * their centroid has moved by more than the slop since the pair was created.
+   */
+  static boolean canStartPair(
+      GesturePointersUtility gesturePointersUtility,
+      PointerPairTable pointerPairs,
+      int pairRow,
+      float slopPixels) {
+    if (gesturePointersUtility.getActionMasked() != MotionEvent.ACTION_MOVE) {
+      return false;
+    }
+
+    if (PinchGesture.isPinching(gesturePointersUtility, pointerPairs, pairRow, slopPixels)
+        || TwistGesture.isTwisting(gesturePointersUtility, pointerPairs, pairRow)) {
+      return true;
+    }
+
+    int pointerId1 = pointerPairs.getPointerId1(pairRow);
+    int pointerId2 = pointerPairs.getPointerId2(pairRow);
+    float x1 = gesturePointersUtility.getPointerX(pointerId1);
+    float y1 = gesturePointersUtility.getPointerY(pointerId1);
+    float x2 = gesturePointersUtility.getPointerX(pointerId2);
+    float y2 = gesturePointersUtility.getPointerY(pointerId2);
+    boolean firstMoved =
+        x1 != gesturePointersUtility.getPreviousPointerX(pointerId1)
+            || y1 != gesturePointersUtility.getPreviousPointerY(pointerId1);
+    boolean secondMoved =
+        x2 != gesturePointersUtility.getPreviousPointerX(pointerId2)
+            || y2 != gesturePointersUtility.getPreviousPointerY(pointerId2);
+    if (!firstMoved || !secondMoved) {
+      return false;
+    }
+
+    float panX =
+        (x1 + x2 - pointerPairs.getStartX1(pairRow) - pointerPairs.getStartX2(pairRow)) * 0.5f;
+    float panY =
+        (y1 + y2 - pointerPairs.getStartY1(pairRow) - pointerPairs.getStartY2(pairRow)) * 0.5f;
+    float slop = slopPixels * gesturePointersUtility.getStartSlopScale(pointerId1, pointerId2);
+    return panX * panX + panY * panY >= slop * slop;
+  }
+
+  private void releasePairRow() {
+    if (pairRow != PointerPairTable.NO_ROW) {
+      pointerPairs.releaseRow(pairRow);
+      pairRow = PointerPairTable.NO_ROW;
+    }
+  }
+
+  private static void debugLog(String log) {
+    if (TWO_FINGER_GESTURE_DEBUG) {
+      Log.d(TAG, "TwoFingerGesture:[" + log + "]");
+    }
+  }
+
+  private static float length(float x, float y) {
+    return (float) Math.sqrt(x * x + y * y);
+  }
+}
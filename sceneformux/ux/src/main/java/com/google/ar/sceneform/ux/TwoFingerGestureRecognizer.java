@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+import android.view.MotionEvent;
+import com.google.ar.sceneform.HitTestResult;
+
+/**
+ * Gesture Recognizer for when the user pinches, twists or pans with two fingers on the touch
+ * screen. Recognizes all three motions as one {@link TwoFingerGesture}, so that they can be applied
+ * together instead of competing for the same pointers.
+ */
+public class TwoFingerGestureRecognizer extends BaseGestureRecognizer<TwoFingerGesture> {
+  /** Interface definition for a callbacks to be invoked when a {@link TwoFingerGesture} starts. */
+  public interface OnGestureStartedListener
+      extends BaseGestureRecognizer.OnGestureStartedListener<TwoFingerGesture> {}
+
+  private final PointerPairTable pointerPairs;
+  private final int candidateFlag;
+  private final float slopPixels;
+
+  public TwoFingerGestureRecognizer(GesturePointersUtility gesturePointersUtility) {
+    super(gesturePointersUtility);
+
+    pointerPairs = gesturePointersUtility.getPointerPairs();
+    candidateFlag = pointerPairs.registerCandidateFlag();
+    slopPixels = gesturePointersUtility.inchesToPixels(TwoFingerGesture.SLOP_INCHES);
+  }
+
+  @Override
+  protected int getMinimumPointerCount() {
+    return 2;
+  }
+
+  @Override
+  protected boolean createsGesturesOnlyOnPointerDown() {
+    return true;
+  }
+
+  @Override
+  protected TwoFingerGesture createMirrorGesture() {
+    return new TwoFingerGesture(gesturePointersUtility);
+  }
+
+  @Override
+  protected boolean hasCandidates() {
+    return pointerPairs.hasCandidates(candidateFlag);
+  }
+
+  @Override
+  protected void tryCreateGestures(HitTestResult hitTestResult, MotionEvent motionEvent) {
+    addCandidates();
+
+    // Only create a gesture for a candidate pair once it passes the start check, instead of
+    // creating a gesture for every pair of pointers that might never start.
+    for (int row = 0; row < pointerPairs.getRowCount(); row++) {
+      if (!pointerPairs.isCandidate(row, candidateFlag)) {
+        continue;
+      }
+
+      if (pointerPairs.shouldCancelCandidate(gesturePointersUtility, row)) {
+        pointerPairs.removeCandidate(row, candidateFlag);
+        continue;
+      }
+
+      if (!TwoFingerGesture.canStartPair(gesturePointersUtility, pointerPairs, row, slopPixels)) {
+        continue;
+      }
+
+      TwoFingerGesture gesture = obtainRecycledGesture();
+      if (gesture == null) {
+        gesture = new TwoFingerGesture(gesturePointersUtility);
+      }
+      gesture.init(row);
+      pointerPairs.removeCandidate(row, candidateFlag);
+      addGesture(gesture);
+    }
+  }
+
+  private void addCandidates() {
+    // Two finger gestures require at least two fingers to be touching.
+    if (gesturePointersUtility.getPointerCount() < 2) {
+      return;
+    }
+
+    int actionId = gesturePointersUtility.getActionPointerId();
+    int action = gesturePointersUtility.getActionMasked();
+    boolean touchBegan =
+        action == MotionEvent.ACTION_DOWN || action == MotionEvent.ACTION_POINTER_DOWN;
+
+    if (!touchBegan || gesturePointersUtility.isPointerIdRetained(actionId)) {
+      return;
+    }
+
+    // Pair the new pointer with every other pointer bound to the same node that has not yet been
+    // retained.
+    int pointerIds =
+        gesturePointersUtility.getUnretainedPointerIds()
+            & gesturePointersUtility.getPointerIdsWithSameOwner(actionId)
+            & ~(1 << actionId);
+    while (pointerIds != 0) {
+      int pointerId = Integer.numberOfTrailingZeros(pointerIds);
+      pointerIds &= pointerIds - 1;
+      int row = pointerPairs.findOrAddRow(gesturePointersUtility, actionId, pointerId);
+      pointerPairs.addCandidate(row, candidateFlag);
+    }
+  }
+}
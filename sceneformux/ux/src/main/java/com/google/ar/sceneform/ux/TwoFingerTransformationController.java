@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 Google LLC All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.ux;
+
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.Node;
+
+/**
+ * Scales and rotates a {@link BaseTransformableNode} at the same time using a {@link
+ * TwoFingerGestureRecognizer}. The scale and rotation are applied by the node's {@link
+ * ScaleController} and {@link RotationController}, so their settings (i.e. min/max scale and
+ * rotation rate) and whether they are enabled still apply.
+ *
+ * <p>Only receives gestures while fused two-finger gestures are enabled with {@link
+ * TransformationSystem#setFusedTwoFingerGesturesEnabled(boolean)}.
+ */
+public class TwoFingerTransformationController
+    extends BaseTransformationController<TwoFingerGesture> {
+  private final ScaleController scaleController;
+  private final RotationController rotationController;
+
+  public TwoFingerTransformationController(
+      BaseTransformableNode transformableNode,
+      TwoFingerGestureRecognizer gestureRecognizer,
+      ScaleController scaleController,
+      RotationController rotationController) {
+    super(transformableNode, gestureRecognizer);
+    this.scaleController = scaleController;
+    this.rotationController = rotationController;
+  }
+
+  @Override
+  public boolean canStartTransformation(TwoFingerGesture gesture) {
+    if (!scaleController.isEnabled() && !rotationController.isEnabled()) {
+      return false;
+    }
+
+    return isGestureForTransformableNode(gesture);
+  }
+
+  @Override
+  public void onGestureStarted(TwoFingerGesture gesture) {
+    super.onGestureStarted(gesture);
+
+    // Only hold the scale controller once the gesture has actually been adopted.
+    if (getActiveGesture() == gesture) {
+      scaleController.setExternallyTransforming(true);
+    }
+  }
+
+  @Override
+  public void onContinueTransformation(TwoFingerGesture gesture) {
+    if (rotationController.isEnabled()) {
+      rotationController.applyDeltaRotationDegrees(gesture.getDeltaRotationDegrees());
+    }
+
+    if (scaleController.isEnabled()
+        && !scaleController.applyGapDeltaInches(gesture.gapDeltaInches())) {
+      gesture.cancel();
+    }
+  }
+
+  @Override
+  public void onEndTransformation(TwoFingerGesture gesture) {
+    scaleController.setExternallyTransforming(false);
+  }
+
+  @Override
+  public void onUpdated(Node node, FrameTime frameTime) {
+    // Scale and rotation are applied through the other controllers as the gesture updates.
+    goIdle();
+  }
+}